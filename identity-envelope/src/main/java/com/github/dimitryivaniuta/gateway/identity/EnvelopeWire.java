@@ -0,0 +1,200 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary layout of an {@link IdentityEnvelope}, before base64url.
+ *
+ * <p>Layout of version {@value #VERSION_2}:</p>
+ * <pre>
+ * byte      version
+ * string    keyId          (signing key, selects the verification key)
+ * byte      presence bitmask (bit 0 = kid, bit 1 = correlationId)
+ * zigzag    expiresAt epoch seconds
+ * string    issuer
+ * string    audience
+ * string    subject
+ * string    kid
+ * string    correlationId
+ * varint    authority count, then one string each
+ * 32 bytes  HMAC-SHA256 of all bytes above
+ * </pre>
+ * <p>Strings are a varint byte length followed by UTF-8. Version 1 had no issuer or audience; it is refused, since
+ * an envelope not bound to an audience could be replayed against any service sharing the key ring.</p>
+ */
+final class EnvelopeWire {
+
+    static final byte VERSION_2 = 2;
+    static final int TAG_LENGTH = 32;
+
+    private static final int F_KID = 0;
+    private static final int F_CORRELATION_ID = 1;
+
+    private EnvelopeWire() {
+    }
+
+    /**
+     * Encodes {@code envelope} and leaves {@link #TAG_LENGTH} zero bytes at the end for the tag.
+     */
+    static byte[] encode(String keyId, IdentityEnvelope envelope) {
+        Out out = new Out(128 + envelope.authorities().size() * 16);
+        out.writeByte(VERSION_2);
+        out.writeString(keyId);
+        out.writeByte((envelope.kid() == null ? 0 : 1 << F_KID)
+                | (envelope.correlationId() == null ? 0 : 1 << F_CORRELATION_ID));
+        long seconds = envelope.expiresAt().getEpochSecond();
+        out.writeVarLong((seconds << 1) ^ (seconds >> 63));
+        out.writeString(envelope.issuer());
+        out.writeString(envelope.audience());
+        out.writeString(envelope.subject());
+        if (envelope.kid() != null) {
+            out.writeString(envelope.kid());
+        }
+        if (envelope.correlationId() != null) {
+            out.writeString(envelope.correlationId());
+        }
+        out.writeVarLong(envelope.authorities().size());
+        for (String authority : envelope.authorities()) {
+            out.writeString(authority);
+        }
+        out.skip(TAG_LENGTH);
+        return out.toByteArray();
+    }
+
+    /**
+     * Key id of a payload, read before the tag can be checked.
+     */
+    static String keyId(byte[] data) {
+        In in = new In(data, data.length - TAG_LENGTH);
+        int version = in.readByte();
+        if (version != VERSION_2) {
+            throw new InvalidIdentityEnvelopeException("Unsupported identity envelope version: " + version);
+        }
+        return in.readString();
+    }
+
+    /**
+     * Decodes a payload whose tag has already been verified.
+     */
+    static IdentityEnvelope decode(byte[] data) {
+        In in = new In(data, data.length - TAG_LENGTH);
+        in.readByte();
+        in.readString();
+        int mask = in.readByte();
+        long zigzag = in.readVarLong();
+        Instant expiresAt = Instant.ofEpochSecond((zigzag >>> 1) ^ -(zigzag & 1));
+        String issuer = in.readString();
+        String audience = in.readString();
+        String subject = in.readString();
+        String kid = (mask & (1 << F_KID)) != 0 ? in.readString() : null;
+        String correlationId = (mask & (1 << F_CORRELATION_ID)) != 0 ? in.readString() : null;
+        long count = in.readVarLong();
+        if (count > in.remaining()) {
+            throw new InvalidIdentityEnvelopeException("Truncated identity envelope");
+        }
+        List<String> authorities = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            authorities.add(in.readString());
+        }
+        if (in.remaining() != 0) {
+            throw new InvalidIdentityEnvelopeException("Trailing bytes in identity envelope");
+        }
+        return new IdentityEnvelope(issuer, audience, subject, authorities, kid, expiresAt, correlationId);
+    }
+
+    private static final class Out {
+        private byte[] buf;
+        private int pos;
+
+        Out(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void skip(int n) {
+            ensure(n);
+            pos += n;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class In {
+        private final byte[] buf;
+        private final int limit;
+        private int pos;
+
+        In(byte[] buf, int limit) {
+            this.buf = buf;
+            this.limit = limit;
+        }
+
+        int readByte() {
+            check(1);
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new InvalidIdentityEnvelopeException("Malformed varint");
+        }
+
+        String readString() {
+            long len = readVarLong();
+            check(len);
+            String s = new String(buf, pos, (int) len, StandardCharsets.UTF_8);
+            pos += (int) len;
+            return s;
+        }
+
+        int remaining() {
+            return limit - pos;
+        }
+
+        private void check(long n) {
+            if (n < 0 || pos + n > limit) {
+                throw new InvalidIdentityEnvelopeException("Truncated identity envelope");
+            }
+        }
+    }
+}
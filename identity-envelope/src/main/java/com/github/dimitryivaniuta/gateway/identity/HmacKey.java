@@ -0,0 +1,48 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * One HMAC-SHA256 key. The keyed {@link Mac} is set up once and cloned per use, which skips the provider lookup
+ * and key schedule and keeps it thread-safe.
+ */
+final class HmacKey {
+
+    static final int MIN_SECRET_LENGTH = 32;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Mac prototype;
+
+    HmacKey(String keyId, byte[] secret) {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("Identity envelope key " + keyId + " must have at least "
+                    + MIN_SECRET_LENGTH + " bytes");
+        }
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Tag of {@code data} without its last {@link EnvelopeWire#TAG_LENGTH} bytes.
+     */
+    byte[] tag(byte[] data) {
+        Mac mac = mac();
+        mac.update(data, 0, data.length - EnvelopeWire.TAG_LENGTH);
+        return mac.doFinal();
+    }
+
+    private Mac mac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 provider does not support clone", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Identity of a request's caller as verified by the gateway, forwarded to upstream services in the
+ * {@value #HEADER} header.
+ *
+ * @param issuer        token {@code iss}, the tenant the caller authenticated with
+ * @param audience      route the envelope was forwarded on; a service accepts only its own
+ * @param subject       token {@code sub}
+ * @param authorities   granted authorities ({@code ROLE_*}, {@code SCOPE_*}, {@code PERM_*})
+ * @param kid           key id the token was signed with, may be {@code null}
+ * @param expiresAt     token {@code exp}, capped by the gateway to a short TTL; the envelope is rejected after it
+ * @param correlationId request correlation id, may be {@code null}
+ */
+public record IdentityEnvelope(String issuer, String audience, String subject, List<String> authorities, String kid,
+                               Instant expiresAt, String correlationId) {
+
+    public static final String HEADER = "X-Identity-Envelope";
+
+    public IdentityEnvelope {
+        Objects.requireNonNull(issuer, "issuer");
+        Objects.requireNonNull(audience, "audience");
+        Objects.requireNonNull(subject, "subject");
+        Objects.requireNonNull(expiresAt, "expiresAt");
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
+    public boolean hasAuthority(String authority) {
+        return authorities.contains(authority);
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import java.util.Base64;
+
+/**
+ * Produces {@link IdentityEnvelope#HEADER} values, signed with the active key of the shared key ring.
+ */
+public final class IdentityEnvelopeSigner {
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final String keyId;
+    private final HmacKey key;
+
+    /**
+     * @param keyId  id of the active key, written into every envelope
+     * @param secret at least 32 random bytes
+     */
+    public IdentityEnvelopeSigner(String keyId, byte[] secret) {
+        this.keyId = keyId;
+        this.key = new HmacKey(keyId, secret);
+    }
+
+    public String sign(IdentityEnvelope envelope) {
+        byte[] data = EnvelopeWire.encode(keyId, envelope);
+        byte[] tag = key.tag(data);
+        System.arraycopy(tag, 0, data, data.length - EnvelopeWire.TAG_LENGTH, EnvelopeWire.TAG_LENGTH);
+        return BASE64.encodeToString(data);
+    }
+}
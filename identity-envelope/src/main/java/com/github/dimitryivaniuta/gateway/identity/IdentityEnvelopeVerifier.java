@@ -0,0 +1,88 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Verifies {@link IdentityEnvelope#HEADER} values in upstream services, in place of validating the bearer token.
+ *
+ * <p>Configure it with every key of the shared key ring that may still be in use: rotation adds the new key to
+ * all verifiers first, then makes it active on the gateway, then drops the old key once envelopes signed with it
+ * have expired. Each service verifies with its own audience (its route id on the gateway), so an envelope forwarded
+ * to one service is refused by the others. One verification is a base64 decode and one HMAC-SHA256, with no JWKS or network access.</p>
+ *
+ * <p>The envelope is only as trustworthy as the path it arrives on: services must accept it only from the
+ * gateway, which always replaces any client-supplied value.</p>
+ */
+public final class IdentityEnvelopeVerifier {
+
+    /**
+     * Upper bound on the header length checked before decoding.
+     */
+    public static final int MAX_LENGTH = 8192;
+
+    private static final Base64.Decoder BASE64 = Base64.getUrlDecoder();
+
+    private final String audience;
+    private final Map<String, HmacKey> keys = new HashMap<>();
+    private final Clock clock;
+
+    /**
+     * @param audience this service's audience, the id of its route on the gateway
+     * @param secrets  key id to secret, each at least 32 bytes
+     */
+    public IdentityEnvelopeVerifier(String audience, Map<String, byte[]> secrets) {
+        this(audience, secrets, Clock.systemUTC());
+    }
+
+    public IdentityEnvelopeVerifier(String audience, Map<String, byte[]> secrets, Clock clock) {
+        this.audience = Objects.requireNonNull(audience, "audience");
+        if (secrets.isEmpty()) {
+            throw new IllegalArgumentException("At least one identity envelope key is required");
+        }
+        secrets.forEach((keyId, secret) -> keys.put(keyId, new HmacKey(keyId, secret)));
+        this.clock = clock;
+    }
+
+    /**
+     * @throws InvalidIdentityEnvelopeException if the value is malformed, signed with an unknown key, tampered
+     *                                          with, meant for another audience or expired
+     */
+    public IdentityEnvelope verify(String header) {
+        if (header == null || header.isEmpty() || header.length() > MAX_LENGTH) {
+            throw new InvalidIdentityEnvelopeException("Missing or oversized identity envelope");
+        }
+        byte[] data;
+        try {
+            data = BASE64.decode(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidIdentityEnvelopeException("Identity envelope is not base64url");
+        }
+        if (data.length <= EnvelopeWire.TAG_LENGTH) {
+            throw new InvalidIdentityEnvelopeException("Truncated identity envelope");
+        }
+        String keyId = EnvelopeWire.keyId(data);
+        HmacKey key = keys.get(keyId);
+        if (key == null) {
+            throw new InvalidIdentityEnvelopeException("Unknown identity envelope key: " + keyId);
+        }
+        byte[] tag = Arrays.copyOfRange(data, data.length - EnvelopeWire.TAG_LENGTH, data.length);
+        if (!MessageDigest.isEqual(tag, key.tag(data))) {
+            throw new InvalidIdentityEnvelopeException("Invalid identity envelope signature");
+        }
+        IdentityEnvelope envelope = EnvelopeWire.decode(data);
+        if (!audience.equals(envelope.audience())) {
+            throw new InvalidIdentityEnvelopeException(
+                    "Identity envelope is for another audience: " + envelope.audience());
+        }
+        if (!envelope.expiresAt().isAfter(clock.instant())) {
+            throw new InvalidIdentityEnvelopeException("Identity envelope expired");
+        }
+        return envelope;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+/**
+ * The {@link IdentityEnvelope#HEADER} value is malformed, signed with an unknown key, tampered with or expired.
+ */
+public class InvalidIdentityEnvelopeException extends RuntimeException {
+
+    public InvalidIdentityEnvelopeException(String message) {
+        super(message);
+    }
+}
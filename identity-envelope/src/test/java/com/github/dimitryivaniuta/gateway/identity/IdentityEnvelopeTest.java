@@ -0,0 +1,111 @@
+package com.github.dimitryivaniuta.gateway.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Signing, verification, tampering, audience binding and key rotation of {@link IdentityEnvelope}s.
+ */
+class IdentityEnvelopeTest {
+
+    private static final byte[] K1 = "k1-0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] K2 = "k2-0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final Instant NOW = Instant.parse("2025-03-01T12:00:00Z");
+
+    private static final String ISS = "http://issuer.test";
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Test
+    void round_trips_and_stays_compact() {
+        IdentityEnvelope envelope = new IdentityEnvelope(ISS, "orders", "john",
+                List.of("ROLE_USER", "ROLE_ADMIN", "SCOPE_read", "PERM_orders:read"), "kid-1",
+                NOW.plusSeconds(600), "c0ffee");
+
+        String header = new IdentityEnvelopeSigner("k1", K1).sign(envelope);
+
+        assertThat(new IdentityEnvelopeVerifier("orders", Map.of("k1", K1), clock).verify(header)).isEqualTo(envelope);
+        assertThat(header).hasSizeLessThan(200).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void optional_fields_may_be_absent() {
+        IdentityEnvelope envelope = new IdentityEnvelope(ISS, "orders", "svc", null, null, NOW.plusSeconds(1), null);
+
+        IdentityEnvelope verified = new IdentityEnvelopeVerifier("orders", Map.of("k1", K1), clock)
+                .verify(new IdentityEnvelopeSigner("k1", K1).sign(envelope));
+
+        assertThat(verified).isEqualTo(envelope);
+        assertThat(verified.authorities()).isEmpty();
+    }
+
+    @Test
+    void rejects_tampered_expired_and_foreign_envelopes() {
+        IdentityEnvelopeSigner signer = new IdentityEnvelopeSigner("k1", K1);
+        IdentityEnvelopeVerifier verifier = new IdentityEnvelopeVerifier("orders", Map.of("k1", K1), clock);
+        String header = signer.sign(new IdentityEnvelope(ISS, "orders", "john", List.of("ROLE_USER"), "kid-1",
+                NOW.plusSeconds(60), "cid"));
+
+        byte[] tampered = Base64.getUrlDecoder().decode(header);
+        tampered[10] ^= 1;
+        String expired = signer.sign(new IdentityEnvelope(ISS, "orders", "john", List.of(), null, NOW, null));
+        String otherSecret = new IdentityEnvelopeSigner("k1", K2)
+                .sign(new IdentityEnvelope(ISS, "orders", "john", List.of(), null, NOW.plusSeconds(60), null));
+
+        assertThatThrownBy(() -> verifier.verify(Base64.getUrlEncoder().withoutPadding().encodeToString(tampered)))
+                .isInstanceOf(InvalidIdentityEnvelopeException.class);
+        assertThatThrownBy(() -> verifier.verify(expired)).hasMessageContaining("expired");
+        assertThatThrownBy(() -> verifier.verify(otherSecret)).hasMessageContaining("signature");
+        assertThatThrownBy(() -> verifier.verify(header.substring(0, 20)))
+                .isInstanceOf(InvalidIdentityEnvelopeException.class);
+        assertThatThrownBy(() -> verifier.verify("not base64!")).isInstanceOf(InvalidIdentityEnvelopeException.class);
+    }
+
+    @Test
+    void envelope_for_another_audience_or_an_old_version_is_refused() {
+        IdentityEnvelopeSigner signer = new IdentityEnvelopeSigner("k1", K1);
+        String billing = signer.sign(new IdentityEnvelope(ISS, "billing", "john", List.of("ROLE_USER"), null,
+                NOW.plusSeconds(60), null));
+        IdentityEnvelopeVerifier orders = new IdentityEnvelopeVerifier("orders", Map.of("k1", K1), clock);
+
+        assertThat(new IdentityEnvelopeVerifier("billing", Map.of("k1", K1), clock).verify(billing).issuer())
+                .isEqualTo(ISS);
+        assertThatThrownBy(() -> orders.verify(billing)).hasMessageContaining("another audience");
+
+        byte[] v1 = Base64.getUrlDecoder().decode(billing);
+        v1[0] = 1;
+        assertThatThrownBy(() -> orders.verify(Base64.getUrlEncoder().withoutPadding().encodeToString(v1)))
+                .hasMessageContaining("Unsupported identity envelope version: 1");
+    }
+
+    @Test
+    void verifier_with_both_keys_accepts_envelopes_across_a_rotation() {
+        IdentityEnvelope envelope = new IdentityEnvelope(ISS, "orders", "john", List.of("ROLE_USER"), null,
+                NOW.plusSeconds(60), null);
+        String before = new IdentityEnvelopeSigner("k1", K1).sign(envelope);
+        String after = new IdentityEnvelopeSigner("k2", K2).sign(envelope);
+
+        IdentityEnvelopeVerifier rotating = new IdentityEnvelopeVerifier("orders", Map.of("k1", K1, "k2", K2), clock);
+        IdentityEnvelopeVerifier old = new IdentityEnvelopeVerifier("orders", Map.of("k1", K1), clock);
+
+        assertThat(rotating.verify(before)).isEqualTo(envelope);
+        assertThat(rotating.verify(after)).isEqualTo(envelope);
+        assertThatThrownBy(() -> old.verify(after)).hasMessageContaining("Unknown identity envelope key");
+    }
+
+    @Test
+    void short_secrets_are_refused() {
+        assertThatThrownBy(() -> new IdentityEnvelopeSigner("k1", new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
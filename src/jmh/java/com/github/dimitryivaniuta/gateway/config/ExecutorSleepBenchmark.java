@@ -0,0 +1,92 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Synthetic comparison of the two executors behind the threading modes: a fixed pool of
+ * {@value #PLATFORM_THREADS} platform threads (Tomcat's default worker pool) against one virtual thread per task
+ * ({@code spring.threads.virtual.enabled}).
+ *
+ * <p>Each task only sleeps {@link #IO_MILLIS}, standing in for a Redis round trip or an IdP call, then does a
+ * little CPU work; no gateway code, servlet container or socket is involved. The score is the time to complete
+ * one burst of {@code inFlight} tasks, so it shows how each executor copes with blocking concurrency, not the
+ * gateway's throughput or memory footprint (JVM heap flags do not bound platform thread stacks).</p>
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=ExecutorSleep}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class ExecutorSleepBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final long IO_MILLIS = 5;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"200", "2000", "10000"})
+    public int inFlight;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "VIRTUAL".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS, Thread.ofPlatform().name("executor-sleep-", 0).factory());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(inFlight);
+        LongAdder sink = new LongAdder();
+        for (int i = 0; i < inFlight; i++) {
+            int request = i;
+            executor.execute(() -> {
+                try {
+                    sink.add(handle(request));
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return sink.sum();
+    }
+
+    private static long handle(int request) {
+        try {
+            Thread.sleep(IO_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long h = request;
+        for (int i = 0; i < 256; i++) {
+            h = h * 31 + i;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.dimitryivaniuta.gateway.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelope;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeSigner;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeVerifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * What an upstream service pays per request: verifying the gateway's identity envelope against parsing and
+ * RS256-verifying the bearer token itself (JWKS already in memory).
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=IdentityEnvelope}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentityEnvelopeBenchmark {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final IdentityEnvelopeSigner signer = new IdentityEnvelopeSigner("k1", SECRET);
+    private final IdentityEnvelopeVerifier verifier = new IdentityEnvelopeVerifier("orders", Map.of("k1", SECRET));
+    private IdentityEnvelope envelope;
+    private String header;
+    private String token;
+    private RSASSAVerifier rsaVerifier;
+
+    @Setup
+    public void setUp() throws Exception {
+        Instant exp = Instant.now().plusSeconds(3600);
+        List<String> authorities = List.of("ROLE_USER", "ROLE_ADMIN", "SCOPE_read", "SCOPE_write", "PERM_orders:read");
+        envelope = new IdentityEnvelope("http://issuer.test", "orders", "user-42", authorities, "key-1",
+                exp, "2f1c9b7e-5d0a-4c1e-9a43-1b7f6e2d8c55");
+        header = signer.sign(envelope);
+
+        RSAKey key = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build(),
+                new JWTClaimsSet.Builder().issuer("http://issuer.test").audience("api").subject("user-42")
+                        .expirationTime(Date.from(exp)).claim("roles", List.of("USER", "ADMIN"))
+                        .claim("scope", "read write").claim("permissions", "orders:read").build());
+        jwt.sign(new RSASSASigner(key));
+        token = jwt.serialize();
+        rsaVerifier = new RSASSAVerifier(key.toRSAPublicKey());
+    }
+
+    @Benchmark
+    public IdentityEnvelope envelopeVerify() {
+        return verifier.verify(header);
+    }
+
+    @Benchmark
+    public String envelopeSign() {
+        return signer.sign(envelope);
+    }
+
+    @Benchmark
+    public boolean rs256Verify() throws Exception {
+        SignedJWT jwt = SignedJWT.parse(token);
+        return jwt.verify(rsaVerifier) && jwt.getJWTClaimsSet().getSubject() != null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * {@link AuthoritiesMapper} against the previous regex/list based implementation, on a rotating set of
+ * decoded tokens with realistic, repeating claim combinations.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=AuthoritiesMapper}; {@code -prof gc} shows allocations.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthoritiesMapperBenchmark {
+
+    private static final int TOKENS = 64;
+
+    private final AuthoritiesMapper current = new AuthoritiesMapper();
+    private final LegacyAuthoritiesMapper legacy = new LegacyAuthoritiesMapper();
+    private final Jwt[] jwts = new Jwt[TOKENS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<List<String>> roles = List.of(List.of("USER"), List.of("USER", "ADMIN"), List.of("USER", "AUDITOR"));
+        List<String> scopes = List.of("read", "read write", "openid profile read write");
+        for (int i = 0; i < TOKENS; i++) {
+            Instant now = Instant.now();
+            jwts[i] = Jwt.withTokenValue("token-" + i)
+                    .header("alg", "RS256")
+                    .subject("user-" + i)
+                    .issuedAt(now)
+                    .expiresAt(now.plusSeconds(1800))
+                    // fresh list/string instances per token, as produced by the JSON parser
+                    .claim("roles", new ArrayList<>(roles.get(i % roles.size())))
+                    .claim("scope", new String(scopes.get(i % scopes.size())))
+                    .claim("permissions", "audit:read,jwks:refresh")
+                    .build();
+        }
+    }
+
+    private Jwt nextJwt() {
+        Jwt jwt = jwts[next];
+        next = (next + 1) % TOKENS;
+        return jwt;
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> legacy() {
+        return legacy.convert(nextJwt());
+    }
+
+    @Benchmark
+    public Collection<GrantedAuthority> current() {
+        return current.convert(nextJwt());
+    }
+
+    /**
+     * Implementation before memoization and pooling, kept as the baseline.
+     */
+    static class LegacyAuthoritiesMapper {
+
+        Collection<GrantedAuthority> convert(Jwt jwt) {
+            List<GrantedAuthority> out = new ArrayList<>();
+            out.addAll(prefixFromClaim(jwt, "roles", "ROLE_"));
+            out.addAll(prefixFromClaim(jwt, "permissions", "PERM_"));
+            out.addAll(prefixFromClaim(jwt, "scope", "SCOPE_"));
+            out.addAll(prefixFromClaim(jwt, "scp", "SCOPE_"));
+            return out;
+        }
+
+        private List<GrantedAuthority> prefixFromClaim(Jwt jwt, String claim, String prefix) {
+            Object v = jwt.getClaims().get(claim);
+            if (v == null) return List.of();
+
+            List<String> values = new ArrayList<>();
+
+            if (v instanceof String s) {
+                String normalized = s.replace(",", " ");
+                for (String token : normalized.split("\\s+")) {
+                    if (!token.isBlank()) values.add(token.trim());
+                }
+            } else if (v instanceof Collection<?> c) {
+                for (Object o : c) {
+                    Optional.ofNullable(o).map(Object::toString).filter(str -> !str.isBlank()).ifPresent(values::add);
+                }
+            } else {
+                values.add(v.toString());
+            }
+
+            List<GrantedAuthority> out = new ArrayList<>();
+            for (String val : values) {
+                out.add(new SimpleGrantedAuthority(prefix + val));
+            }
+            return out;
+        }
+    }
+}
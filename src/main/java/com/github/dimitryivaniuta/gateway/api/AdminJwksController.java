@@ -1,15 +1,20 @@
 package com.github.dimitryivaniuta.gateway.api;
 
 import java.net.URI;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import com.github.dimitryivaniuta.gateway.config.AuthProperties;
 import com.github.dimitryivaniuta.gateway.jwks.RemoteJwksFetcher;
 import com.github.dimitryivaniuta.gateway.jwks.JwksCacheService;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.nimbusds.jose.jwk.JWKSet;
@@ -19,7 +24,8 @@ import lombok.RequiredArgsConstructor;
 /**
  * Admin API to force a JWKS refresh (useful for incident response/ops).
  *
- * <p>In normal operation, refresh happens automatically on unknown {@code kid} and on schedule.</p>
+ * <p>In normal operation, refresh happens automatically on unknown {@code kid} and on schedule.
+ * Without {@code tenant}, every trusted issuer is refreshed.</p>
  */
 @RestController
 @RequestMapping("/api/admin/jwks")
@@ -27,18 +33,30 @@ import lombok.RequiredArgsConstructor;
 public class AdminJwksController {
 
     private final AuthProperties authProperties;
+    private final IssuerRegistry issuerRegistry;
     private final RemoteJwksFetcher fetcher;
     private final JwksCacheService cacheService;
 
     @PostMapping("/refresh")
-    public ResponseEntity<?> refresh() {
-        URI uri = URI.create(authProperties.getJwksUri());
-        JWKSet jwkSet = fetcher.fetch(uri, Duration.ofSeconds(2));
-        cacheService.put(authProperties.getJwksCache().getRedisKey(), jwkSet, Math.max(30, authProperties.getJwksCache().getTtl().toSeconds()));
-        return ResponseEntity.ok().body(java.util.Map.of(
-                "keys", jwkSet.getKeys().size(),
-                "redisKey", authProperties.getJwksCache().getRedisKey(),
-                "jwksUri", authProperties.getJwksUri()
-        ));
+    public ResponseEntity<?> refresh(@RequestParam(required = false) String tenant) {
+        List<Map<String, Object>> refreshed = new ArrayList<>();
+        for (TrustedIssuer t : issuerRegistry.tenants()) {
+            if (tenant != null && !tenant.equals(t.id())) {
+                continue;
+            }
+            URI uri = issuerRegistry.jwksUri(t);
+            JWKSet jwkSet = fetcher.fetch(uri, authProperties.getJwksCache().getFetchTimeout());
+            cacheService.put(t.redisKey(), jwkSet, Math.max(30, authProperties.getJwksCache().getTtl().toSeconds()));
+            refreshed.add(Map.of(
+                    "tenant", t.id(),
+                    "keys", jwkSet.getKeys().size(),
+                    "redisKey", t.redisKey(),
+                    "jwksUri", uri.toString()
+            ));
+        }
+        if (refreshed.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().body(refreshed.size() == 1 ? refreshed.get(0) : refreshed);
     }
 }
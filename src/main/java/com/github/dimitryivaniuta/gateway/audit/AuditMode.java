@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+/**
+ * How audit records of a given {@link AuthAuditOutcome} are recorded.
+ */
+public enum AuditMode {
+    /**
+     * One row/event per request.
+     */
+    FULL,
+    /**
+     * A random {@code auth.audit.sampleRate} fraction of requests; kept rows carry {@code eventCount = 1/sampleRate}.
+     */
+    SAMPLED,
+    /**
+     * Per-window counters keyed by (issuer, audience, subject, kid, path, method, outcome), flushed as summary rows.
+     */
+    AGGREGATED
+}
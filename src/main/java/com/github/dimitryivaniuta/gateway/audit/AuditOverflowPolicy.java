@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+/**
+ * Behaviour of {@link AuthAuditQueue} when it is full.
+ */
+public enum AuditOverflowPolicy {
+    /**
+     * Request thread waits (bounded by {@code auth.audit.blockTimeout}) for free space, then drops the record.
+     */
+    BLOCK,
+    /**
+     * Evicts the oldest buffered record to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Sacrifices {@link AuthAuditOutcome#ACCEPTED} records first so that failures are kept.
+     */
+    DROP_ACCEPTED_FIRST
+}
@@ -0,0 +1,34 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Width of {@code auth_audit} range partitions; also defines the partition naming scheme.
+ */
+public enum AuditPartitionGranularity {
+    DAY(ChronoUnit.DAYS, DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC)),
+    HOUR(ChronoUnit.HOURS, DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC));
+
+    private final ChronoUnit unit;
+    private final DateTimeFormatter suffix;
+
+    AuditPartitionGranularity(ChronoUnit unit, DateTimeFormatter suffix) {
+        this.unit = unit;
+        this.suffix = suffix;
+    }
+
+    public Instant floor(Instant t) {
+        return t.truncatedTo(unit);
+    }
+
+    public Instant next(Instant start) {
+        return start.plus(1, unit);
+    }
+
+    public String partitionName(Instant start) {
+        return "auth_audit_p" + suffix.format(start);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+/**
+ * What {@link AuthAuditPartitionMaintainer} does with partitions past retention.
+ */
+public enum AuditPartitionRetentionAction {
+    /**
+     * Drop the partition and its data.
+     */
+    DROP,
+    /**
+     * Detach the partition, leaving a standalone table for archiving.
+     */
+    DETACH
+}
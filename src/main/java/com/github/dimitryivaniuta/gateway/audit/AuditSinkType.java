@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+/**
+ * Persistence strategy for audit batches.
+ */
+public enum AuditSinkType {
+    /**
+     * Spring Data JPA {@code saveAll}; simplest, but goes through the persistence context (merge = SELECT + INSERT).
+     */
+    JPA,
+    /**
+     * Multi-row {@code INSERT ... VALUES (...), (...)} statements via JDBC.
+     */
+    JDBC_BATCH,
+    /**
+     * Postgres {@code COPY ... FROM STDIN}; highest throughput for large batches.
+     */
+    COPY
+}
@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rolls up {@link AuditMode#AGGREGATED} records into per-window counters and flushes one summary row per key
+ * into {@link AuthAuditQueue} at the end of each window.
+ *
+ * <p>Windows are swapped atomically. A recorder registers itself on the window before counting, and the flush
+ * waits for registered recorders to leave the closed window, so no increment is lost across a swap.</p>
+ */
+@Component
+public class AuthAuditAggregator implements SmartLifecycle {
+
+    static final String AGGREGATE_CORRELATION_ID = "aggregate";
+
+    private record Key(String issuer, String audience, String subject, String kid, String path, String method,
+                       AuthAuditOutcome outcome) {
+    }
+
+    private static final class Window {
+        final Instant start;
+        final ConcurrentHashMap<Key, LongAdder> counters = new ConcurrentHashMap<>();
+        final AtomicInteger recorders = new AtomicInteger();
+
+        Window(Instant start) {
+            this.start = start;
+        }
+    }
+
+    private final AuthAuditQueue queue;
+    private final Clock clock;
+    private final int maxKeys;
+    private final AtomicReference<Window> current;
+    private volatile boolean running;
+
+    public AuthAuditAggregator(AuthAuditQueue queue, Clock clock, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.queue = queue;
+        this.clock = clock;
+        this.maxKeys = authProperties.getAudit().getAggregation().getMaxKeys();
+        this.current = new AtomicReference<>(new Window(clock.instant()));
+
+        Gauge.builder("auth.audit.aggregation.keys", current, ref -> ref.get().counters.size())
+                .description("Distinct keys in the current aggregation window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a record in the current window.
+     *
+     * @return {@code false} if the window is at {@code maxKeys} and the key is new; the caller should record it in full
+     */
+    public boolean record(AuthAuditEntity e) {
+        Key key = new Key(e.getIssuer(), e.getAudience(), e.getSubject(), e.getKid(), e.getPath(), e.getMethod(), e.getOutcome());
+        while (true) {
+            Window w = current.get();
+            w.recorders.incrementAndGet();
+            try {
+                if (current.get() != w) {
+                    continue; // window closed meanwhile: retry on the new one
+                }
+                LongAdder adder = w.counters.get(key);
+                if (adder == null) {
+                    if (w.counters.size() >= maxKeys) {
+                        return false;
+                    }
+                    adder = w.counters.computeIfAbsent(key, k -> new LongAdder());
+                }
+                adder.increment();
+                return true;
+            } finally {
+                w.recorders.decrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${auth.audit.aggregation.windowMillis:60000}",
+            initialDelayString = "${auth.audit.aggregation.windowMillis:60000}")
+    public void flush() {
+        Instant end = clock.instant();
+        Window closed = current.getAndSet(new Window(end));
+        while (closed.recorders.get() > 0) {
+            Thread.onSpinWait();
+        }
+        closed.counters.forEach((key, adder) -> queue.offer(summary(key, adder.sum(), closed.start, end)));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Between the web server and {@link AuthAuditWriter}: the last window is flushed after requests stop
+     * and before the writers drain.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+
+    private static AuthAuditEntity summary(Key key, long count, Instant start, Instant end) {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.randomUUID());
+        e.setCreatedAt(start);
+        e.setWindowEnd(end);
+        e.setEventCount(count);
+        e.setCorrelationId(AGGREGATE_CORRELATION_ID);
+        e.setIssuer(key.issuer());
+        e.setAudience(key.audience());
+        e.setSubject(key.subject());
+        e.setKid(key.kid());
+        e.setPath(key.path());
+        e.setMethod(key.method());
+        e.setOutcome(key.outcome());
+        return e;
+    }
+}
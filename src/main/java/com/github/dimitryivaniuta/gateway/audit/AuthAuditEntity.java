@@ -31,10 +31,10 @@ public class AuthAuditEntity {
     @Column(name = "subject", length = 256)
     private String subject;
 
-    @Column(name = "issuer", nullable = false, length = 512)
+    @Column(name = "issuer", length = 512)
     private String issuer;
 
-    @Column(name = "audience", nullable = false, length = 256)
+    @Column(name = "audience", length = 256)
     private String audience;
 
     @Column(name = "kid", length = 128)
@@ -52,4 +52,16 @@ public class AuthAuditEntity {
 
     @Column(name = "reason", length = 512)
     private String reason;
+
+    /**
+     * Number of requests this row represents (see {@link AuditMode}).
+     */
+    @Column(name = "event_count", nullable = false)
+    private long eventCount = 1;
+
+    /**
+     * End of the aggregation window for {@link AuditMode#AGGREGATED} rows; {@code createdAt} is the start.
+     */
+    @Column(name = "window_end")
+    private Instant windowEnd;
 }
@@ -5,12 +5,14 @@ import java.util.UUID;
 
 import lombok.Builder;
 import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 /**
  * Kafka event emitted for monitoring/analytics.
  */
 @Value
 @Builder
+@Jacksonized
 public class AuthAuditEvent {
     UUID id;
     Instant createdAt;
@@ -23,4 +25,27 @@ public class AuthAuditEvent {
     String method;
     AuthAuditOutcome outcome;
     String reason;
+    long eventCount;
+    Instant windowEnd;
+
+    /**
+     * Maps a persisted audit record to its Kafka representation.
+     */
+    public static AuthAuditEvent from(AuthAuditEntity e) {
+        return AuthAuditEvent.builder()
+                .id(e.getId())
+                .createdAt(e.getCreatedAt())
+                .correlationId(e.getCorrelationId())
+                .subject(e.getSubject())
+                .issuer(e.getIssuer())
+                .audience(e.getAudience())
+                .kid(e.getKid())
+                .path(e.getPath())
+                .method(e.getMethod())
+                .outcome(e.getOutcome())
+                .reason(e.getReason())
+                .eventCount(e.getEventCount())
+                .windowEnd(e.getWindowEnd())
+                .build();
+    }
 }
@@ -0,0 +1,388 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Compact, versioned binary encoding of {@link AuthAuditEvent}.
+ *
+ * <p>Layout of version {@value #VERSION_2}:</p>
+ * <pre>
+ * byte      version
+ * 4 bytes   dictionary fingerprint (see below)
+ * varint    presence bitmask (bit n set = field n present, in declaration order below)
+ * 16 bytes  id (most, least significant bits)
+ * zigzag    createdAt epoch seconds, varint nanos
+ * string    correlationId
+ * string    subject
+ * dict      issuer      (varint: 0 = literal string follows, n = n-th entry of the issuer dictionary)
+ * dict      audience    (same, audience dictionary)
+ * string    kid
+ * string    path
+ * dict      method      (byte: 0 = literal string follows, n = n-th entry of {@link #METHODS})
+ * byte      outcome     (code from {@link #OUTCOMES})
+ * string    reason
+ * varint    eventCount  (always present)
+ * zigzag    windowEnd epoch seconds, varint nanos
+ * </pre>
+ * <p>Strings are a varint byte length followed by UTF-8. Dictionaries are append-only: new entries may only be
+ * added at the end. The fingerprint is a hash of the producer's issuer and audience dictionaries; a consumer
+ * decodes a payload only if that is the fingerprint of a prefix of its own dictionaries (the same lists, or
+ * older ones it has since appended to), and rejects it otherwise instead of mapping codes to the wrong values.
+ * Any other version, including the unfingerprinted version 1, is rejected.</p>
+ */
+public final class AuthAuditEventBinaryCodec {
+
+    public static final byte VERSION_2 = 2;
+
+    /**
+     * Stable method codes (index + 1). Append only.
+     */
+    static final List<String> METHODS = List.of("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS", "TRACE", "CONNECT");
+
+    /**
+     * Stable outcome codes (index + 1), independent of enum ordinal. Append only.
+     */
+    static final List<AuthAuditOutcome> OUTCOMES = List.of(AuthAuditOutcome.ACCEPTED, AuthAuditOutcome.REJECTED, AuthAuditOutcome.FORBIDDEN);
+
+    private static final int F_ID = 0;
+    private static final int F_CREATED_AT = 1;
+    private static final int F_CORRELATION_ID = 2;
+    private static final int F_SUBJECT = 3;
+    private static final int F_ISSUER = 4;
+    private static final int F_AUDIENCE = 5;
+    private static final int F_KID = 6;
+    private static final int F_PATH = 7;
+    private static final int F_METHOD = 8;
+    private static final int F_OUTCOME = 9;
+    private static final int F_REASON = 10;
+    private static final int F_WINDOW_END = 11;
+
+    private final Dictionary issuers;
+    private final Dictionary audiences;
+    private final int fingerprint;
+    /** Fingerprints of every prefix pair of the dictionaries, i.e. of every producer this codec can read. */
+    private final Set<Integer> readable = new HashSet<>();
+
+    public AuthAuditEventBinaryCodec(List<String> issuerDictionary, List<String> audienceDictionary) {
+        this.issuers = new Dictionary(issuerDictionary);
+        this.audiences = new Dictionary(audienceDictionary);
+        this.fingerprint = fingerprint(issuers.entries, audiences.entries);
+        for (int i = 0; i <= issuers.entries.size(); i++) {
+            for (int a = 0; a <= audiences.entries.size(); a++) {
+                readable.add(fingerprint(issuers.entries.subList(0, i), audiences.entries.subList(0, a)));
+            }
+        }
+    }
+
+    /**
+     * Fingerprint written by this codec, derived from its dictionaries.
+     */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    public byte[] encode(AuthAuditEvent e) {
+        Out out = new Out(128);
+        out.writeByte(VERSION_2);
+        out.writeInt(fingerprint);
+
+        int mask = bit(F_ID, e.getId()) | bit(F_CREATED_AT, e.getCreatedAt()) | bit(F_CORRELATION_ID, e.getCorrelationId())
+                | bit(F_SUBJECT, e.getSubject()) | bit(F_ISSUER, e.getIssuer()) | bit(F_AUDIENCE, e.getAudience())
+                | bit(F_KID, e.getKid()) | bit(F_PATH, e.getPath()) | bit(F_METHOD, e.getMethod())
+                | bit(F_OUTCOME, e.getOutcome()) | bit(F_REASON, e.getReason()) | bit(F_WINDOW_END, e.getWindowEnd());
+        out.writeVarLong(mask);
+
+        if (e.getId() != null) {
+            out.writeLong(e.getId().getMostSignificantBits());
+            out.writeLong(e.getId().getLeastSignificantBits());
+        }
+        if (e.getCreatedAt() != null) {
+            out.writeInstant(e.getCreatedAt());
+        }
+        out.writeString(e.getCorrelationId());
+        out.writeString(e.getSubject());
+        writeDict(out, issuers, e.getIssuer());
+        writeDict(out, audiences, e.getAudience());
+        out.writeString(e.getKid());
+        out.writeString(e.getPath());
+        if (e.getMethod() != null) {
+            int code = METHODS.indexOf(e.getMethod()) + 1;
+            out.writeByte(code);
+            if (code == 0) {
+                out.writeString(e.getMethod());
+            }
+        }
+        if (e.getOutcome() != null) {
+            out.writeByte(OUTCOMES.indexOf(e.getOutcome()) + 1);
+        }
+        out.writeString(e.getReason());
+        out.writeVarLong(e.getEventCount());
+        if (e.getWindowEnd() != null) {
+            out.writeInstant(e.getWindowEnd());
+        }
+        return out.toByteArray();
+    }
+
+    public AuthAuditEvent decode(byte[] data) {
+        In in = new In(data);
+        int version = in.readByte();
+        if (version != VERSION_2) {
+            throw new IllegalArgumentException("Unsupported AuthAuditEvent wire version: " + version);
+        }
+        int producer = in.readInt();
+        if (!readable.contains(producer)) {
+            throw new IllegalArgumentException(String.format(
+                    "AuthAuditEvent dictionaries differ from the producer's (fingerprint %08x, ours %08x)",
+                    producer, fingerprint));
+        }
+        long mask = in.readVarLong();
+        AuthAuditEvent.AuthAuditEventBuilder b = AuthAuditEvent.builder();
+
+        if (has(mask, F_ID)) {
+            b.id(new UUID(in.readLong(), in.readLong()));
+        }
+        if (has(mask, F_CREATED_AT)) {
+            b.createdAt(in.readInstant());
+        }
+        if (has(mask, F_CORRELATION_ID)) {
+            b.correlationId(in.readString());
+        }
+        if (has(mask, F_SUBJECT)) {
+            b.subject(in.readString());
+        }
+        if (has(mask, F_ISSUER)) {
+            b.issuer(readDict(in, issuers));
+        }
+        if (has(mask, F_AUDIENCE)) {
+            b.audience(readDict(in, audiences));
+        }
+        if (has(mask, F_KID)) {
+            b.kid(in.readString());
+        }
+        if (has(mask, F_PATH)) {
+            b.path(in.readString());
+        }
+        if (has(mask, F_METHOD)) {
+            int code = in.readByte();
+            b.method(code == 0 ? in.readString() : lookup(METHODS, code, "method"));
+        }
+        if (has(mask, F_OUTCOME)) {
+            b.outcome(lookup(OUTCOMES, in.readByte(), "outcome"));
+        }
+        if (has(mask, F_REASON)) {
+            b.reason(in.readString());
+        }
+        b.eventCount(in.readVarLong());
+        if (has(mask, F_WINDOW_END)) {
+            b.windowEnd(in.readInstant());
+        }
+        return b.build();
+    }
+
+    private static void writeDict(Out out, Dictionary dict, String value) {
+        if (value == null) {
+            return;
+        }
+        int code = dict.codeOf(value);
+        out.writeVarLong(code);
+        if (code == 0) {
+            out.writeString(value);
+        }
+    }
+
+    private static String readDict(In in, Dictionary dict) {
+        int code = (int) in.readVarLong();
+        return code == 0 ? in.readString() : lookup(dict.entries, code, "dictionary");
+    }
+
+    private static <T> T lookup(List<T> table, int code, String what) {
+        if (code < 1 || code > table.size()) {
+            throw new IllegalArgumentException("Unknown " + what + " code: " + code);
+        }
+        return table.get(code - 1);
+    }
+
+    /**
+     * First four bytes of the SHA-256 of both dictionaries, each entry terminated by a newline and the two
+     * dictionaries separated by a NUL.
+     */
+    static int fingerprint(List<String> issuerDictionary, List<String> audienceDictionary) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String entry : issuerDictionary) {
+            sha256.update((entry + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        sha256.update((byte) 0);
+        for (String entry : audienceDictionary) {
+            sha256.update((entry + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = sha256.digest();
+        return (hash[0] & 0xFF) << 24 | (hash[1] & 0xFF) << 16 | (hash[2] & 0xFF) << 8 | (hash[3] & 0xFF);
+    }
+
+    private static int bit(int field, Object value) {
+        return value == null ? 0 : 1 << field;
+    }
+
+    private static boolean has(long mask, int field) {
+        return (mask & (1L << field)) != 0;
+    }
+
+    private static final class Dictionary {
+        final List<String> entries;
+        final Map<String, Integer> codes = new HashMap<>();
+
+        Dictionary(List<String> entries) {
+            this.entries = List.copyOf(entries);
+            for (int i = 0; i < this.entries.size(); i++) {
+                codes.putIfAbsent(this.entries.get(i), i + 1);
+            }
+        }
+
+        int codeOf(String value) {
+            return codes.getOrDefault(value, 0);
+        }
+    }
+
+    private static final class Out {
+        private byte[] buf;
+        private int pos;
+
+        Out(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeInstant(Instant t) {
+            long seconds = t.getEpochSecond();
+            writeVarLong((seconds << 1) ^ (seconds >> 63));
+            writeVarLong(t.getNano());
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class In {
+        private final byte[] buf;
+        private int pos;
+
+        In(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            check(1);
+            return buf[pos++] & 0xFF;
+        }
+
+        long readLong() {
+            check(8);
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        int readInt() {
+            check(4);
+            int v = 0;
+            for (int i = 0; i < 4; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        Instant readInstant() {
+            long zigzag = readVarLong();
+            long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            return Instant.ofEpochSecond(seconds, readVarLong());
+        }
+
+        String readString() {
+            int len = (int) readVarLong();
+            check(len);
+            String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+        private void check(int n) {
+            if (n < 0 || pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated AuthAuditEvent payload");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka {@link Deserializer} counterpart of {@link AuthAuditEventBinarySerializer}; must be configured with
+ * the same dictionaries.
+ */
+public class AuthAuditEventBinaryDeserializer implements Deserializer<AuthAuditEvent> {
+
+    private AuthAuditEventBinaryCodec codec = new AuthAuditEventBinaryCodec(List.of(), List.of());
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        codec = AuthAuditEventBinarySerializer.codecFrom(configs);
+    }
+
+    @Override
+    public AuthAuditEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return codec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Invalid AuthAuditEvent payload on " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka {@link Serializer} for the {@link AuthAuditEventBinaryCodec} wire format.
+ *
+ * <p>Dictionaries come from the producer properties {@value #ISSUER_DICTIONARY_CONFIG} and
+ * {@value #AUDIENCE_DICTIONARY_CONFIG} (comma-separated or list). Select it per topic with
+ * {@code DelegatingByTopicSerializer}.</p>
+ */
+public class AuthAuditEventBinarySerializer implements Serializer<AuthAuditEvent> {
+
+    public static final String ISSUER_DICTIONARY_CONFIG = "auth.audit.wire.issuers";
+    public static final String AUDIENCE_DICTIONARY_CONFIG = "auth.audit.wire.audiences";
+
+    private AuthAuditEventBinaryCodec codec = new AuthAuditEventBinaryCodec(List.of(), List.of());
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        codec = codecFrom(configs);
+    }
+
+    @Override
+    public byte[] serialize(String topic, AuthAuditEvent data) {
+        return data == null ? null : codec.encode(data);
+    }
+
+    static AuthAuditEventBinaryCodec codecFrom(Map<String, ?> configs) {
+        return new AuthAuditEventBinaryCodec(
+                dictionary(configs.get(ISSUER_DICTIONARY_CONFIG)),
+                dictionary(configs.get(AUDIENCE_DICTIONARY_CONFIG)));
+    }
+
+    private static List<String> dictionary(Object value) {
+        if (value instanceof Collection<?> c) {
+            return c.stream().map(Object::toString).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+        if (value instanceof String s && !s.isBlank()) {
+            return Arrays.stream(s.split(",")).map(String::trim).filter(v -> !v.isEmpty()).toList();
+        }
+        return List.of();
+    }
+}
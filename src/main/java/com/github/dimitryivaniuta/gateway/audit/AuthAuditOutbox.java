@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Data access for {@code auth_audit_outbox}.
+ *
+ * <p>{@link #append} must run inside the transaction that writes the corresponding {@code auth_audit} rows;
+ * the claim/mark methods are used by {@link AuthAuditOutboxRelay}.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthAuditOutbox {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    /**
+     * A pending outbox row; {@code attempts} counts its failed relay attempts so far.
+     */
+    public record Message(long id, String key, String payload, int attempts) {
+    }
+
+    /**
+     * A failed relay attempt; {@code park} stops the row from being claimed again.
+     */
+    public record Failure(long id, String error, boolean park) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Inserts one outbox row per audit record.
+     */
+    public void append(List<AuthAuditEntity> batch) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        for (int from = 0; from < batch.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AuthAuditEntity> chunk = batch.subList(from, Math.min(batch.size(), from + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("insert into auth_audit_outbox (created_at, message_key, payload) values ");
+            for (int r = 0; r < chunk.size(); r++) {
+                sql.append(r == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            }
+            jdbcTemplate.update(sql.toString(), ps -> bind(ps, chunk, now));
+        }
+    }
+
+    /**
+     * Locks up to {@code limit} pending rows, skipping parked rows and rows already claimed by other instances.
+     * Must be called inside a transaction; the locks are held until it ends.
+     */
+    public List<Message> claim(int limit) {
+        return jdbcTemplate.query(
+                "select id, message_key, payload, attempts from auth_audit_outbox"
+                        + " where sent_at is null and parked_at is null order by id limit ? for update skip locked",
+                (rs, i) -> new Message(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4)),
+                limit);
+    }
+
+    public void markSent(List<Long> ids, Instant sentAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(
+                "update auth_audit_outbox set sent_at = ? where id = any(?)",
+                ps -> {
+                    ps.setObject(1, OffsetDateTime.ofInstant(sentAt, ZoneOffset.UTC));
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+                });
+    }
+
+    /**
+     * Counts one failed attempt per row and records its error; rows flagged {@code park} are parked at {@code now}.
+     */
+    public void recordFailures(List<Failure> failures, Instant now) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        OffsetDateTime parkedAt = OffsetDateTime.ofInstant(now, ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(
+                "update auth_audit_outbox set attempts = attempts + 1, last_error = ?, parked_at = ? where id = ?",
+                failures, MAX_ROWS_PER_STATEMENT,
+                (ps, f) -> {
+                    ps.setString(1, truncate(f.error()));
+                    ps.setObject(2, f.park() ? parkedAt : null, Types.TIMESTAMP_WITH_TIMEZONE);
+                    ps.setLong(3, f.id());
+                });
+    }
+
+    /**
+     * Deletes rows relayed before {@code sentBefore}.
+     *
+     * @return number of deleted rows
+     */
+    public int purgeSent(Instant sentBefore) {
+        return jdbcTemplate.update(
+                "delete from auth_audit_outbox where sent_at < ?",
+                OffsetDateTime.ofInstant(sentBefore, ZoneOffset.UTC));
+    }
+
+    public AuthAuditEvent read(Message message) {
+        try {
+            return objectMapper.readValue(message.payload(), AuthAuditEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox payload id=" + message.id(), e);
+        }
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private void bind(PreparedStatement ps, List<AuthAuditEntity> chunk, OffsetDateTime now) throws SQLException {
+        int i = 1;
+        for (AuthAuditEntity e : chunk) {
+            AuthAuditEvent event = AuthAuditEvent.from(e);
+            ps.setObject(i++, now);
+            ps.setString(i++, AuthAuditPublisher.keyOf(event));
+            ps.setString(i++, write(event));
+        }
+    }
+
+    private String write(AuthAuditEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize audit event " + event.getId(), e);
+        }
+    }
+}
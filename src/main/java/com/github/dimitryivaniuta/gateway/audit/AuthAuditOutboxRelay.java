@@ -0,0 +1,204 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relays pending {@code auth_audit_outbox} rows to {@link AuthAuditPublisher#TOPIC}.
+ *
+ * <p>Each round claims a batch with {@code FOR UPDATE SKIP LOCKED}, sends it asynchronously, waits for the
+ * broker acknowledgements and marks the acknowledged rows sent, all in one transaction. Rows whose send failed
+ * stay pending and are retried next round; concurrent instances never claim the same row. Delivery is
+ * at-least-once: consumers should de-duplicate on the event id.</p>
+ *
+ * <p>A row that cannot be relayed because of its own content is parked rather than retried forever: an unreadable
+ * payload or a record Kafka rejects outright is parked at once, and any other failure counts an attempt when the
+ * rest of the batch was acknowledged, parking the row after {@code maxAttempts}. Failures while nothing is
+ * acknowledged (broker down, send timeout) count nothing, so an outage never parks healthy rows.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "auth.audit.outbox", name = "relayEnabled", havingValue = "true", matchIfMissing = true)
+public class AuthAuditOutboxRelay {
+
+    private final AuthAuditOutbox outbox;
+    private final AuthAuditPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final AuthProperties.Outbox props;
+    private final Counter relayed;
+    private final Counter failed;
+    private final Counter parked;
+
+    public AuthAuditOutboxRelay(AuthAuditOutbox outbox, AuthAuditPublisher publisher, TransactionTemplate transactionTemplate,
+                                Clock clock, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.publisher = publisher;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.props = authProperties.getAudit().getOutbox();
+        this.relayed = Counter.builder("auth.audit.outbox.relayed").register(meterRegistry);
+        this.failed = Counter.builder("auth.audit.outbox.failed").register(meterRegistry);
+        this.parked = Counter.builder("auth.audit.outbox.parked").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.audit.outbox.relayDelayMillis:200}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == props.getBatchSize());
+        } catch (Exception e) {
+            log.warn("Audit outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.audit.outbox.purgeDelayMillis:600000}")
+    public void purge() {
+        try {
+            int deleted = outbox.purgeSent(clock.instant().minus(props.getRetention()));
+            if (deleted > 0) {
+                log.debug("Purged {} relayed audit outbox rows", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Audit outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of rows relayed; a full batch means more may be pending
+     */
+    private int relayBatch() {
+        List<AuthAuditOutbox.Message> messages = outbox.claim(props.getBatchSize());
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(messages.size());
+        for (AuthAuditOutbox.Message m : messages) {
+            AuthAuditEvent event;
+            try {
+                event = outbox.read(m);
+            } catch (Exception e) {
+                sends.add(CompletableFuture.failedFuture(new UnreadablePayloadException(e)));
+                continue;
+            }
+            try {
+                sends.add(publisher.publish(m.key(), event));
+            } catch (Exception e) {
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(props.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // some sends failed or timed out: mark only the acknowledged ones below
+            log.debug("Audit outbox batch partially failed: {}", e.getMessage());
+        }
+
+        List<Long> sent = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            CompletableFuture<?> f = sends.get(i);
+            if (f.isDone() && !f.isCompletedExceptionally()) {
+                sent.add(messages.get(i).id());
+            }
+        }
+        Instant now = clock.instant();
+        outbox.markSent(sent, now);
+        if (sent.size() < messages.size()) {
+            recordFailures(messages, sends, sent.size(), now);
+        }
+
+        relayed.increment(sent.size());
+        return sent.size();
+    }
+
+    /**
+     * Counts attempts of the failed rows and parks those that cannot succeed; see the class comment.
+     */
+    private void recordFailures(List<AuthAuditOutbox.Message> messages, List<CompletableFuture<?>> sends,
+                                int acknowledged, Instant now) {
+        List<AuthAuditOutbox.Failure> failures = new ArrayList<>();
+        String firstError = null;
+        for (int i = 0; i < messages.size(); i++) {
+            CompletableFuture<?> f = sends.get(i);
+            if (f.isDone() && !f.isCompletedExceptionally()) {
+                continue;
+            }
+            AuthAuditOutbox.Message m = messages.get(i);
+            Throwable cause = f.isDone() ? unwrap(f.exceptionNow()) : null;
+            String error = cause == null ? "not acknowledged within " + props.getSendTimeout() : describe(cause);
+            firstError = firstError == null ? error : firstError;
+
+            boolean permanent = isPermanent(cause);
+            if (!permanent && acknowledged == 0) {
+                continue;
+            }
+            boolean park = permanent || m.attempts() + 1 >= props.getMaxAttempts();
+            failures.add(new AuthAuditOutbox.Failure(m.id(), error, park));
+            if (park) {
+                parked.increment();
+                log.warn("Parked audit outbox row id={} after {} attempts: {}", m.id(), m.attempts() + 1, error);
+            }
+        }
+        outbox.recordFailures(failures, now);
+
+        int unsent = messages.size() - acknowledged;
+        failed.increment(unsent);
+        log.warn("Audit outbox: {} of {} events not acknowledged, will retry unparked rows: {}",
+                unsent, messages.size(), firstError);
+    }
+
+    /**
+     * Whether the failure is specific to the record, so retrying it cannot succeed.
+     */
+    private static boolean isPermanent(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof UnreadablePayloadException || t instanceof RecordTooLargeException
+                    || t instanceof SerializationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    private static String describe(Throwable t) {
+        Throwable root = t;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root == t ? t.toString() : t.getMessage() + ": " + root;
+    }
+
+    private static final class UnreadablePayloadException extends RuntimeException {
+        UnreadablePayloadException(Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
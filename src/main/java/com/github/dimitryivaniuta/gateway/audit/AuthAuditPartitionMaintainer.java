@@ -0,0 +1,227 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the range-partitioned {@code auth_audit} table healthy:
+ * <ul>
+ *   <li>pre-creates partitions up to {@code precreateAhead} into the future</li>
+ *   <li>drops or detaches partitions older than {@code retention}</li>
+ * </ul>
+ *
+ * <p>Only partitions named {@code auth_audit_pYYYYMMDD[HH]} are managed; {@code auth_audit_legacy} and
+ * {@code auth_audit_default} are left alone. Instances serialize on a Postgres advisory lock, so running
+ * this on every node is safe.</p>
+ *
+ * <p>Rows written while no partition covered their time land in {@code auth_audit_default}, and Postgres then
+ * refuses to create a partition for that range. Such rows are moved into a new table that is attached in the
+ * same transaction. A partition that cannot be created or expired is logged and counted in
+ * {@code auth.audit.partition.failed{action}}.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "auth.audit.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuthAuditPartitionMaintainer {
+
+    private static final long ADVISORY_LOCK_KEY = 0x617564_6974_7074L;
+    private static final Pattern MANAGED = Pattern.compile("auth_audit_p(\\d{8}|\\d{10})");
+    private static final DateTimeFormatter HOUR_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    /** Range overlaps an existing partition, e.g. {@code auth_audit_legacy} or one of another granularity. */
+    private static final String OVERLAPS_PARTITION = "42P17";
+    /** {@code auth_audit_default} already holds rows of the range. */
+    private static final String DEFAULT_PARTITION_VIOLATED = "23514";
+
+    private final AuthProperties authProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Counter createFailed;
+    private final Counter expireFailed;
+
+    public AuthAuditPartitionMaintainer(AuthProperties authProperties, JdbcTemplate jdbcTemplate, Clock clock,
+                                        MeterRegistry meterRegistry) {
+        this.authProperties = authProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.createFailed = failed(meterRegistry, "create");
+        this.expireFailed = failed(meterRegistry, "expire");
+    }
+
+    @Scheduled(fixedDelayString = "${auth.audit.partitions.maintenanceDelayMillis:3600000}")
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                if (!tryLock(con)) {
+                    log.debug("Audit partition maintenance skipped: another instance holds the lock");
+                    return null;
+                }
+                try {
+                    Instant now = clock.instant();
+                    precreate(con, now);
+                    expire(con, now);
+                } finally {
+                    unlock(con);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Audit partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private void precreate(Connection con, Instant now) {
+        AuthProperties.Partitions p = authProperties.getAudit().getPartitions();
+        AuditPartitionGranularity g = p.getGranularity();
+        Instant horizon = now.plus(p.getPrecreateAhead());
+
+        for (Instant start = g.floor(now); !start.isAfter(horizon); start = g.next(start)) {
+            String name = g.partitionName(start);
+            try (Statement st = con.createStatement()) {
+                st.execute("create table if not exists " + name + " partition of auth_audit"
+                        + bounds(start, g.next(start)));
+            } catch (SQLException e) {
+                if (OVERLAPS_PARTITION.equals(e.getSQLState())) {
+                    log.debug("Audit partition {} not created: {}", name, e.getMessage());
+                } else if (DEFAULT_PARTITION_VIOLATED.equals(e.getSQLState())) {
+                    createFromDefault(con, name, start, g.next(start));
+                } else {
+                    createFailed(name, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates {@code name} as a plain table, moves the range's rows out of {@code auth_audit_default} into it and
+     * attaches it, all in one transaction.
+     */
+    private void createFromDefault(Connection con, String name, Instant start, Instant end) {
+        try {
+            con.setAutoCommit(false);
+            try (Statement st = con.createStatement()) {
+                st.execute("create table " + name + " (like auth_audit including defaults including constraints)");
+                int moved = st.executeUpdate("with moved as (delete from auth_audit_default"
+                        + " where created_at >= '" + start + "' and created_at < '" + end + "' returning *)"
+                        + " insert into " + name + " select * from moved");
+                st.execute("alter table auth_audit attach partition " + name + bounds(start, end));
+                con.commit();
+                log.info("Audit partition {} created with {} rows moved from auth_audit_default", name, moved);
+            } catch (SQLException e) {
+                con.rollback();
+                createFailed(name, e);
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            createFailed(name, e);
+        }
+    }
+
+    private void createFailed(String name, SQLException e) {
+        createFailed.increment();
+        log.warn("Failed to create audit partition {}: {}", name, e.getMessage());
+    }
+
+    private void expire(Connection con, Instant now) throws SQLException {
+        AuthProperties.Partitions p = authProperties.getAudit().getPartitions();
+        Instant cutoff = now.minus(p.getRetention());
+
+        for (String name : managedPartitions(con)) {
+            Instant end = upperBound(name);
+            if (end.isAfter(cutoff)) {
+                continue;
+            }
+            String ddl = switch (p.getRetentionAction()) {
+                case DROP -> "drop table if exists " + name;
+                case DETACH -> "alter table auth_audit detach partition " + name;
+            };
+            try (Statement st = con.createStatement()) {
+                st.execute(ddl);
+                log.info("Audit partition {} expired ({})", name, p.getRetentionAction());
+            } catch (SQLException e) {
+                expireFailed.increment();
+                log.warn("Failed to expire audit partition {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private List<String> managedPartitions(Connection con) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("select c.relname from pg_inherits i"
+                     + " join pg_class c on c.oid = i.inhrelid"
+                     + " where i.inhparent = 'auth_audit'::regclass")) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (MANAGED.matcher(name).matches()) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Derives the exclusive upper bound from the partition name (8 digits = day, 10 digits = hour).
+     */
+    static Instant upperBound(String partitionName) {
+        Matcher m = MANAGED.matcher(partitionName);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a managed audit partition: " + partitionName);
+        }
+        String suffix = m.group(1);
+        if (suffix.length() == 8) {
+            Instant start = LocalDateTime.parse(suffix + "00", HOUR_SUFFIX).toInstant(ZoneOffset.UTC);
+            return AuditPartitionGranularity.DAY.next(start);
+        }
+        Instant start = LocalDateTime.parse(suffix, HOUR_SUFFIX).toInstant(ZoneOffset.UTC);
+        return AuditPartitionGranularity.HOUR.next(start);
+    }
+
+    private static String bounds(Instant start, Instant end) {
+        return " for values from ('" + start + "') to ('" + end + "')";
+    }
+
+    private static Counter failed(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("auth.audit.partition.failed")
+                .description("Audit partitions that could not be created or expired")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+
+    private static boolean tryLock(Connection con) throws SQLException {
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("select pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static void unlock(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("select pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+        }
+    }
+}
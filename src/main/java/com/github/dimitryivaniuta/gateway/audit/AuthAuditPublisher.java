@@ -1,6 +1,9 @@
 package com.github.dimitryivaniuta.gateway.audit;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
 import lombok.RequiredArgsConstructor;
@@ -16,8 +19,18 @@ public class AuthAuditPublisher {
 
     private final KafkaTemplate<String, AuthAuditEvent> kafkaTemplate;
 
-    public void publish(AuthAuditEvent event) {
-        String key = event.getSubject() != null ? event.getSubject() : event.getCorrelationId();
-        kafkaTemplate.send(TOPIC, key, event);
+    public CompletableFuture<SendResult<String, AuthAuditEvent>> publish(AuthAuditEvent event) {
+        return publish(keyOf(event), event);
+    }
+
+    public CompletableFuture<SendResult<String, AuthAuditEvent>> publish(String key, AuthAuditEvent event) {
+        return kafkaTemplate.send(TOPIC, key, event);
+    }
+
+    /**
+     * Partition key: subject when known (keeps a user's events ordered), otherwise the correlation id.
+     */
+    public static String keyOf(AuthAuditEvent event) {
+        return event.getSubject() != null ? event.getSubject() : event.getCorrelationId();
     }
 }
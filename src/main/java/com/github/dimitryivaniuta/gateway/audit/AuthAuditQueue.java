@@ -0,0 +1,185 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded, lock-free in-memory buffer between request threads and {@link AuthAuditWriter}.
+ *
+ * <p>Two lanes are kept: failures ({@code REJECTED}/{@code FORBIDDEN}) and {@code ACCEPTED}. Writers drain
+ * failures first, and {@link AuditOverflowPolicy#DROP_ACCEPTED_FIRST} can evict from the accepted lane
+ * without scanning. The bound is enforced with a CAS-reserved counter, so producers never take a lock.</p>
+ */
+@Component
+public class AuthAuditQueue {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final ConcurrentLinkedQueue<AuthAuditEntity> failures = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<AuthAuditEntity> accepted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+    private final AuditOverflowPolicy policy;
+    private final long blockTimeoutNanos;
+    private final Map<AuthAuditOutcome, Counter> dropped = new EnumMap<>(AuthAuditOutcome.class);
+
+    public AuthAuditQueue(AuthProperties authProperties, MeterRegistry meterRegistry) {
+        AuthProperties.Audit audit = authProperties.getAudit();
+        this.capacity = audit.getQueueCapacity();
+        this.policy = audit.getOverflowPolicy();
+        this.blockTimeoutNanos = audit.getBlockTimeout().toNanos();
+
+        Gauge.builder("auth.audit.queue.depth", size, AtomicInteger::get)
+                .description("Audit records buffered and not yet written")
+                .register(meterRegistry);
+        Gauge.builder("auth.audit.queue.capacity", () -> capacity)
+                .register(meterRegistry);
+        for (AuthAuditOutcome outcome : AuthAuditOutcome.values()) {
+            dropped.put(outcome, Counter.builder("auth.audit.queue.dropped")
+                    .description("Audit records dropped because the queue was full")
+                    .tag("outcome", outcome.name())
+                    .tag("policy", policy.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Enqueues a record, applying the overflow policy when full.
+     *
+     * @return {@code true} if the record was buffered, {@code false} if it was dropped
+     */
+    public boolean offer(AuthAuditEntity e) {
+        if (tryReserve()) {
+            lane(e).offer(e);
+            return true;
+        }
+        return switch (policy) {
+            case BLOCK -> offerBlocking(e);
+            case DROP_OLDEST -> evictOldestAndOffer(e);
+            case DROP_ACCEPTED_FIRST -> evictAcceptedAndOffer(e);
+        };
+    }
+
+    /**
+     * Moves up to {@code max} records into {@code target}, failures first.
+     *
+     * @return number of records moved
+     */
+    public int drainTo(Collection<AuthAuditEntity> target, int max) {
+        int n = 0;
+        AuthAuditEntity e;
+        while (n < max && (e = poll()) != null) {
+            target.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    private AuthAuditEntity poll() {
+        AuthAuditEntity e = failures.poll();
+        if (e == null) {
+            e = accepted.poll();
+        }
+        if (e != null) {
+            size.decrementAndGet();
+        }
+        return e;
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean offerBlocking(AuthAuditEntity e) {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (tryReserve()) {
+                lane(e).offer(e);
+                return true;
+            }
+        }
+        return drop(e);
+    }
+
+    private boolean evictOldestAndOffer(AuthAuditEntity e) {
+        AuthAuditEntity f = failures.peek();
+        AuthAuditEntity a = accepted.peek();
+        ConcurrentLinkedQueue<AuthAuditEntity> victimLane;
+        if (f == null) {
+            victimLane = accepted;
+        } else if (a == null) {
+            victimLane = failures;
+        } else {
+            victimLane = f.getCreatedAt().isBefore(a.getCreatedAt()) ? failures : accepted;
+        }
+        return replace(victimLane, e);
+    }
+
+    private boolean evictAcceptedAndOffer(AuthAuditEntity e) {
+        if (e.getOutcome() == AuthAuditOutcome.ACCEPTED) {
+            return drop(e);
+        }
+        if (replace(accepted, e)) {
+            return true;
+        }
+        return evictOldestAndOffer(e);
+    }
+
+    /**
+     * Swaps the head of {@code victimLane} for {@code e}; the reserved size is unchanged.
+     */
+    private boolean replace(ConcurrentLinkedQueue<AuthAuditEntity> victimLane, AuthAuditEntity e) {
+        AuthAuditEntity victim = victimLane.poll();
+        if (victim == null) {
+            // a writer drained the lane meanwhile: there may be room now
+            if (tryReserve()) {
+                lane(e).offer(e);
+                return true;
+            }
+            return drop(e);
+        }
+        drop(victim);
+        lane(e).offer(e);
+        return true;
+    }
+
+    private boolean drop(AuthAuditEntity e) {
+        dropped.get(e.getOutcome()).increment();
+        return false;
+    }
+
+    private ConcurrentLinkedQueue<AuthAuditEntity> lane(AuthAuditEntity e) {
+        return e.getOutcome() == AuthAuditOutcome.ACCEPTED ? accepted : failures;
+    }
+}
@@ -1,11 +1,20 @@
 package com.github.dimitryivaniuta.gateway.audit;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 /**
  * Repository for authentication audit events.
  */
 public interface AuthAuditRepository extends JpaRepository<AuthAuditEntity, UUID> {
+
+    /**
+     * Time-range lookup. The bounds on {@code created_at} let Postgres prune to the matching partitions.
+     */
+    List<AuthAuditEntity> findByCreatedAtGreaterThanEqualAndCreatedAtLessThanOrderByCreatedAtDesc(
+            Instant from, Instant to, Pageable pageable);
 }
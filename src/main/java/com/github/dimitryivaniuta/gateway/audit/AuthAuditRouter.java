@@ -0,0 +1,76 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the per-outcome {@link AuditMode} from {@code auth.audit.routing} before records reach the queue.
+ */
+@Slf4j
+@Component
+public class AuthAuditRouter {
+
+    private final Map<AuthAuditOutcome, AuditMode> modes = new EnumMap<>(AuthAuditOutcome.class);
+    private final AuthAuditQueue queue;
+    private final AuthAuditAggregator aggregator;
+    private final double sampleRate;
+    private final long sampleWeight;
+    private final Counter sampledOut;
+    private final Counter aggregated;
+    private final Counter aggregationOverflow;
+
+    public AuthAuditRouter(AuthProperties authProperties, AuthAuditQueue queue, AuthAuditAggregator aggregator,
+                           MeterRegistry meterRegistry) {
+        AuthProperties.Audit audit = authProperties.getAudit();
+        this.queue = queue;
+        this.aggregator = aggregator;
+        this.sampleRate = audit.getSampleRate();
+        this.sampleWeight = Math.max(1, Math.round(1 / sampleRate));
+
+        for (AuthAuditOutcome outcome : AuthAuditOutcome.values()) {
+            AuditMode mode = audit.getRouting().getOrDefault(outcome, AuditMode.FULL);
+            if (outcome != AuthAuditOutcome.ACCEPTED && mode != AuditMode.FULL) {
+                log.warn("auth.audit.routing.{}={} ignored: failures are always recorded in full", outcome, mode);
+                mode = AuditMode.FULL;
+            }
+            modes.put(outcome, mode);
+        }
+
+        this.sampledOut = Counter.builder("auth.audit.sampled.out").register(meterRegistry);
+        this.aggregated = Counter.builder("auth.audit.aggregated").register(meterRegistry);
+        this.aggregationOverflow = Counter.builder("auth.audit.aggregation.overflow")
+                .description("Records written in full because the aggregation window hit maxKeys")
+                .register(meterRegistry);
+    }
+
+    public void route(AuthAuditEntity e) {
+        switch (modes.get(e.getOutcome())) {
+            case FULL -> queue.offer(e);
+            case SAMPLED -> {
+                if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    e.setEventCount(sampleWeight);
+                    queue.offer(e);
+                } else {
+                    sampledOut.increment();
+                }
+            }
+            case AGGREGATED -> {
+                if (aggregator.record(e)) {
+                    aggregated.increment();
+                } else {
+                    aggregationOverflow.increment();
+                    queue.offer(e);
+                }
+            }
+        }
+    }
+}
@@ -4,87 +4,109 @@ import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
-import com.github.dimitryivaniuta.gateway.config.AuthProperties;
 import com.github.dimitryivaniuta.gateway.observability.CorrelationIdFilter;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
 
 import org.slf4j.MDC;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 /**
- * Stores audit events in Postgres and publishes them to Kafka.
+ * Builds audit records on the request thread and hands them to {@link AuthAuditRouter}, which samples,
+ * aggregates or enqueues them on the write-behind {@link AuthAuditQueue}.
+ *
+ * <p>Persistence to Postgres and publishing to Kafka happen on {@link AuthAuditWriter} threads, so the
+ * request never waits for either.</p>
+ *
+ * <p>Issuer and audience are those of the tenant the token was validated for, taken from the token's
+ * {@code iss}; rejections before authentication carry neither, as no tenant vouched for the token.</p>
+ *
+ * <p>The {@link ServerHttpRequest} variants serve the reactive mode, where the correlation id travels with the
+ * exchange instead of the MDC.</p>
  */
 @Service
 @RequiredArgsConstructor
 public class AuthAuditService {
 
-    private final AuthProperties authProperties;
-    private final AuthAuditRepository repository;
-    private final AuthAuditPublisher publisher;
+    private final IssuerRegistry issuerRegistry;
+    private final AuthAuditRouter router;
 
-    @Transactional
     public AuthAuditEntity accepted(HttpServletRequest request, Jwt jwt) {
-        String cid = correlationId();
-        String kid = Optional.ofNullable(jwt.getHeaders().get("kid")).map(Object::toString).orElse(null);
-
-        AuthAuditEntity e = base(request, jwt.getSubject(), kid, AuthAuditOutcome.ACCEPTED, null, cid);
-        repository.save(e);
-        publisher.publish(toEvent(e));
-        return e;
+        return accepted(request.getRequestURI(), request.getMethod(), jwt, correlationId());
     }
 
-    @Transactional
     public AuthAuditEntity rejected(HttpServletRequest request, String reason) {
-        String cid = correlationId();
-        AuthAuditEntity e = base(request, null, null, AuthAuditOutcome.REJECTED, reason, cid);
-        repository.save(e);
-        publisher.publish(toEvent(e));
-        return e;
+        return record(request.getRequestURI(), request.getMethod(), null, AuthAuditOutcome.REJECTED, reason,
+                correlationId());
+    }
+
+    /**
+     * @param jwt the caller's token; {@code null} when it was not authenticated by a JWT
+     */
+    public AuthAuditEntity forbidden(HttpServletRequest request, Jwt jwt, String reason) {
+        return record(request.getRequestURI(), request.getMethod(), jwt, AuthAuditOutcome.FORBIDDEN, reason,
+                correlationId());
+    }
+
+    public AuthAuditEntity accepted(ServerHttpRequest request, Jwt jwt, String correlationId) {
+        return accepted(request.getPath().value(), request.getMethod().name(), jwt, correlationId);
+    }
+
+    public AuthAuditEntity rejected(ServerHttpRequest request, String reason, String correlationId) {
+        return record(request.getPath().value(), request.getMethod().name(), null, AuthAuditOutcome.REJECTED,
+                reason, correlationId);
+    }
+
+    /**
+     * @param jwt the caller's token; {@code null} when it was not authenticated by a JWT
+     */
+    public AuthAuditEntity forbidden(ServerHttpRequest request, Jwt jwt, String reason, String correlationId) {
+        return record(request.getPath().value(), request.getMethod().name(), jwt, AuthAuditOutcome.FORBIDDEN,
+                reason, correlationId);
+    }
+
+    private AuthAuditEntity accepted(String path, String method, Jwt jwt, String cid) {
+        return record(path, method, jwt, AuthAuditOutcome.ACCEPTED, null, cid);
     }
 
-    @Transactional
-    public AuthAuditEntity forbidden(HttpServletRequest request, String subject, String kid, String reason) {
-        String cid = correlationId();
-        AuthAuditEntity e = base(request, subject, kid, AuthAuditOutcome.FORBIDDEN, reason, cid);
-        repository.save(e);
-        publisher.publish(toEvent(e));
+    private AuthAuditEntity record(String path, String method, Jwt jwt, AuthAuditOutcome outcome, String reason,
+                                   String cid) {
+        AuthAuditEntity e = base(path, method, jwt, outcome, reason, cid);
+        router.route(e);
         return e;
     }
 
-    private AuthAuditEntity base(HttpServletRequest request, String subject, String kid, AuthAuditOutcome outcome, String reason, String cid) {
+    private AuthAuditEntity base(String path, String method, Jwt jwt, AuthAuditOutcome outcome, String reason,
+                                 String cid) {
         AuthAuditEntity e = new AuthAuditEntity();
         e.setId(UUID.randomUUID());
         e.setCreatedAt(Instant.now());
-        e.setCorrelationId(cid);
-        e.setSubject(subject);
-        e.setIssuer(authProperties.getIssuer());
-        e.setAudience(authProperties.getAudience());
-        e.setKid(kid);
-        e.setPath(request.getRequestURI());
-        e.setMethod(request.getMethod());
+        // records are written in batches: an oversized value must not fail its neighbours
+        e.setCorrelationId(truncate(cid, 64));
+        if (jwt != null) {
+            String issuer = jwt.getClaimAsString(JwtClaimNames.ISS);
+            TrustedIssuer tenant = issuerRegistry.tenant(issuer);
+            e.setSubject(truncate(jwt.getSubject(), 256));
+            e.setIssuer(issuer);
+            e.setAudience(tenant == null ? null : tenant.audience());
+            Object kid = jwt.getHeaders().get("kid");
+            e.setKid(kid == null ? null : truncate(kid.toString(), 128));
+        }
+        e.setPath(truncate(path, 512));
+        e.setMethod(truncate(method, 16));
         e.setOutcome(outcome);
-        e.setReason(reason);
+        e.setReason(truncate(reason, 512));
         return e;
     }
 
-    private AuthAuditEvent toEvent(AuthAuditEntity e) {
-        return AuthAuditEvent.builder()
-                .id(e.getId())
-                .createdAt(e.getCreatedAt())
-                .correlationId(e.getCorrelationId())
-                .subject(e.getSubject())
-                .issuer(e.getIssuer())
-                .audience(e.getAudience())
-                .kid(e.getKid())
-                .path(e.getPath())
-                .method(e.getMethod())
-                .outcome(e.getOutcome())
-                .reason(e.getReason())
-                .build();
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
     }
 
     private String correlationId() {
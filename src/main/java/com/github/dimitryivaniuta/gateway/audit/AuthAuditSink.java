@@ -0,0 +1,16 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.List;
+
+/**
+ * Destination for drained audit batches (called from {@link AuthAuditWriter} threads only).
+ */
+public interface AuthAuditSink {
+
+    /**
+     * Persists a batch of audit records and their {@link AuthAuditOutbox} rows in one transaction.
+     *
+     * @param batch non-empty batch, in drain order
+     */
+    void write(List<AuthAuditEntity> batch);
+}
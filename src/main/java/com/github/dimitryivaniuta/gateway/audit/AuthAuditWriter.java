@@ -0,0 +1,178 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dedicated writer threads draining {@link AuthAuditQueue} into the {@link AuthAuditSink}.
+ *
+ * <p>Batches are cut by size ({@code auth.audit.batchSize}) or age ({@code auth.audit.maxBatchDelay}),
+ * whichever comes first.</p>
+ *
+ * <p>A batch the database rejects for its data (SQLState class 22 or 23, e.g. a NUL byte in a string) is halved
+ * and retried until the offending records are isolated, so one bad record does not cost its neighbours. Any other
+ * failure drops the batch at once: splitting would only multiply attempts against a database that is down.</p>
+ *
+ * <p>Runs in a lifecycle phase below the web server, so on shutdown it stops only after the server no
+ * longer accepts requests, then drains whatever is still buffered (bounded by {@code auth.audit.shutdownTimeout}).</p>
+ */
+@Slf4j
+@Component
+public class AuthAuditWriter implements SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AuthAuditQueue queue;
+    private final AuthAuditSink sink;
+    private final int threads;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+    private final Duration shutdownTimeout;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter split;
+    private final Thread.Builder threadBuilder;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public AuthAuditWriter(AuthAuditQueue queue, AuthAuditSink sink, AuthProperties authProperties,
+                           MeterRegistry meterRegistry, Environment environment) {
+        AuthProperties.Audit audit = authProperties.getAudit();
+        this.queue = queue;
+        this.sink = sink;
+        this.threads = audit.getWriterThreads();
+        this.batchSize = audit.getBatchSize();
+        this.maxBatchDelayNanos = audit.getMaxBatchDelay().toNanos();
+        this.shutdownTimeout = audit.getShutdownTimeout();
+        this.written = Counter.builder("auth.audit.written").register(meterRegistry);
+        this.failed = Counter.builder("auth.audit.write.failed").register(meterRegistry);
+        this.split = Counter.builder("auth.audit.write.split")
+                .description("Batches halved and retried because the database rejected one of their records")
+                .register(meterRegistry);
+        this.threadBuilder = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual().name("auth-audit-writer-", 0)
+                : Thread.ofPlatform().name("auth-audit-writer-", 0).daemon();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            workers.add(threadBuilder.start(this::runLoop));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Thread t : workers) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                t.join(Math.max(1, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        if (!queue.isEmpty()) {
+            log.warn("Audit writer stopped with {} records still buffered", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Below the web server's phases ({@code DEFAULT_PHASE - 2048}), so writers start before and stop after it.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void runLoop() {
+        List<AuthAuditEntity> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            if (queue.drainTo(batch, batchSize) == 0) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            fill(batch);
+            flush(batch);
+        }
+    }
+
+    /**
+     * Tops up a partial batch until it is full or {@code maxBatchDelay} has passed since its first record.
+     */
+    private void fill(List<AuthAuditEntity> batch) {
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        while (running && batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            if (queue.drainTo(batch, batchSize - batch.size()) == 0) {
+                LockSupport.parkNanos(Math.min(remaining, IDLE_PARK_NANOS));
+            }
+        }
+    }
+
+    private void flush(List<AuthAuditEntity> batch) {
+        try {
+            write(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuthAuditEntity> batch) {
+        try {
+            sink.write(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            if (batch.size() > 1 && isRejectedData(e)) {
+                split.increment();
+                int half = batch.size() / 2;
+                write(batch.subList(0, half));
+                write(batch.subList(half, batch.size()));
+                return;
+            }
+            failed.increment(batch.size());
+            log.warn("Failed to write {} audit records: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    static boolean isRejectedData(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
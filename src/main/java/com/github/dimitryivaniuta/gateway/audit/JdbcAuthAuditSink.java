@@ -0,0 +1,76 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes audit batches as multi-row {@code INSERT} statements, bypassing the JPA persistence context.
+ *
+ * <p>Rows are chunked so a statement never exceeds {@link #MAX_ROWS_PER_STATEMENT} rows
+ * (Postgres caps bind parameters at 65535 per statement).</p>
+ */
+@RequiredArgsConstructor
+public class JdbcAuthAuditSink implements AuthAuditSink {
+
+    static final String COLUMNS =
+            "id, created_at, correlation_id, subject, issuer, audience, kid, path, method, outcome, reason, "
+            + "event_count, window_end";
+
+    private static final int COLUMN_COUNT = 13;
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    private static final String FULL_CHUNK_SQL = insertSql(MAX_ROWS_PER_STATEMENT);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthAuditOutbox outbox;
+
+    @Override
+    @Transactional
+    public void write(List<AuthAuditEntity> batch) {
+        for (int from = 0; from < batch.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AuthAuditEntity> chunk = batch.subList(from, Math.min(batch.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = chunk.size() == MAX_ROWS_PER_STATEMENT ? FULL_CHUNK_SQL : insertSql(chunk.size());
+            jdbcTemplate.update(sql, ps -> bind(ps, chunk));
+        }
+        outbox.append(batch);
+    }
+
+    private static void bind(PreparedStatement ps, List<AuthAuditEntity> chunk) throws SQLException {
+        int i = 1;
+        for (AuthAuditEntity e : chunk) {
+            ps.setObject(i++, e.getId());
+            ps.setObject(i++, OffsetDateTime.ofInstant(e.getCreatedAt(), ZoneOffset.UTC));
+            ps.setString(i++, e.getCorrelationId());
+            ps.setString(i++, e.getSubject());
+            ps.setString(i++, e.getIssuer());
+            ps.setString(i++, e.getAudience());
+            ps.setString(i++, e.getKid());
+            ps.setString(i++, e.getPath());
+            ps.setString(i++, e.getMethod());
+            ps.setString(i++, e.getOutcome().name());
+            ps.setString(i++, e.getReason());
+            ps.setLong(i++, e.getEventCount());
+            ps.setObject(i++, e.getWindowEnd() == null ? null : OffsetDateTime.ofInstant(e.getWindowEnd(), ZoneOffset.UTC));
+        }
+    }
+
+    private static String insertSql(int rows) {
+        String row = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+        StringBuilder sb = new StringBuilder(64 + rows * (row.length() + 2))
+                .append("insert into auth_audit (").append(COLUMNS).append(") values ");
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) {
+                sb.append(", ");
+            }
+            sb.append(row);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import java.util.List;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes audit batches through JPA, together with their outbox rows.
+ */
+@RequiredArgsConstructor
+public class JpaAuthAuditSink implements AuthAuditSink {
+
+    private final AuthAuditRepository repository;
+    private final AuthAuditOutbox outbox;
+
+    @Override
+    @Transactional
+    public void write(List<AuthAuditEntity> batch) {
+        repository.saveAll(batch);
+        outbox.append(batch);
+    }
+}
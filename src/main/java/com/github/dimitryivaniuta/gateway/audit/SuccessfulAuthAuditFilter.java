@@ -32,11 +32,16 @@ public class SuccessfulAuthAuditFilter extends OncePerRequestFilter {
         Object auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth instanceof JwtAuthenticationToken jat && jat.isAuthenticated()) {
             Jwt jwt = jat.getToken();
-            // record only for API endpoints; skip actuator and issuer endpoints
-            String path = request.getRequestURI();
-            if (path.startsWith("/api/") && !path.startsWith("/api/demo/") && !path.startsWith("/api/admin/jwks/refresh")) {
+            if (isAudited(request.getRequestURI())) {
                 auditService.accepted(request, jwt);
             }
         }
     }
+
+    /**
+     * Records only API endpoints; actuator and issuer endpoints are skipped.
+     */
+    static boolean isAudited(String path) {
+        return path.startsWith("/api/") && !path.startsWith("/api/demo/") && !path.startsWith("/api/admin/jwks/refresh");
+    }
 }
@@ -0,0 +1,32 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdWebFilter;
+
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link SuccessfulAuthAuditFilter}: records requests that passed authorization with a
+ * valid JWT, once the handler has completed.
+ */
+@RequiredArgsConstructor
+public class SuccessfulAuthAuditWebFilter implements WebFilter {
+
+    private final AuthAuditService auditService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return chain.filter(exchange).then(exchange.getPrincipal()
+                .ofType(JwtAuthenticationToken.class)
+                .filter(token -> token.isAuthenticated()
+                        && SuccessfulAuthAuditFilter.isAudited(exchange.getRequest().getPath().value()))
+                .doOnNext(token -> auditService.accepted(exchange.getRequest(), token.getToken(),
+                        CorrelationIdWebFilter.correlationId(exchange)))
+                .then());
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import javax.sql.DataSource;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditOutbox;
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditRepository;
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditSink;
+import com.github.dimitryivaniuta.gateway.audit.CopyAuthAuditSink;
+import com.github.dimitryivaniuta.gateway.audit.JdbcAuthAuditSink;
+import com.github.dimitryivaniuta.gateway.audit.JpaAuthAuditSink;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Selects the audit persistence strategy from {@code auth.audit.sink}.
+ */
+@Configuration
+public class AuditSinkConfig {
+
+    @Bean
+    AuthAuditSink authAuditSink(AuthProperties authProperties,
+                                AuthAuditRepository repository,
+                                JdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                AuthAuditOutbox outbox) {
+        return switch (authProperties.getAudit().getSink()) {
+            case JPA -> new JpaAuthAuditSink(repository, outbox);
+            case JDBC_BATCH -> new JdbcAuthAuditSink(jdbcTemplate, outbox);
+            case COPY -> new CopyAuthAuditSink(dataSource, outbox);
+        };
+    }
+}
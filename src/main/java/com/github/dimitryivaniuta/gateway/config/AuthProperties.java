@@ -1,12 +1,29 @@
 package com.github.dimitryivaniuta.gateway.config;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.dimitryivaniuta.gateway.audit.AuditOverflowPolicy;
+import com.github.dimitryivaniuta.gateway.audit.AuditPartitionGranularity;
+import com.github.dimitryivaniuta.gateway.audit.AuditPartitionRetentionAction;
+import com.github.dimitryivaniuta.gateway.audit.AuditMode;
+import com.github.dimitryivaniuta.gateway.audit.AuditSinkType;
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditOutcome;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 /**
@@ -30,17 +47,289 @@ public class AuthProperties {
     private String audience;
 
     /**
-     * Remote JWKS URI (JSON Web Key Set).
+     * Remote JWKS URI (JSON Web Key Set). When blank it is resolved from the issuer's
+     * {@code /.well-known/openid-configuration}.
      */
-    @NotBlank
     private String jwksUri;
 
+    /**
+     * Further trusted issuers (tenants), each with its own audience and JWKS. The issuer/audience/jwksUri above
+     * form the {@code default} tenant.
+     */
+    @Valid
+    @NotNull
+    private List<Issuer> issuers = new ArrayList<>();
+
+    /**
+     * Per-issuer decoders (and their JWKS caches) unused for this long are released; they are rebuilt on demand.
+     */
+    @NotNull
+    private Duration decoderIdleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * How long a resolved OIDC discovery document ({@code jwks_uri}) is cached.
+     */
+    @NotNull
+    private Duration discoveryTtl = Duration.ofHours(1);
+
     /**
      * JWKS cache settings (Redis + local memory).
      */
     @NotNull
     private JwksCache jwksCache = new JwksCache();
 
+    /**
+     * Audit pipeline settings (write-behind queue + writers).
+     */
+    @NotNull
+    private Audit audit = new Audit();
+
+    /**
+     * Optional JIT warm-up of the JWT validation path before the instance reports readiness.
+     */
+    @NotNull
+    private Warmup warmup = new Warmup();
+
+    /**
+     * Cache of verified bearer tokens.
+     */
+    @NotNull
+    private TokenCache tokenCache = new TokenCache();
+
+    /**
+     * Structural bearer token check run before full JWT validation.
+     */
+    @NotNull
+    private Precheck precheck = new Precheck();
+
+    /**
+     * Reverse-proxy routes forwarding authenticated requests to upstream services.
+     */
+    @Valid
+    @NotNull
+    private Proxy proxy = new Proxy();
+
+    @Data
+    public static class Proxy {
+        /**
+         * Whether {@code routes} are served; off, the gateway only serves its own endpoints.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Upstream connections pooled across all routes.
+         */
+        @Positive
+        private int maxConnections = 200;
+
+        /**
+         * Upstream connections pooled per upstream host.
+         */
+        @Positive
+        private int maxConnectionsPerHost = 50;
+
+        /**
+         * Default connect timeout; a route may override it.
+         */
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * How long a request waits for a pooled connection before it is answered with 503.
+         */
+        @NotNull
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Pooled connections idle for longer are closed.
+         */
+        @NotNull
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        @Valid
+        @NotNull
+        private List<Route> routes = new ArrayList<>();
+
+        /**
+         * Signed identity header added to forwarded requests.
+         */
+        @NotNull
+        private Envelope identityEnvelope = new Envelope();
+    }
+
+    @Data
+    public static class Envelope {
+        /**
+         * Whether forwarded requests carry an HMAC-signed {@code X-Identity-Envelope} with the verified issuer,
+         * subject, authorities, {@code kid}, {@code exp}, correlation id and the route id as audience.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Longest an envelope stays valid; the token's {@code exp} applies when it comes sooner. An envelope is
+         * verified on arrival, so this only has to cover the hop and clock skew.
+         */
+        @NotNull
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * Key of {@code keys} that signs new envelopes.
+         */
+        private String activeKeyId;
+
+        /**
+         * Shared key ring: key id to base64 secret (at least 32 bytes), the same on gateways and services.
+         */
+        @NotNull
+        private Map<String, String> keys = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Route {
+        /**
+         * Short route id, used in metric tags.
+         */
+        @NotBlank
+        private String id;
+
+        /**
+         * Request path prefix served by this route, e.g. {@code /api/orders}.
+         */
+        @NotBlank
+        private String pathPrefix;
+
+        /**
+         * Upstream base URL, e.g. {@code http://orders:8080}; the request path and query are appended.
+         */
+        @NotBlank
+        private String uri;
+
+        /**
+         * Whether {@code pathPrefix} is removed from the path sent upstream.
+         */
+        private boolean stripPrefix = false;
+
+        /**
+         * Whether the client's {@code Authorization} header is passed upstream; stripped by default.
+         */
+        private boolean forwardAuthorization = false;
+
+        /**
+         * Connect timeout of this route; {@code proxy.connectTimeout} when unset. Connections are pooled per
+         * upstream host, so routes sharing a host must agree on it, or startup fails.
+         */
+        private Duration connectTimeout;
+
+        /**
+         * Maximum inactivity while waiting for or reading the upstream response; exceeded, the client gets 504.
+         */
+        @NotNull
+        private Duration responseTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Precheck {
+        /**
+         * Whether malformed, oversized, expired or wrong-{@code alg} tokens are rejected before JWT validation.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Longest accepted bearer token, in characters.
+         */
+        @Positive
+        private int maxTokenLength = 8192;
+
+        /**
+         * JWS {@code alg} header values let through to validation.
+         */
+        @NotNull
+        private List<String> allowedAlgorithms = new ArrayList<>(List.of("RS256"));
+
+        /**
+         * Whether tokens without a {@code kid} header are rejected.
+         */
+        private boolean requireKid = true;
+
+        /**
+         * Tolerance for the {@code exp}/{@code nbf} peek; should match the JWT timestamp validator (60s).
+         */
+        @NotNull
+        private Duration clockSkew = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class TokenCache {
+        /**
+         * Whether verified tokens are cached (keyed by SHA-256 of the token).
+         */
+        private boolean enabled = true;
+
+        /**
+         * Approximate memory bound of the cache.
+         */
+        @NotNull
+        private DataSize maxWeight = DataSize.ofMegabytes(32);
+
+        /**
+         * Upper bound on how long a token stays cached, even if its {@code exp} is later.
+         */
+        @NotNull
+        private Duration maxTtl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Warmup {
+        /**
+         * Whether JWKS are prefetched and synthetic tokens decoded at startup.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of synthetic token decodes (through decoder, validators and authorities mapping).
+         */
+        @Positive
+        private int tokens = 5_000;
+
+        /**
+         * Upper bound on the warm-up; readiness is reported once it is reached even if {@code tokens} were
+         * not all decoded.
+         */
+        @NotNull
+        private Duration maxDuration = Duration.ofSeconds(20);
+    }
+
+    @Data
+    public static class Issuer {
+        /**
+         * Short tenant id, used in metric tags and the default Redis key.
+         */
+        @NotBlank
+        private String id;
+
+        /**
+         * Expected issuer (iss) claim. Must match exactly.
+         */
+        @NotBlank
+        private String issuer;
+
+        /**
+         * Expected audience (aud) claim. Token must contain it.
+         */
+        @NotBlank
+        private String audience;
+
+        /**
+         * JWKS URI; resolved through OIDC discovery when blank.
+         */
+        private String jwksUri;
+
+        /**
+         * Redis key of this issuer's JWKS; defaults to {@code <jwksCache.redisKey>:<id>}.
+         */
+        private String redisKey;
+    }
+
     @Data
     public static class JwksCache {
         /**
@@ -55,6 +344,30 @@ public class AuthProperties {
         @NotNull
         private Duration ttl = Duration.ofMinutes(10);
 
+        /**
+         * Use the IdP's {@code Cache-Control: max-age} as TTL instead of {@code ttl} (bounded by 30s and
+         * {@code maxTtl}); {@code ttl} still applies when the response carries no {@code max-age}.
+         */
+        private boolean ttlFromCacheControl = false;
+
+        /**
+         * Upper bound for a TTL taken from {@code Cache-Control}.
+         */
+        @NotNull
+        private Duration maxTtl = Duration.ofHours(1);
+
+        /**
+         * TCP connect timeout of the JWKS HTTP client.
+         */
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Overall timeout of one JWKS request (response headers and body).
+         */
+        @NotNull
+        private Duration fetchTimeout = Duration.ofSeconds(2);
+
         /**
          * Background refresh delay in milliseconds.
          *
@@ -62,5 +375,303 @@ public class AuthProperties {
          * reduces reliance on stale caches across instances.</p>
          */
         private long refreshDelayMillis = 300_000;
+
+        /**
+         * Random spread applied to every {@code refreshDelayMillis} period (0.1 = +/-10%), so a fleet restarted
+         * at once does not poll the IdP in lockstep.
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("0.5")
+        private double refreshJitter = 0.1;
+
+        /**
+         * Lifetime of the Redis lease ({@code <redisKey>:refresh-leader}) held by the single instance that runs
+         * the periodic refresh. Renewed every third of it; another instance takes over once it lapses.
+         */
+        @NotNull
+        private Duration leaderLeaseTtl = Duration.ofSeconds(15);
+
+        /**
+         * Lifetime of the Redis lock that lets a single instance fetch JWKS while the others wait for it.
+         *
+         * <p>Also bounds how long a waiting instance blocks before fetching itself.</p>
+         */
+        @NotNull
+        private Duration refreshLockTtl = Duration.ofSeconds(5);
+
+        /**
+         * Whether this instance subscribes to JWKS change notifications ({@code <redisKey>:updates}) and swaps
+         * its local copy as soon as another instance stores a new JWKS.
+         */
+        private boolean broadcast = true;
+
+        /**
+         * Store the Redis payload gzip-compressed (base64); readers accept both forms.
+         */
+        private boolean compressPayload = false;
+
+        /**
+         * Fraction of {@code ttl} after which the first lookup starts a background refresh.
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        private double refreshAheadFraction = 0.8;
+
+        /**
+         * How long an expired local entry is still served while a background refresh runs.
+         */
+        @NotNull
+        private Duration staleWhileRevalidate = Duration.ofMinutes(2);
+
+        /**
+         * How long past expiry the last known good JWKS is served when Redis and the IdP are unreachable.
+         */
+        @NotNull
+        private Duration staleIfError = Duration.ofHours(1);
+
+        /**
+         * Protections against tokens carrying unknown {@code kid}s forcing remote JWKS fetches.
+         */
+        @NotNull
+        private UnknownKid unknownKid = new UnknownKid();
+
+        /**
+         * Last known good JWKS kept on local disk, loaded at boot before Redis or the IdP are consulted.
+         */
+        @NotNull
+        private Snapshot snapshot = new Snapshot();
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * Whether the JWKS is written to / loaded from {@code dir}.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding one {@code <redisKey>.jwks} file per issuer.
+         */
+        @NotBlank
+        private String dir = System.getProperty("java.io.tmpdir") + "/auth-gateway/jwks";
+
+        /**
+         * Snapshots not confirmed by Redis or the IdP for longer than this are ignored at boot.
+         */
+        @NotNull
+        private Duration maxAge = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class UnknownKid {
+        /**
+         * How long a {@code kid} that was still unknown after a forced refresh is rejected without fetching.
+         */
+        @NotNull
+        private Duration negativeTtl = Duration.ofSeconds(30);
+
+        /**
+         * Maximum number of remembered unknown {@code kid}s.
+         */
+        @Positive
+        private int negativeMaxSize = 10_000;
+
+        /**
+         * Minimum time between two forced refreshes on this instance.
+         */
+        @NotNull
+        private Duration minRefreshInterval = Duration.ofSeconds(5);
+
+        /**
+         * Token bucket size: forced refreshes allowed in a burst.
+         */
+        @Positive
+        private int refreshBurst = 3;
+
+        /**
+         * Token bucket refill rate: sustained forced refreshes per minute.
+         */
+        @Positive
+        private int refreshesPerMinute = 6;
+    }
+
+    @Data
+    public static class Audit {
+        /**
+         * Maximum number of audit records buffered in memory before the overflow policy applies.
+         */
+        @Positive
+        private int queueCapacity = 10_000;
+
+        /**
+         * What to do when the queue is full.
+         */
+        @NotNull
+        private AuditOverflowPolicy overflowPolicy = AuditOverflowPolicy.DROP_ACCEPTED_FIRST;
+
+        /**
+         * How long a request thread may wait for free space with {@link AuditOverflowPolicy#BLOCK}
+         * before the record is dropped.
+         */
+        @NotNull
+        private Duration blockTimeout = Duration.ofMillis(50);
+
+        /**
+         * Number of dedicated writer threads draining the queue.
+         */
+        @Positive
+        private int writerThreads = 2;
+
+        /**
+         * Maximum number of records written per batch.
+         */
+        @Positive
+        private int batchSize = 500;
+
+        /**
+         * How long a writer waits for a batch to fill up before writing a partial one.
+         */
+        @NotNull
+        private Duration maxBatchDelay = Duration.ofMillis(50);
+
+        /**
+         * How batches are persisted to {@code auth_audit}.
+         */
+        @NotNull
+        private AuditSinkType sink = AuditSinkType.JDBC_BATCH;
+
+        /**
+         * Upper bound for draining buffered records on shutdown.
+         */
+        @NotNull
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Partition management for the range-partitioned {@code auth_audit} table.
+         */
+        @NotNull
+        private Partitions partitions = new Partitions();
+
+        /**
+         * Recording mode per outcome; outcomes not listed are recorded in full.
+         *
+         * <p>Only {@code ACCEPTED} may be sampled or aggregated: {@code REJECTED} and {@code FORBIDDEN}
+         * are always recorded in full.</p>
+         */
+        @NotNull
+        private Map<AuthAuditOutcome, AuditMode> routing = new EnumMap<>(AuthAuditOutcome.class);
+
+        /**
+         * Probability of keeping a record routed to {@link AuditMode#SAMPLED}.
+         */
+        @DecimalMin(value = "0.0", inclusive = false)
+        @DecimalMax("1.0")
+        private double sampleRate = 0.01;
+
+        /**
+         * In-memory roll-up of records routed to {@link AuditMode#AGGREGATED}.
+         */
+        @NotNull
+        private Aggregation aggregation = new Aggregation();
+
+        /**
+         * Transactional outbox relaying audit events to Kafka.
+         */
+        @NotNull
+        private Outbox outbox = new Outbox();
+    }
+
+    @Data
+    public static class Outbox {
+        /**
+         * Whether this instance runs the relay (instances share work via {@code SKIP LOCKED}).
+         */
+        private boolean relayEnabled = true;
+
+        /**
+         * Maximum rows claimed and sent per relay transaction.
+         */
+        @Positive
+        private int batchSize = 1000;
+
+        /**
+         * Delay between relay rounds in milliseconds (a round loops while batches come back full).
+         */
+        private long relayDelayMillis = 200;
+
+        /**
+         * How long a relay round waits for broker acknowledgements.
+         */
+        @NotNull
+        private Duration sendTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Failed attempts after which a row is parked (no longer claimed); counted only while other rows of the
+         * same batch are acknowledged, so a broker outage does not park anything.
+         */
+        @Positive
+        private int maxAttempts = 10;
+
+        /**
+         * How long relayed rows are kept before being purged.
+         */
+        @NotNull
+        private Duration retention = Duration.ofDays(1);
+
+        /**
+         * Delay between purge runs in milliseconds.
+         */
+        private long purgeDelayMillis = 600_000;
+    }
+
+    @Data
+    public static class Aggregation {
+        /**
+         * Window length in milliseconds; one summary row per key is written per window.
+         */
+        private long windowMillis = 60_000;
+
+        /**
+         * Maximum distinct keys per window; records beyond it are written in full instead.
+         */
+        @Positive
+        private int maxKeys = 100_000;
+    }
+
+    @Data
+    public static class Partitions {
+        /**
+         * Whether this instance runs the partition maintainer (instances coordinate via an advisory lock).
+         */
+        private boolean enabled = true;
+
+        /**
+         * Partition width.
+         */
+        @NotNull
+        private AuditPartitionGranularity granularity = AuditPartitionGranularity.DAY;
+
+        /**
+         * How far into the future partitions are pre-created.
+         */
+        @NotNull
+        private Duration precreateAhead = Duration.ofDays(3);
+
+        /**
+         * Partitions whose upper bound is older than this are expired.
+         */
+        @NotNull
+        private Duration retention = Duration.ofDays(30);
+
+        /**
+         * What happens to expired partitions.
+         */
+        @NotNull
+        private AuditPartitionRetentionAction retentionAction = AuditPartitionRetentionAction.DROP;
+
+        /**
+         * Delay between maintenance runs in milliseconds.
+         */
+        private long maintenanceDelayMillis = 3_600_000;
     }
 }
@@ -0,0 +1,35 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import com.github.dimitryivaniuta.gateway.jwks.JwksBroadcastListener;
+import com.github.dimitryivaniuta.gateway.jwks.JwksCacheService;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Subscribes this instance to cluster-wide JWKS change notifications ({@code auth.jwksCache.broadcast}),
+ * one channel per trusted issuer.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "auth.jwksCache", name = "broadcast", havingValue = "true", matchIfMissing = true)
+public class JwksBroadcastConfig {
+
+    @Bean
+    RedisMessageListenerContainer jwksBroadcastContainer(RedisConnectionFactory connectionFactory,
+                                                         IssuerRegistry issuerRegistry) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        for (TrustedIssuer tenant : issuerRegistry.tenants()) {
+            container.addMessageListener(
+                    new JwksBroadcastListener(hash -> issuerRegistry.onJwksChanged(tenant.issuer(), hash)),
+                    new ChannelTopic(JwksCacheService.updatesChannel(tenant.redisKey())));
+        }
+        return container;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import java.time.Clock;
+
+import com.github.dimitryivaniuta.gateway.audit.AuditOverflowPolicy;
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.audit.SuccessfulAuthAuditWebFilter;
+import com.github.dimitryivaniuta.gateway.jwks.ReactiveJwksLoader;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdWebFilter;
+import com.github.dimitryivaniuta.gateway.security.AuditingServerAccessDeniedHandler;
+import com.github.dimitryivaniuta.gateway.security.AuditingServerAuthenticationEntryPoint;
+import com.github.dimitryivaniuta.gateway.security.AuthoritiesMapper;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.ReactiveBearerTokenPrecheckFilter;
+import com.github.dimitryivaniuta.gateway.security.ReactiveMultiIssuerJwtDecoder;
+import com.github.dimitryivaniuta.gateway.security.VerifiedTokenCache;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spring Security configuration of the reactive (WebFlux) mode, enabled with
+ * {@code spring.main.web-application-type=reactive}; mirrors {@link SecurityConfig}.
+ *
+ * <p>Same rules, issuer routing, token cache, pre-check and auditing, with non-blocking counterparts of the
+ * servlet pieces. Served by Netty. Controllers returning plain values (admin, demo issuer) run on the
+ * application task executor, never on an event loop.</p>
+ */
+@Slf4j
+@Configuration
+@EnableWebFluxSecurity
+@EnableConfigurationProperties(AuthProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig implements WebFluxConfigurer {
+
+    private final AuthProperties authProperties;
+    private final IssuerRegistry issuerRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthoritiesMapper authoritiesMapper;
+    private final AuthAuditService auditService;
+    private final AsyncTaskExecutor blockingExecutor;
+
+    public ReactiveSecurityConfig(AuthProperties authProperties, IssuerRegistry issuerRegistry,
+                                  VerifiedTokenCache verifiedTokenCache, AuthoritiesMapper authoritiesMapper,
+                                  AuthAuditService auditService,
+                                  @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                  AsyncTaskExecutor blockingExecutor) {
+        this.authProperties = authProperties;
+        this.issuerRegistry = issuerRegistry;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authoritiesMapper = authoritiesMapper;
+        this.auditService = auditService;
+        this.blockingExecutor = blockingExecutor;
+        if (authProperties.getAudit().getOverflowPolicy() == AuditOverflowPolicy.BLOCK) {
+            log.warn("auth.audit.overflowPolicy=BLOCK parks event-loop threads when the audit queue is full; "
+                    + "prefer DROP_OLDEST or DROP_ACCEPTED_FIRST in reactive mode");
+        }
+    }
+
+    @Bean
+    SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ReactiveJwtDecoder jwtDecoder, Clock clock,
+                                                  MeterRegistry meterRegistry) {
+        http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .exceptionHandling(ex -> ex
+                .authenticationEntryPoint(new AuditingServerAuthenticationEntryPoint(auditService))
+                .accessDeniedHandler(new AuditingServerAccessDeniedHandler(auditService))
+            )
+            .authorizeExchange(auth -> auth
+                // demo issuer endpoints (public)
+                .pathMatchers("/.well-known/**").permitAll()
+                .pathMatchers("/oauth2/jwks").permitAll()
+                .pathMatchers("/api/demo/**").permitAll()
+                .pathMatchers("/actuator/health/**").permitAll()
+
+                // admin
+                .pathMatchers(HttpMethod.POST, "/api/admin/**").hasRole("ADMIN")
+
+                // everything else secured
+                .anyExchange().authenticated()
+            )
+            .oauth2ResourceServer(oauth2 -> oauth2
+                .jwt(jwt -> jwt
+                    .jwtDecoder(jwtDecoder)
+                    .jwtAuthenticationConverter(new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter()))
+                )
+            );
+
+        // correlation id first, so that pre-check and bearer token rejections carry it too
+        http.addFilterAt(new CorrelationIdWebFilter(), SecurityWebFiltersOrder.FIRST);
+        if (authProperties.getPrecheck().isEnabled()) {
+            http.addFilterBefore(new ReactiveBearerTokenPrecheckFilter(authProperties.getPrecheck(), clock,
+                    meterRegistry, auditService), SecurityWebFiltersOrder.AUTHENTICATION);
+        }
+        http.addFilterAfter(new SuccessfulAuthAuditWebFilter(auditService), SecurityWebFiltersOrder.AUTHORIZATION);
+
+        return http.build();
+    }
+
+    @Bean
+    ReactiveJwtDecoder reactiveJwtDecoder(ReactiveJwksLoader jwksLoader) {
+        return new ReactiveMultiIssuerJwtDecoder(issuerRegistry, verifiedTokenCache, jwksLoader);
+    }
+
+    @Bean
+    JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> verifiedTokenCache.authorities(jwt, authoritiesMapper));
+        converter.setPrincipalClaimName("sub");
+        return converter;
+    }
+
+    /**
+     * Tomcat is on the classpath for the servlet mode and would otherwise be picked for reactive too.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        configurer.setExecutor(blockingExecutor);
+    }
+}
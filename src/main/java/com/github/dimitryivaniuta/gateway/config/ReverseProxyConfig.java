@@ -0,0 +1,164 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeSigner;
+import com.github.dimitryivaniuta.gateway.proxy.ReverseProxyHandler;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Reverse-proxy mode ({@code auth.proxy.enabled}): every {@code auth.proxy.routes[]} path prefix is forwarded to
+ * its upstream by a {@link ReverseProxyHandler}, behind the same security chain as the gateway's own endpoints.
+ *
+ * <p>All routes share one pool of keep-alive upstream connections, bounded in total and per upstream host. Pool
+ * usage is exported by Micrometer's binder ({@code httpcomponents.httpclient.pool.*}) and per route
+ * ({@code auth.proxy.pool.connections{route,state}}).</p>
+ *
+ * <p>With {@code auth.proxy.identityEnvelope.enabled}, forwarded requests carry the caller's verified identity,
+ * signed with the active key of the shared key ring.</p>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "auth.proxy", name = "enabled", havingValue = "true")
+public class ReverseProxyConfig {
+
+    @Bean
+    PoolingHttpClientConnectionManager proxyConnectionManager(AuthProperties authProperties,
+                                                              MeterRegistry meterRegistry) {
+        AuthProperties.Proxy proxy = authProperties.getProxy();
+        // connect timeouts are per connection, so route overrides are resolved by upstream host
+        Map<HttpHost, AuthProperties.Route> byHost = new HashMap<>();
+        Map<HttpHost, ConnectionConfig> perHost = new HashMap<>();
+        for (AuthProperties.Route route : proxy.getRoutes()) {
+            HttpHost host = upstreamHost(route);
+            AuthProperties.Route other = byHost.putIfAbsent(host, route);
+            if (other != null && !connectTimeout(proxy, other).equals(connectTimeout(proxy, route))) {
+                throw new IllegalStateException("auth.proxy.routes " + other.getId() + " and " + route.getId()
+                        + " share upstream " + host + " but not its connectTimeout");
+            }
+            if (route.getConnectTimeout() != null) {
+                perHost.put(host, connectionConfig(connectTimeout(proxy, route)));
+            }
+        }
+        ConnectionConfig defaults = connectionConfig(proxy.getConnectTimeout());
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(proxy.getMaxConnections())
+                .setMaxConnPerRoute(proxy.getMaxConnectionsPerHost())
+                .setConnectionConfigResolver(route -> perHost.getOrDefault(route.getTargetHost(), defaults))
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "auth-proxy").bindTo(meterRegistry);
+        for (AuthProperties.Route route : proxy.getRoutes()) {
+            HttpHost host = upstreamHost(route);
+            HttpRoute httpRoute = new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+            poolGauge(meterRegistry, connectionManager, route, httpRoute, "leased", PoolStats::getLeased);
+            poolGauge(meterRegistry, connectionManager, route, httpRoute, "available", PoolStats::getAvailable);
+            poolGauge(meterRegistry, connectionManager, route, httpRoute, "pending", PoolStats::getPending);
+        }
+        return connectionManager;
+    }
+
+    @Bean
+    CloseableHttpClient proxyHttpClient(PoolingHttpClientConnectionManager proxyConnectionManager,
+                                        AuthProperties authProperties) {
+        return HttpClients.custom()
+                .setConnectionManager(proxyConnectionManager)
+                // requests are passed through as they are: no retries, redirects, cookies or decompression
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .disableContentCompression()
+                .disableAuthCaching()
+                .evictIdleConnections(TimeValue.of(authProperties.getProxy().getIdleTimeout()))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "auth.proxy.identityEnvelope", name = "enabled", havingValue = "true")
+    IdentityEnvelopeSigner identityEnvelopeSigner(AuthProperties authProperties) {
+        AuthProperties.Envelope envelope = authProperties.getProxy().getIdentityEnvelope();
+        String secret = envelope.getKeys().get(envelope.getActiveKeyId());
+        if (secret == null) {
+            throw new IllegalStateException("auth.proxy.identityEnvelope.activeKeyId must name one of its keys");
+        }
+        return new IdentityEnvelopeSigner(envelope.getActiveKeyId(), Base64.getDecoder().decode(secret));
+    }
+
+    @Bean
+    SimpleUrlHandlerMapping proxyHandlerMapping(AuthProperties authProperties, CloseableHttpClient proxyHttpClient,
+                                                ObjectProvider<IdentityEnvelopeSigner> envelopeSigner,
+                                                MeterRegistry meterRegistry) {
+        AuthProperties.Proxy proxy = authProperties.getProxy();
+        IdentityEnvelopeSigner signer = envelopeSigner.getIfAvailable();
+        Map<String, Object> urlMap = new LinkedHashMap<>();
+        for (AuthProperties.Route route : proxy.getRoutes()) {
+            String prefix = route.getPathPrefix().endsWith("/")
+                    ? route.getPathPrefix().substring(0, route.getPathPrefix().length() - 1)
+                    : route.getPathPrefix();
+            urlMap.put(prefix + "/**", new ReverseProxyHandler(route, proxyHttpClient, proxy, signer, meterRegistry));
+        }
+        // ahead of the controller mappings, so a route owns its whole prefix
+        return new SimpleUrlHandlerMapping(urlMap, Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    private static Duration connectTimeout(AuthProperties.Proxy proxy, AuthProperties.Route route) {
+        return route.getConnectTimeout() == null ? proxy.getConnectTimeout() : route.getConnectTimeout();
+    }
+
+    private static ConnectionConfig connectionConfig(Duration connectTimeout) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build();
+    }
+
+    /**
+     * Upstream host with its default port filled in, as the connection manager keys its routes.
+     */
+    private static HttpHost upstreamHost(AuthProperties.Route route) {
+        URI uri = URI.create(route.getUri());
+        return RoutingSupport.normalize(new HttpHost(uri.getScheme(), uri.getHost(), uri.getPort()),
+                DefaultSchemePortResolver.INSTANCE);
+    }
+
+    private static void poolGauge(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+                                  AuthProperties.Route route, HttpRoute httpRoute, String state,
+                                  ToIntFunction<PoolStats> value) {
+        Gauge.builder("auth.proxy.pool.connections", connectionManager,
+                        cm -> value.applyAsInt(cm.getStats(httpRoute)))
+                .description("Pooled upstream connections of a proxy route by state")
+                .tag("route", route.getId())
+                .tag("state", state)
+                .register(registry);
+    }
+}
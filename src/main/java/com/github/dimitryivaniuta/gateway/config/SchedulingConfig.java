@@ -4,7 +4,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
- * Enables scheduling for periodic JWKS refresh.
+ * Enables scheduling for the audit jobs: outbox relay, aggregation flush and partition maintenance. The JWKS
+ * refresh and its lease run on threads of their own (see {@code JwksRefresher}).
  */
 @Configuration
 @EnableScheduling
@@ -1,16 +1,20 @@
 package com.github.dimitryivaniuta.gateway.config;
 
-import java.net.URI;
-import java.time.Duration;
 
+import java.time.Clock;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
 import com.github.dimitryivaniuta.gateway.audit.SuccessfulAuthAuditFilter;
-import com.github.dimitryivaniuta.gateway.jwks.RedisCachingJwkSource;
 import com.github.dimitryivaniuta.gateway.observability.CorrelationIdFilter;
 import com.github.dimitryivaniuta.gateway.security.AuthoritiesMapper;
 import com.github.dimitryivaniuta.gateway.security.AuditingAccessDeniedHandler;
 import com.github.dimitryivaniuta.gateway.security.AuditingAuthenticationEntryPoint;
-import com.github.dimitryivaniuta.gateway.security.JwtValidatorsFactory;
+import com.github.dimitryivaniuta.gateway.security.BearerTokenPrecheckFilter;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.MultiIssuerJwtDecoder;
+import com.github.dimitryivaniuta.gateway.security.VerifiedTokenCache;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,36 +22,39 @@ import org.springframework.http.HttpMethod;
 import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
-
-import com.nimbusds.jose.proc.SecurityContext;
-import com.nimbusds.jose.jwk.source.JWKSource;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Spring Security configuration.
  *
  * <p>The gateway works as an OAuth2 Resource Server. It validates JWT signatures via JWKS (with rotation)
- * and enforces issuer/audience validation.</p>
+ * and enforces issuer/audience validation, per trusted issuer (see {@link IssuerRegistry}).</p>
+ *
+ * <p>Servlet mode; {@link ReactiveSecurityConfig} is its WebFlux counterpart.</p>
  */
 @Configuration
 @EnableConfigurationProperties(AuthProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final AuthProperties authProperties;
-    private final RedisCachingJwkSource jwkSource;
+    private final IssuerRegistry issuerRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final AuthoritiesMapper authoritiesMapper;
     private final AuditingAuthenticationEntryPoint entryPoint;
     private final AuditingAccessDeniedHandler accessDeniedHandler;
     private final SuccessfulAuthAuditFilter successfulAuthAuditFilter;
 
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder, Clock clock,
+                                           MeterRegistry meterRegistry, AuthAuditService auditService)
+            throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .exceptionHandling(ex -> ex
@@ -59,7 +66,7 @@ public class SecurityConfig {
                 .requestMatchers("/.well-known/**").permitAll()
                 .requestMatchers("/oauth2/jwks").permitAll()
                 .requestMatchers("/api/demo/**").permitAll()
-                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/health/**").permitAll()
 
                 // admin
                 .requestMatchers(HttpMethod.POST, "/api/admin/**").hasRole("ADMIN")
@@ -74,7 +81,12 @@ public class SecurityConfig {
                 )
             );
 
-        http.addFilterBefore(new CorrelationIdFilter(), BasicAuthenticationFilter.class);
+        // correlation id first, so that pre-check and bearer token rejections carry it too
+        http.addFilterBefore(new CorrelationIdFilter(), SecurityContextHolderFilter.class);
+        if (authProperties.getPrecheck().isEnabled()) {
+            http.addFilterBefore(new BearerTokenPrecheckFilter(authProperties.getPrecheck(), clock, meterRegistry,
+                    auditService), BearerTokenAuthenticationFilter.class);
+        }
         http.addFilterAfter(successfulAuthAuditFilter, BearerTokenAuthenticationFilter.class);
 
         return http.build();
@@ -82,26 +94,13 @@ public class SecurityConfig {
 
     @Bean
     JwtDecoder jwtDecoder() {
-        URI jwksUri = URI.create(authProperties.getJwksUri());
-        jwkSource.configure(
-                jwksUri,
-                authProperties.getJwksCache().getRedisKey(),
-                authProperties.getJwksCache().getTtl(),
-                Duration.ofSeconds(2)
-        );
-
-        JWKSource<SecurityContext> source = jwkSource;
-        NimbusJwtDecoder decoder = new NimbusJwtDecoder(source);
-        decoder.setJwtValidator(JwtValidatorsFactory.issuerAndAudience(
-                authProperties.getIssuer(),
-                authProperties.getAudience()
-        ));
-        return decoder;
+        return new MultiIssuerJwtDecoder(issuerRegistry, verifiedTokenCache);
     }
 
-    private JwtAuthenticationConverter jwtAuthenticationConverter() {
+    @Bean
+    JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(authoritiesMapper);
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> verifiedTokenCache.authorities(jwt, authoritiesMapper));
         converter.setPrincipalClaimName("sub");
         return converter;
     }
@@ -8,6 +8,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.springframework.stereotype.Component;
 
@@ -21,32 +22,47 @@ import lombok.extern.slf4j.Slf4j;
  * In-app demo issuer key store used only in {@code demo-issuer} profile.
  *
  * <p>It maintains a list of RSA keys (current + previous) to simulate rotation.</p>
+ *
+ * <p>The list is an immutable copy swapped on rotation, so readers never lock. Rotations are serialized by a
+ * {@link ReentrantLock} and the RSA key is generated before taking it: no monitor is held across slow work,
+ * which would pin the carrier thread of a virtual thread.</p>
  */
 @Slf4j
 @Component
 public class DemoIssuerKeys {
 
+    /** Newest first; replaced as a whole, never mutated. */
     @Getter
-    private final List<RSAKey> keys = new ArrayList<>();
+    private volatile List<RSAKey> keys = List.of();
+
+    private final ReentrantLock rotation = new ReentrantLock();
 
     public DemoIssuerKeys() {
         rotate();
     }
 
-    public synchronized RSAKey current() {
+    public RSAKey current() {
         return keys.get(0);
     }
 
-    public synchronized void rotate() {
-        keys.add(0, newRsaKey());
-        // keep last 3 keys for demo purposes
-        while (keys.size() > 3) {
-            keys.remove(keys.size() - 1);
+    public void rotate() {
+        RSAKey key = newRsaKey();
+        rotation.lock();
+        try {
+            List<RSAKey> next = new ArrayList<>(keys);
+            next.add(0, key);
+            // keep last 3 keys for demo purposes
+            while (next.size() > 3) {
+                next.remove(next.size() - 1);
+            }
+            keys = List.copyOf(next);
+        } finally {
+            rotation.unlock();
         }
-        log.info("Demo issuer rotated keys. Current kid={}", keys.get(0).getKeyID());
+        log.info("Demo issuer rotated keys. Current kid={}", key.getKeyID());
     }
 
-    public synchronized JWKSet jwkSet() {
+    public JWKSet jwkSet() {
         return new JWKSet(new ArrayList<>(keys));
     }
 
@@ -7,13 +7,25 @@ import com.nimbusds.jose.jwk.JWKSet;
 import lombok.Value;
 
 /**
- * Holds a JWKS with an expiration timestamp (local in-memory cache).
+ * Holds a JWKS snapshot with an expiration timestamp (local in-memory cache).
  */
 @Value
 public class CachedJwkSet {
-    JWKSet jwkSet;
+    JwkSnapshot snapshot;
+    Instant refreshAt;
     Instant expiresAt;
 
+    public JWKSet getJwkSet() {
+        return snapshot.getJwkSet();
+    }
+
+    /**
+     * Whether a background refresh-ahead should start.
+     */
+    public boolean isRefreshDue(Instant now) {
+        return !now.isBefore(refreshAt);
+    }
+
     public boolean isExpired(Instant now) {
         return now.isAfter(expiresAt);
     }
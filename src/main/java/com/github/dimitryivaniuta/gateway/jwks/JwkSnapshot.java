@@ -0,0 +1,193 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable, {@code kid}-indexed view of a JWKS with public keys and verifiers already built.
+ *
+ * <p>Key conversion happens once per JWKS content: {@link #of(JWKSet, JwkSnapshot)} returns the previous
+ * snapshot unchanged when the content hash matches, so re-reading the same JWKS from Redis or the IdP
+ * costs one hash.</p>
+ *
+ * <p>A JWKS may publish several keys under one {@code kid} (e.g. an RSA and an EC key); all of them are indexed
+ * and {@link #keys} picks those accepting the token's algorithm, as Nimbus' {@code JWKMatcher} would.</p>
+ */
+@Slf4j
+public final class JwkSnapshot {
+
+    /**
+     * A verification key ready for use.
+     *
+     * @param kid       key id, may be {@code null}
+     * @param algorithm algorithm pinned by the JWK ({@code alg}), or {@code null} for any of its family
+     * @param publicKey converted public key
+     * @param verifier  verifier for {@code publicKey}; thread-safe
+     * @param keys      {@code publicKey} as a pre-built singleton list, as returned to key selectors
+     */
+    public record Entry(String kid, JWSAlgorithm algorithm, PublicKey publicKey, JWSVerifier verifier,
+                        List<PublicKey> keys) {
+
+        /**
+         * Whether this key may verify a signature made with {@code alg}.
+         */
+        public boolean accepts(JWSAlgorithm alg) {
+            return (algorithm == null || algorithm.equals(alg)) && verifier.supportedJWSAlgorithms().contains(alg);
+        }
+    }
+
+    static final JwkSnapshot EMPTY = new JwkSnapshot(new JWKSet(), "");
+
+    @Getter
+    private final JWKSet jwkSet;
+    @Getter
+    private final String contentHash;
+    private final Map<String, List<Entry>> byKid;
+    private final List<Entry> entries;
+    private final Map<PublicKey, JWSVerifier> verifiers;
+
+    private JwkSnapshot(JWKSet jwkSet, String contentHash) {
+        this.jwkSet = jwkSet;
+        this.contentHash = contentHash;
+
+        Map<String, List<Entry>> index = new HashMap<>();
+        List<Entry> all = new ArrayList<>();
+        Map<PublicKey, JWSVerifier> byKey = new IdentityHashMap<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            Entry entry = toEntry(jwk);
+            if (entry == null) {
+                continue;
+            }
+            all.add(entry);
+            byKey.put(entry.publicKey(), entry.verifier());
+            if (entry.kid() != null) {
+                index.computeIfAbsent(entry.kid(), kid -> new ArrayList<>(1)).add(entry);
+            }
+        }
+        index.replaceAll((kid, sameKid) -> List.copyOf(sameKid));
+        this.byKid = Map.copyOf(index);
+        this.entries = List.copyOf(all);
+        this.verifiers = byKey;
+    }
+
+    /**
+     * Builds a snapshot for {@code jwkSet}, or returns {@code previous} if its content is identical.
+     */
+    public static JwkSnapshot of(JWKSet jwkSet, JwkSnapshot previous) {
+        if (previous != null && previous.jwkSet == jwkSet) {
+            // e.g. a 304 Not Modified handing back the already parsed instance
+            return previous;
+        }
+        String hash = contentHash(jwkSet);
+        if (previous != null && previous.contentHash.equals(hash)) {
+            return previous;
+        }
+        return new JwkSnapshot(jwkSet, hash);
+    }
+
+    /**
+     * Keys that may verify a token with header {@code kid}/{@code alg}; O(1) when the token has a {@code kid}.
+     */
+    public List<PublicKey> keys(String kid, JWSAlgorithm alg) {
+        if (kid != null) {
+            List<Entry> sameKid = byKid.get(kid);
+            if (sameKid == null) {
+                return List.of();
+            }
+            if (sameKid.size() == 1) {
+                Entry entry = sameKid.get(0);
+                return entry.accepts(alg) ? entry.keys() : List.of();
+            }
+            return accepting(sameKid, alg);
+        }
+        return accepting(entries, alg);
+    }
+
+    private static List<PublicKey> accepting(List<Entry> candidates, JWSAlgorithm alg) {
+        List<PublicKey> matching = new ArrayList<>(1);
+        for (Entry entry : candidates) {
+            if (entry.accepts(alg)) {
+                matching.add(entry.publicKey());
+            }
+        }
+        return matching;
+    }
+
+    public boolean contains(String kid) {
+        return byKid.containsKey(kid);
+    }
+
+    /**
+     * Pre-built verifier for a key returned by {@link #keys}, or {@code null} if it is not from this snapshot.
+     */
+    public JWSVerifier verifier(PublicKey key) {
+        return verifiers.get(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static Entry toEntry(JWK jwk) {
+        if (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+            return null;
+        }
+        JWSAlgorithm alg = jwk.getAlgorithm() == null ? null : JWSAlgorithm.parse(jwk.getAlgorithm().getName());
+        try {
+            PublicKey key;
+            JWSVerifier verifier;
+            if (jwk instanceof RSAKey rsa) {
+                RSAPublicKey rsaKey = rsa.toRSAPublicKey();
+                key = rsaKey;
+                verifier = new RSASSAVerifier(rsaKey);
+            } else if (jwk instanceof ECKey ec) {
+                ECPublicKey ecKey = ec.toECPublicKey();
+                key = ecKey;
+                verifier = new ECDSAVerifier(ecKey);
+            } else {
+                return null;
+            }
+            return new Entry(jwk.getKeyID(), alg, key, verifier, List.of(key));
+        } catch (JOSEException e) {
+            log.warn("Skipping unusable JWK kid={}: {}", jwk.getKeyID(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * SHA-256 (hex) of the public JSON form of {@code jwkSet}; equal for equal JWKS content.
+     */
+    public static String contentHash(JWKSet jwkSet) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] json = jwkSet.toString(true).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(sha256.digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
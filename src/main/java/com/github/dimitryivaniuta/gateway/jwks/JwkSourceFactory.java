@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Creates one {@link RedisCachingJwkSource} per trusted issuer.
+ *
+ * <p>Sources share the Redis cache service and HTTP client. The {@link UnknownKidGuard} of a tenant outlives
+ * its source, so releasing an idle decoder does not reset the negative cache or the refresh budget.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class JwkSourceFactory {
+
+    private final AuthProperties authProperties;
+    private final JwksCacheService cacheService;
+    private final RemoteJwksFetcher remoteFetcher;
+    private final JwksSnapshotStore snapshotStore;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, UnknownKidGuard> guards = new ConcurrentHashMap<>();
+
+    /**
+     * @param tenant   tenant id, used as the {@code tenant} meter tag
+     * @param jwksUri  remote JWKS, resolved again before every fetch
+     * @param redisKey shared cache key of this tenant
+     * @return a configured source, seeded from the on-disk snapshot if there is a usable one
+     */
+    public RedisCachingJwkSource create(String tenant, Supplier<URI> jwksUri, String redisKey) {
+        Tags tags = Tags.of("tenant", tenant);
+        UnknownKidGuard guard = guards.computeIfAbsent(tenant, t -> new UnknownKidGuard(
+                authProperties.getJwksCache().getUnknownKid(), meterRegistry, tags));
+        RedisCachingJwkSource source = new RedisCachingJwkSource(cacheService, remoteFetcher, guard, snapshotStore,
+                meterRegistry, tags);
+        source.configure(jwksUri, redisKey, authProperties.getJwksCache());
+        source.loadSnapshot();
+        return source;
+    }
+
+    /**
+     * A source serving {@code keys} from memory only, for the validation warm-up. It shares no Redis key,
+     * unknown-{@code kid} budget or snapshot file with the tenant's real source, and its meters go to
+     * {@code scratchRegistry} so synthetic lookups stay out of the exported metrics.
+     */
+    public RedisCachingJwkSource scratch(String tenant, JWKSet keys, Duration lifetime,
+                                         MeterRegistry scratchRegistry) {
+        Tags tags = Tags.of("tenant", tenant);
+        RedisCachingJwkSource source = new RedisCachingJwkSource(cacheService, remoteFetcher,
+                new UnknownKidGuard(authProperties.getJwksCache().getUnknownKid(), scratchRegistry, tags),
+                snapshotStore, scratchRegistry, tags);
+        source.configure(URI.create("urn:warmup:" + tenant), "warmup:" + tenant, authProperties.getJwksCache());
+        source.seed(keys, lifetime);
+        return source;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Receives JWKS change notifications (content hashes) and hands them to the subscribing tenant's
+ * {@link RedisCachingJwkSource}.
+ */
+@RequiredArgsConstructor
+public class JwksBroadcastListener implements MessageListener {
+
+    private final Consumer<String> onJwksChanged;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        onJwksChanged.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
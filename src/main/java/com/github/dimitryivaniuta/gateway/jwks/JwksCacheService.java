@@ -1,16 +1,33 @@
 package com.github.dimitryivaniuta.gateway.jwks;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
 
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.util.JSONObjectUtils;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -18,15 +35,53 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>We store serialized JWKS JSON under a single Redis key to share cache across instances.
  * TTL is managed by Redis and mirrored in-memory for fast access.</p>
+ *
+ * <p>Next to the payload, {@code <redisKey>:version} holds its {@link JwkSnapshot#contentHash}, so an instance
+ * whose local copy expired can check a few bytes instead of downloading and parsing the JWKS again. With
+ * {@code auth.jwksCache.compressPayload} the payload is stored as {@code gz:} + base64(gzip(json)); both forms
+ * are readable.</p>
+ *
+ * <p>Reads are timed as {@code auth.jwks.redis.read}, tagged with the key read ({@code payload} or
+ * {@code version}) and the outcome ({@code hit}, {@code miss} or {@code error}).</p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class JwksCacheService {
 
+    static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> FENCED_PUT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[3]) ~= ARGV[4] then return 0 end "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[3]) "
+                    + "redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3]) "
+                    + "return 1",
+            Long.class);
+    private static final long LOCK_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final String GZIP_PREFIX = "gz:";
+
     private final StringRedisTemplate redis;
+    private final AuthProperties authProperties;
     private final Clock clock = Clock.systemUTC();
 
+    private final Timer payloadHit;
+    private final Timer payloadMiss;
+    private final Timer payloadError;
+    private final Timer versionHit;
+    private final Timer versionMiss;
+    private final Timer versionError;
+
+    public JwksCacheService(StringRedisTemplate redis, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.authProperties = authProperties;
+        this.payloadHit = reads(meterRegistry, "payload", "hit");
+        this.payloadMiss = reads(meterRegistry, "payload", "miss");
+        this.payloadError = reads(meterRegistry, "payload", "error");
+        this.versionHit = reads(meterRegistry, "version", "hit");
+        this.versionMiss = reads(meterRegistry, "version", "miss");
+        this.versionError = reads(meterRegistry, "version", "error");
+    }
+
     /**
      * Reads JWKS JSON from Redis (if present) and parses it.
      *
@@ -34,12 +89,28 @@ public class JwksCacheService {
      * @return optional JWKSet
      */
     public Optional<JWKSet> get(String redisKey) {
-        String json = redis.opsForValue().get(redisKey);
-        if (json == null || json.isBlank()) {
+        long start = System.nanoTime();
+        Timer outcome = payloadError;
+        try {
+            Optional<JWKSet> jwkSet = parse(redisKey, redis.opsForValue().get(redisKey));
+            outcome = jwkSet.isPresent() ? payloadHit : payloadMiss;
+            return jwkSet;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Parses a payload as stored by {@link #put}, plain or compressed.
+     *
+     * @return empty if {@code payload} is missing or unreadable
+     */
+    Optional<JWKSet> parse(String redisKey, String payload) {
+        if (payload == null || payload.isBlank()) {
             return Optional.empty();
         }
         try {
-            return Optional.of(JWKSet.parse(JSONObjectUtils.parse(json)));
+            return Optional.of(JWKSet.parse(JSONObjectUtils.parse(decode(payload))));
         } catch (Exception e) {
             log.warn("Failed to parse cached JWKS from Redis key={}: {}", redisKey, e.getMessage());
             return Optional.empty();
@@ -47,7 +118,25 @@ public class JwksCacheService {
     }
 
     /**
-     * Writes JWKS JSON to Redis with TTL.
+     * Reads the content hash of the cached JWKS without transferring the payload.
+     *
+     * @return empty if absent (e.g. an entry written before versioning) or Redis is unreachable
+     */
+    public Optional<String> version(String redisKey) {
+        long start = System.nanoTime();
+        try {
+            String version = redis.opsForValue().get(versionKey(redisKey));
+            (version == null ? versionMiss : versionHit).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.ofNullable(version);
+        } catch (Exception e) {
+            versionError.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("Failed to read JWKS version from Redis key={}: {}", redisKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes JWKS JSON and its version to Redis with TTL and announces the version on {@link #updatesChannel}.
      *
      * @param redisKey cache key
      * @param jwkSet parsed set
@@ -56,13 +145,170 @@ public class JwksCacheService {
     public void put(String redisKey, JWKSet jwkSet, long ttlSeconds) {
         try {
             String json = JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true));
-            redis.opsForValue().set(redisKey, json, java.time.Duration.ofSeconds(ttlSeconds));
+            String version = JwkSnapshot.contentHash(jwkSet);
+            Duration ttl = Duration.ofSeconds(ttlSeconds);
+            // payload first: a reader that sees the new version never pairs it with the old payload
+            redis.opsForValue().set(redisKey, payload(json), ttl);
+            redis.opsForValue().set(versionKey(redisKey), version, ttl);
+            redis.convertAndSend(updatesChannel(redisKey), version);
         } catch (Exception e) {
             log.warn("Failed to cache JWKS to Redis key={}: {}", redisKey, e.getMessage());
         }
     }
 
+    /**
+     * Like {@link #put}, but the write only happens while {@code fenceKey} still holds {@code fence}, checked
+     * atomically in Redis. A refresh leader that was paused past its lease cannot overwrite its successor.
+     *
+     * @return {@code false} if fenced off or the write failed
+     */
+    public boolean putFenced(String redisKey, JWKSet jwkSet, long ttlSeconds, String fenceKey, long fence) {
+        try {
+            String json = JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true));
+            String version = JwkSnapshot.contentHash(jwkSet);
+            Long written = redis.execute(FENCED_PUT, List.of(redisKey, versionKey(redisKey), fenceKey),
+                    payload(json), version, String.valueOf(ttlSeconds), String.valueOf(fence));
+            if (written == null || written != 1L) {
+                return false;
+            }
+            redis.convertAndSend(updatesChannel(redisKey), version);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to cache JWKS to Redis key={}: {}", redisKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Extends the TTL of an unchanged cached JWKS without rewriting or announcing it.
+     *
+     * @return {@code false} if the key no longer exists (or Redis is unreachable) and must be written again
+     */
+    public boolean touch(String redisKey, long ttlSeconds) {
+        try {
+            Duration ttl = Duration.ofSeconds(ttlSeconds);
+            return Boolean.TRUE.equals(redis.expire(redisKey, ttl))
+                    && Boolean.TRUE.equals(redis.expire(versionKey(redisKey), ttl));
+        } catch (Exception e) {
+            log.warn("Failed to extend TTL of Redis key={}: {}", redisKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remaining Redis TTL of {@code redisKey}, empty if the key is missing, has no TTL or Redis is unreachable.
+     */
+    public Optional<Duration> remainingTtl(String redisKey) {
+        try {
+            Long millis = redis.getExpire(redisKey, TimeUnit.MILLISECONDS);
+            return millis == null || millis <= 0 ? Optional.empty() : Optional.of(Duration.ofMillis(millis));
+        } catch (Exception e) {
+            log.warn("Failed to read TTL of Redis key={}: {}", redisKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Payload stored for {@code jwkSet} by {@link #put}.
+     */
+    String encode(JWKSet jwkSet) throws IOException {
+        return payload(JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true)));
+    }
+
+    private String payload(String json) throws IOException {
+        return authProperties.getJwksCache().isCompressPayload() ? gzip(json) : json;
+    }
+
+    static String versionKey(String redisKey) {
+        return redisKey + ":version";
+    }
+
+    static String gzip(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 3);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return GZIP_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    static String decode(String payload) throws IOException {
+        if (!payload.startsWith(GZIP_PREFIX)) {
+            return payload;
+        }
+        byte[] compressed = Base64.getDecoder().decode(payload.substring(GZIP_PREFIX.length()));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Pub/sub channel carrying the content hash of every JWKS written under {@code redisKey}.
+     */
+    public static String updatesChannel(String redisKey) {
+        return redisKey + ":updates";
+    }
+
+    /**
+     * Acquires a short-lived cluster-wide lock ({@code SET NX PX}).
+     *
+     * @param lockKey lock key
+     * @param token unique owner token, required to release
+     * @param ttl lock expiry, so a crashed owner cannot block others for longer
+     * @return {@code true} if acquired
+     */
+    public boolean tryLock(String lockKey, String token, Duration ttl) {
+        try {
+            return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(lockKey, token, ttl));
+        } catch (Exception e) {
+            log.warn("Failed to acquire Redis lock key={}: {}", lockKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lock acquired with {@link #tryLock}, only if still owned by {@code token}.
+     */
+    public void unlock(String lockKey, String token) {
+        try {
+            redis.execute(UNLOCK, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("Failed to release Redis lock key={}: {}", lockKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until {@code lockKey} is released by its owner.
+     *
+     * @return {@code true} if released within {@code timeout}
+     */
+    public boolean awaitUnlock(String lockKey, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (Boolean.TRUE.equals(redis.hasKey(lockKey))) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                LockSupport.parkNanos(LOCK_POLL_NANOS);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to poll Redis lock key={}: {}", lockKey, e.getMessage());
+            return false;
+        }
+    }
+
     public Instant now() {
         return clock.instant();
     }
+
+    private static Timer reads(MeterRegistry meterRegistry, String key, String outcome) {
+        return Timer.builder("auth.jwks.redis.read")
+                .description("Redis reads of the shared JWKS entry")
+                .tag("key", key)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.of(50, ChronoUnit.MICROS))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,125 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Redis lease electing the single instance that runs the periodic JWKS refresh.
+ *
+ * <p>{@code <redisKey>:refresh-leader} holds the owner id with a TTL of {@code auth.jwksCache.leaderLeaseTtl}.
+ * Every acquisition increments {@code <redisKey>:refresh-fence}; the leader writes with that fencing token
+ * ({@link JwksCacheService#putFenced}), so a leader that stalled past its lease is rejected instead of
+ * overwriting a newer one. Leadership is also considered lost locally once the lease may have lapsed.</p>
+ */
+@Slf4j
+@Component
+public class JwksRefreshLease {
+
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "local holder = redis.call('get', KEYS[1]) "
+                    + "if holder == ARGV[1] then "
+                    + "  redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "  return tonumber(redis.call('get', KEYS[2])) "
+                    + "end "
+                    + "if holder then return 0 end "
+                    + "local fence = redis.call('incr', KEYS[2]) "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "return fence",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+    private final String leaseKey;
+    private final String fenceKey;
+    private final long ttlMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile long fence;
+    private volatile long validUntilNanos;
+
+    public JwksRefreshLease(StringRedisTemplate redis, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        String redisKey = authProperties.getJwksCache().getRedisKey();
+        this.leaseKey = redisKey + ":refresh-leader";
+        this.fenceKey = redisKey + ":refresh-fence";
+        this.ttlMillis = authProperties.getJwksCache().getLeaderLeaseTtl().toMillis();
+
+        Gauge.builder("auth.jwks.refresh.leader", this, lease -> lease.isLeader() ? 1 : 0)
+                .description("1 while this instance holds the JWKS refresh lease")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acquires the lease if free, or extends it if already held.
+     *
+     * @return {@code true} if this instance is the leader afterwards
+     */
+    public boolean acquireOrRenew() {
+        long started = System.nanoTime();
+        long acquired;
+        try {
+            Long result = redis.execute(ACQUIRE, List.of(leaseKey, fenceKey), owner, String.valueOf(ttlMillis));
+            acquired = result == null ? 0 : result;
+        } catch (Exception e) {
+            // keep the current state: it lapses on its own if Redis stays unreachable
+            log.warn("Failed to renew JWKS refresh lease: {}", e.getMessage());
+            return isLeader();
+        }
+        if (acquired > 0) {
+            if (acquired != fence) {
+                log.info("Became JWKS refresh leader (fence={})", acquired);
+            }
+            fence = acquired;
+            validUntilNanos = started + ttlMillis * 1_000_000;
+            return true;
+        }
+        if (fence != 0) {
+            log.info("Lost JWKS refresh leadership (fence={})", fence);
+            fence = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Whether this instance holds a lease that cannot have expired yet.
+     */
+    public boolean isLeader() {
+        return fence != 0 && System.nanoTime() - validUntilNanos < 0;
+    }
+
+    /**
+     * Fencing token of the current lease; {@code 0} if not the leader.
+     */
+    public long fence() {
+        return fence;
+    }
+
+    public String fenceKey() {
+        return fenceKey;
+    }
+
+    /**
+     * Gives the lease up (on shutdown) so another instance can take over without waiting for it to expire.
+     */
+    public void release() {
+        fence = 0;
+        try {
+            redis.execute(RELEASE, List.of(leaseKey), owner);
+        } catch (Exception e) {
+            log.warn("Failed to release JWKS refresh lease: {}", e.getMessage());
+        }
+    }
+}
@@ -2,45 +2,155 @@ package com.github.dimitryivaniuta.gateway.jwks;
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
 
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import com.nimbusds.jose.jwk.JWKSet;
-
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Periodic JWKS refresh.
+ * Periodic JWKS refresh of every trusted issuer, run by a single leader instance.
  *
  * <p>Even though unknown {@code kid} triggers a refresh, a scheduled refresh reduces the window
- * where instances might rely on an older cache entry.</p>
+ * where instances might rely on an older cache entry. Only the holder of the {@link JwksRefreshLease} polls
+ * the IdP and writes to Redis; the other instances pick the entry up from Redis, so IdP load does not grow
+ * with the fleet. Each period is jittered by {@code auth.jwksCache.refreshJitter}. The entry's TTL follows the
+ * same rule as an on-demand fetch, including {@code ttlFromCacheControl}.</p>
+ *
+ * <p>The lease heartbeat and the refresh run on their own threads, not on the application's shared
+ * {@code TaskScheduler}: audit jobs or a slow IdP must not delay a renewal past the lease TTL, which would hand
+ * leadership to another instance mid-refresh. Like the rest of the application they are virtual threads when
+ * {@code spring.threads.virtual.enabled} is set, platform daemon threads otherwise.</p>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwksRefresher {
 
     private final AuthProperties authProperties;
+    private final IssuerRegistry issuerRegistry;
     private final RemoteJwksFetcher fetcher;
     private final JwksCacheService cacheService;
+    private final JwksRefreshLease lease;
+
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final ScheduledExecutorService refreshScheduler;
+
+    private volatile boolean running;
+    private volatile ScheduledFuture<?> heartbeat;
+    private volatile ScheduledFuture<?> next;
+
+    public JwksRefresher(AuthProperties authProperties, IssuerRegistry issuerRegistry, RemoteJwksFetcher fetcher,
+                         JwksCacheService cacheService, JwksRefreshLease lease, Environment environment) {
+        this.authProperties = authProperties;
+        this.issuerRegistry = issuerRegistry;
+        this.fetcher = fetcher;
+        this.cacheService = cacheService;
+        this.lease = lease;
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("jwks-lease", virtual));
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("jwks-refresh", virtual));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        long renewMillis = authProperties.getJwksCache().getLeaderLeaseTtl().dividedBy(3).toMillis();
+        // acquireOrRenew never throws, which would silently end the periodic task
+        heartbeat = heartbeatScheduler.scheduleWithFixedDelay(lease::acquireOrRenew, 0, renewMillis,
+                TimeUnit.MILLISECONDS);
+        scheduleNext();
+    }
 
-    @Scheduled(fixedDelayString = "${auth.jwksCache.refreshDelayMillis:300000}")
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        if (next != null) {
+            next.cancel(false);
+        }
+        heartbeatScheduler.shutdownNow();
+        refreshScheduler.shutdownNow();
+        lease.release();
+    }
+
+    /**
+     * Refreshes every tenant if this instance is the leader.
+     */
     public void refresh() {
+        if (!lease.isLeader()) {
+            log.debug("Scheduled JWKS refresh skipped: not the leader");
+            return;
+        }
+        long fence = lease.fence();
+        for (TrustedIssuer tenant : issuerRegistry.tenants()) {
+            refresh(tenant, fence);
+        }
+    }
+
+    private void tick() {
         try {
-            URI uri = URI.create(authProperties.getJwksUri());
-            JWKSet jwkSet = fetcher.fetch(uri, Duration.ofSeconds(2));
-            cacheService.put(
-                    authProperties.getJwksCache().getRedisKey(),
-                    jwkSet,
-                    Math.max(30, authProperties.getJwksCache().getTtl().toSeconds())
-            );
-            log.debug("Scheduled JWKS refresh: keys={}", jwkSet.getKeys().size());
+            refresh();
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        if (running) {
+            AuthProperties.JwksCache settings = authProperties.getJwksCache();
+            Duration delay = jittered(Duration.ofMillis(settings.getRefreshDelayMillis()), settings.getRefreshJitter(),
+                    ThreadLocalRandom.current().nextDouble());
+            next = refreshScheduler.schedule(this::tick, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh(TrustedIssuer tenant, long fence) {
+        AuthProperties.JwksCache settings = authProperties.getJwksCache();
+        try {
+            URI uri = issuerRegistry.jwksUri(tenant);
+            RemoteJwksFetcher.FetchResult result = fetcher.fetchConditional(uri, settings.getFetchTimeout());
+            long ttlSeconds = RedisCachingJwkSource.lifetimeOf(result.maxAge(), settings).toSeconds();
+            if (result.notModified() && cacheService.touch(tenant.redisKey(), ttlSeconds)) {
+                log.debug("Scheduled JWKS refresh ({}): not modified", tenant.id());
+                return;
+            }
+            if (!cacheService.putFenced(tenant.redisKey(), result.jwkSet(), ttlSeconds, lease.fenceKey(), fence)) {
+                log.warn("Scheduled JWKS refresh ({}) not stored: lease lost or Redis unavailable", tenant.id());
+                return;
+            }
+            log.debug("Scheduled JWKS refresh ({}): keys={}", tenant.id(), result.jwkSet().getKeys().size());
         } catch (Exception e) {
-            log.warn("Scheduled JWKS refresh failed: {}", e.getMessage());
+            log.warn("Scheduled JWKS refresh ({}) failed: {}", tenant.id(), e.getMessage());
         }
     }
+
+    /**
+     * {@code period} spread uniformly by +/-{@code jitter}.
+     *
+     * @param random uniform sample in {@code [0, 1)}
+     */
+    static Duration jittered(Duration period, double jitter, double random) {
+        double factor = 1 + jitter * (2 * random - 1);
+        return Duration.ofMillis(Math.max(1, Math.round(period.toMillis() * factor)));
+    }
+
+    private static ThreadFactory threadFactory(String name, boolean virtual) {
+        return virtual ? Thread.ofVirtual().name(name).factory() : Thread.ofPlatform().name(name).daemon().factory();
+    }
 }
@@ -0,0 +1,174 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.util.JSONObjectUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Last known good JWKS per issuer on local disk ({@code auth.jwksCache.snapshot}).
+ *
+ * <p>A file is {@code magic | version | length | crc32c | public JWKS JSON}. It is written to a temporary
+ * file, forced to disk and atomically moved into place, so a reader sees either the old or the new snapshot.
+ * Reads memory-map the file and reject it on a checksum mismatch. The file modification time records when
+ * Redis or the IdP last confirmed the content; snapshots older than {@code maxAge} are ignored.</p>
+ */
+@Slf4j
+@Component
+public class JwksSnapshotStore {
+
+    private static final int MAGIC = 0x4A574B53; // "JWKS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * A snapshot read from disk.
+     *
+     * @param age time since the content was last confirmed
+     */
+    public record Loaded(JWKSet jwkSet, Duration age) {
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    public JwksSnapshotStore(AuthProperties authProperties, Clock clock) {
+        AuthProperties.Snapshot settings = authProperties.getJwksCache().getSnapshot();
+        this.enabled = settings.isEnabled();
+        this.dir = Path.of(settings.getDir());
+        this.maxAge = settings.getMaxAge();
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Atomically replaces the snapshot of {@code redisKey}. Failures are logged, never thrown.
+     */
+    public void save(String redisKey, JWKSet jwkSet) {
+        if (!enabled) {
+            return;
+        }
+        Path target = file(redisKey);
+        Path tmp = null;
+        try {
+            byte[] json = JSONObjectUtils.toJSONString(jwkSet.toJSONObject(true)).getBytes(StandardCharsets.UTF_8);
+            CRC32C crc = new CRC32C();
+            crc.update(json);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(json.length)
+                    .putInt((int) crc.getValue())
+                    .flip();
+
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(json)};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(target, FileTime.from(clock.instant()));
+            log.debug("JWKS snapshot written to {}", target);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write JWKS snapshot {}: {}", target, e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // best effort
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the snapshot of {@code redisKey} was confirmed unchanged by Redis or the IdP.
+     */
+    public void touch(String redisKey) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(file(redisKey), FileTime.from(clock.instant()));
+        } catch (NoSuchFileException e) {
+            // written on the next change
+        } catch (IOException e) {
+            log.warn("Failed to touch JWKS snapshot for {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    /**
+     * @return empty if disabled, missing, older than {@code maxAge}, truncated or corrupt
+     */
+    public Optional<Loaded> load(String redisKey) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path path = file(redisKey);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Duration age = Duration.between(Files.getLastModifiedTime(path).toInstant(), clock.instant());
+            if (age.compareTo(maxAge) > 0) {
+                log.info("Ignoring JWKS snapshot {}: last confirmed {} ago", path, age);
+                return Optional.empty();
+            }
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("truncated");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION) {
+                throw new IOException("unknown format");
+            }
+            int length = mapped.getInt();
+            int checksum = mapped.getInt();
+            if (length != size - HEADER_BYTES) {
+                throw new IOException("truncated");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(mapped.slice());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("checksum mismatch");
+            }
+            String json = StandardCharsets.UTF_8.decode(mapped).toString();
+            return Optional.of(new Loaded(JWKSet.parse(JSONObjectUtils.parse(json)), age));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable JWKS snapshot {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    Path file(String redisKey) {
+        return dir.resolve(redisKey.replaceAll("[^A-Za-z0-9._-]", "_") + ".jwks");
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.security.Key;
+import java.util.List;
+import java.util.Set;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+
+/**
+ * {@link JWSKeySelector} that looks keys up by {@code kid} in the current {@link JwkSnapshot} of a
+ * {@link RedisCachingJwkSource}, instead of matching every JWK and converting it per token like
+ * {@link com.nimbusds.jose.proc.JWSVerificationKeySelector}.
+ *
+ * <p>A {@link #cachedOnly} selector never triggers JWKS I/O; it backs the reactive decoder, which loads
+ * missing keys beforehand without blocking.</p>
+ */
+public class KidIndexedJwsKeySelector implements JWSKeySelector<SecurityContext> {
+
+    private final Set<JWSAlgorithm> algorithms;
+    private final RedisCachingJwkSource source;
+    private final boolean cachedOnly;
+
+    public KidIndexedJwsKeySelector(Set<JWSAlgorithm> algorithms, RedisCachingJwkSource source) {
+        this(algorithms, source, false);
+    }
+
+    private KidIndexedJwsKeySelector(Set<JWSAlgorithm> algorithms, RedisCachingJwkSource source, boolean cachedOnly) {
+        this.algorithms = Set.copyOf(algorithms);
+        this.source = source;
+        this.cachedOnly = cachedOnly;
+    }
+
+    /**
+     * Selector answering from the in-memory JWKS of {@code source} only.
+     */
+    public static KidIndexedJwsKeySelector cachedOnly(Set<JWSAlgorithm> algorithms, RedisCachingJwkSource source) {
+        return new KidIndexedJwsKeySelector(algorithms, source, true);
+    }
+
+    @Override
+    public List<? extends Key> selectJWSKeys(JWSHeader header, SecurityContext context) throws KeySourceException {
+        if (!algorithms.contains(header.getAlgorithm())) {
+            return List.of();
+        }
+        return cachedOnly
+                ? source.cachedVerificationKeys(header.getKeyID(), header.getAlgorithm())
+                : source.verificationKeys(header.getKeyID(), header.getAlgorithm());
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.util.JSONObjectUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves an issuer's {@code jwks_uri} from its OpenID Provider metadata
+ * ({@code <issuer>/.well-known/openid-configuration}), cached for {@code auth.discoveryTtl}.
+ *
+ * <p>The metadata {@code issuer} must equal the configured issuer (OIDC Discovery §4.3), otherwise the
+ * document is rejected.</p>
+ */
+@Slf4j
+@Component
+public class OidcDiscoveryClient {
+
+    static final String WELL_KNOWN = "/.well-known/openid-configuration";
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Cache<String, URI> jwksUris;
+
+    public OidcDiscoveryClient(AuthProperties authProperties) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(authProperties.getJwksCache().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.requestTimeout = authProperties.getJwksCache().getFetchTimeout();
+        this.jwksUris = Caffeine.newBuilder()
+                .expireAfterWrite(authProperties.getDiscoveryTtl())
+                .maximumSize(1_000)
+                .build();
+    }
+
+    /**
+     * Returns the JWKS URI advertised by {@code issuer}.
+     *
+     * @throws IllegalStateException if the metadata cannot be fetched or is invalid
+     */
+    public URI jwksUri(String issuer) {
+        return jwksUris.get(issuer, this::discover);
+    }
+
+    private URI discover(String issuer) {
+        URI metadataUri = URI.create(stripTrailingSlash(issuer) + WELL_KNOWN);
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(metadataUri)
+                    .timeout(requestTimeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Unexpected discovery response status " + response.statusCode());
+            }
+            Map<String, Object> metadata = JSONObjectUtils.parse(response.body());
+            String advertisedIssuer = JSONObjectUtils.getString(metadata, "issuer");
+            if (!issuer.equals(advertisedIssuer)) {
+                throw new IllegalStateException("Discovery issuer mismatch: " + advertisedIssuer);
+            }
+            URI jwksUri = JSONObjectUtils.getURI(metadata, "jwks_uri");
+            if (jwksUri == null) {
+                throw new IllegalStateException("Discovery document has no jwks_uri");
+            }
+            log.info("Discovered jwks_uri for issuer {}: {}", issuer, jwksUri);
+            return jwksUri;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during OIDC discovery", e);
+        } catch (IOException | ParseException | RuntimeException e) {
+            log.error("OIDC discovery failed for issuer {}: {}", issuer, e.getMessage());
+            throw new IllegalStateException("OIDC discovery failed for " + issuer, e);
+        }
+    }
+
+    private static String stripTrailingSlash(String issuer) {
+        return issuer.endsWith("/") ? issuer.substring(0, issuer.length() - 1) : issuer;
+    }
+}
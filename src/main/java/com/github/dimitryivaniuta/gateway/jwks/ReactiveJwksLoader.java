@@ -0,0 +1,252 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Non-blocking JWKS loading for the reactive decoder: the I/O that {@link RedisCachingJwkSource} does
+ * synchronously, done with reactive Redis and {@link WebClient}, and the result installed into the source.
+ *
+ * <p>Steady state needs no I/O at all: the source's in-memory entry, its background revalidation and its
+ * stale serving are shared with the servlet path. Only a cold source, an entry past its stale windows or an
+ * unknown {@code kid} lead here, with the same rules: the Redis entry first, a cluster-wide
+ * {@code <redisKey>:lock} around the IdP fetch, forced refreshes limited by the {@link UnknownKidGuard}, one
+ * load in flight per source. Fetches are not conditional; the scheduled refresher keeps doing those.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveJwksLoader {
+
+    private static final Duration LOCK_POLL = Duration.ofMillis(20);
+
+    private final ReactiveStringRedisTemplate redis;
+    private final JwksCacheService cacheService;
+    private final WebClient webClient;
+    private final Map<RedisCachingJwkSource, CompletableFuture<CachedJwkSet>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+    private final Counter failed;
+    private final Timer fetched;
+    private final Timer fetchFailed;
+
+    public ReactiveJwksLoader(ReactiveStringRedisTemplate redis, JwksCacheService cacheService,
+                              WebClient.Builder webClientBuilder, AuthProperties authProperties,
+                              MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.cacheService = cacheService;
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) authProperties.getJwksCache().getConnectTimeout().toMillis())
+                .followRedirect(true);
+        this.webClient = webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+        this.coalesced = Counter.builder("auth.jwks.reactive.loads")
+                .description("Non-blocking JWKS loads by outcome")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+        this.failed = Counter.builder("auth.jwks.reactive.loads")
+                .description("Non-blocking JWKS loads by outcome")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.fetched = RemoteJwksFetcher.fetchTime(meterRegistry, "modified");
+        this.fetchFailed = RemoteJwksFetcher.fetchTime(meterRegistry, "failed");
+    }
+
+    /**
+     * Makes sure {@code source} can answer {@code kid}/{@code alg} from memory, completing at once if it already
+     * can. Errors are not propagated: a failed load backs off, and the decoder then serves what is left in
+     * memory (stale-if-error) or rejects the token.
+     *
+     * @param kid header {@code kid}, may be {@code null}
+     */
+    public Mono<Void> ensure(RedisCachingJwkSource source, String kid, JWSAlgorithm alg) {
+        String guardKey = kid == null ? UnknownKidGuard.NO_KID : kid;
+        long generation = source.generation();
+        CachedJwkSet cached = source.servable();
+        if (cached != null && !cached.getSnapshot().keys(kid, alg).isEmpty()) {
+            source.served(RedisCachingJwkSource.Tier.LOCAL);
+            return Mono.empty();
+        }
+        if (cached != null && source.getUnknownKidGuard().rejectsFast(guardKey)) {
+            return Mono.empty();
+        }
+        boolean forced = cached != null;
+        return load(source, forced)
+                .doOnNext(loaded -> {
+                    if (forced && source.generation() != generation && loaded.getSnapshot().keys(kid, alg).isEmpty()) {
+                        source.getUnknownKidGuard().rememberUnknown(guardKey);
+                    }
+                })
+                .onErrorResume(e -> {
+                    failed.increment();
+                    source.refreshFailed();
+                    log.warn("Non-blocking JWKS load for key={} failed: {}", source.getRedisKey(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Single-flight per source; the load runs to completion even if the request that started it goes away.
+     */
+    private Mono<CachedJwkSet> load(RedisCachingJwkSource source, boolean forced) {
+        CompletableFuture<CachedJwkSet> mine = new CompletableFuture<>();
+        CompletableFuture<CachedJwkSet> existing = inFlight.putIfAbsent(source, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return Mono.fromFuture(existing, true);
+        }
+        Mono<CachedJwkSet> load = forced
+                ? (source.getUnknownKidGuard().permitForcedRefresh()
+                        ? fetchClusterWide(source)
+                        : Mono.justOrEmpty(source.latest()))
+                : fromRedis(source)
+                        .doOnNext(loaded -> source.served(RedisCachingJwkSource.Tier.REDIS))
+                        .switchIfEmpty(Mono.defer(() -> fetchClusterWide(source)
+                                .doOnNext(loaded -> source.served(RedisCachingJwkSource.Tier.REMOTE))));
+        // leave the map before completing, so a caller woken by the result starts a new load instead of joining
+        load.doOnNext(loaded -> inFlight.remove(source, mine))
+                .doOnTerminate(() -> inFlight.remove(source, mine))
+                .subscribe(mine::complete, mine::completeExceptionally, () -> mine.complete(null));
+        return Mono.fromFuture(mine, true);
+    }
+
+    /**
+     * The shared Redis entry, reusing the local snapshot when only the version key needs to be read.
+     */
+    private Mono<CachedJwkSet> fromRedis(RedisCachingJwkSource source) {
+        String redisKey = source.getRedisKey();
+        CachedJwkSet previous = source.latest();
+        Mono<CachedJwkSet> versionHit = previous == null ? Mono.empty()
+                : redis.opsForValue().get(JwksCacheService.versionKey(redisKey))
+                        .filter(version -> version.equals(previous.getSnapshot().getContentHash()))
+                        .map(version -> source.install(previous.getJwkSet(), source.getTtl()));
+        return versionHit.switchIfEmpty(Mono.defer(() -> redis.opsForValue().get(redisKey)
+                        .flatMap(payload -> Mono.justOrEmpty(cacheService.parse(redisKey, payload)))
+                        .map(jwkSet -> source.install(jwkSet, source.getTtl()))))
+                .onErrorResume(e -> {
+                    log.warn("Failed to read JWKS from Redis key={}: {}", redisKey, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<CachedJwkSet> fetchClusterWide(RedisCachingJwkSource source) {
+        String lockKey = source.getRedisKey() + ":lock";
+        String token = UUID.randomUUID().toString();
+        Duration lockTtl = source.getRefreshLockTtl();
+        return redis.opsForValue().setIfAbsent(lockKey, token, lockTtl)
+                .onErrorReturn(false)
+                .flatMap(acquired -> acquired
+                        ? fetchAndStore(source).doFinally(signal -> unlock(lockKey, token))
+                        // another instance is fetching: wait for it, then take its result from Redis
+                        : awaitUnlock(lockKey, lockTtl)
+                                .then(fromRedis(source))
+                                .switchIfEmpty(Mono.defer(() -> fetchAndStore(source))));
+    }
+
+    private Mono<CachedJwkSet> fetchAndStore(RedisCachingJwkSource source) {
+        return download(source)
+                .flatMap(response -> {
+                    JWKSet jwkSet = parse(response.getBody());
+                    Duration lifetime = source.lifetimeOf(RemoteJwksFetcher.maxAge(jdkHeaders(response)));
+                    log.info("JWKS refreshed for key={}: keys={}", source.getRedisKey(), jwkSet.getKeys().size());
+                    return store(source.getRedisKey(), jwkSet, lifetime)
+                            .then(Mono.fromSupplier(() -> source.install(jwkSet, lifetime)));
+                });
+    }
+
+    /**
+     * The IdP request, timed like {@link RemoteJwksFetcher} fetches. The URI is resolved off the event loop, as
+     * resolving it may fetch the issuer's discovery document.
+     */
+    private Mono<ResponseEntity<String>> download(RedisCachingJwkSource source) {
+        return Mono.fromCallable(source::getJwksUri).subscribeOn(Schedulers.boundedElastic()).flatMap(uri -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(uri)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .toEntity(String.class)
+                    .timeout(source.getHttpTimeout())
+                    .doOnNext(response -> fetched.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(e -> fetchFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Reactive {@link JwksCacheService#put}: payload, version, then the change notification.
+     */
+    private Mono<Void> store(String redisKey, JWKSet jwkSet, Duration ttl) {
+        return Mono.fromCallable(() -> cacheService.encode(jwkSet))
+                .flatMap(payload -> {
+                    String version = JwkSnapshot.contentHash(jwkSet);
+                    return redis.opsForValue().set(redisKey, payload, ttl)
+                            .then(redis.opsForValue().set(JwksCacheService.versionKey(redisKey), version, ttl))
+                            .then(redis.convertAndSend(JwksCacheService.updatesChannel(redisKey), version));
+                })
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to cache JWKS to Redis key={}: {}", redisKey, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> awaitUnlock(String lockKey, Duration timeout) {
+        return Flux.interval(Duration.ZERO, LOCK_POLL)
+                .concatMap(tick -> redis.hasKey(lockKey))
+                .takeUntil(held -> !held)
+                .then()
+                .timeout(timeout, Mono.empty())
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private void unlock(String lockKey, String token) {
+        redis.execute(JwksCacheService.UNLOCK, List.of(lockKey), List.of(token))
+                .subscribe(released -> {}, e -> log.warn("Failed to release Redis lock key={}: {}", lockKey,
+                        e.getMessage()));
+    }
+
+    private static JWKSet parse(String body) {
+        if (body == null || body.isBlank()) {
+            throw new IllegalStateException("Empty JWKS response");
+        }
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Failed to parse JWKS", e);
+        }
+    }
+
+    private static java.net.http.HttpHeaders jdkHeaders(ResponseEntity<String> response) {
+        return java.net.http.HttpHeaders.of(response.getHeaders(), (name, value) -> true);
+    }
+}
@@ -1,22 +1,45 @@
 package com.github.dimitryivaniuta.gateway.jwks;
 
 import java.net.URI;
+import java.security.PublicKey;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-import org.springframework.stereotype.Component;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.KeySourceException;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
-import com.nimbusds.jose.jwk.selector.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSelector;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -25,82 +48,693 @@ import lombok.extern.slf4j.Slf4j;
  *   <li>Loads JWKS from local in-memory cache</li>
  *   <li>Falls back to Redis shared cache</li>
  *   <li>Fetches from remote JWKS URI if missing/expired</li>
- *   <li>Forces refresh when a token uses an unknown {@code kid}</li>
+ *   <li>Forces refresh when a token uses an unknown {@code kid}, within the limits of {@link UnknownKidGuard}</li>
  * </ul>
  *
  * <p>This design supports key rotation with no downtime: when a new key appears, the selector misses,
  * so we re-fetch JWKS and re-select keys.</p>
+ *
+ * <p>Each cached JWKS is held as a {@link JwkSnapshot}, so the JWT decoder resolves keys and verifiers by
+ * {@code kid} via {@link #verificationKeys} and {@link #verifier}; keys are converted once per JWKS change.</p>
+ *
+ * <p>Remote fetches are single-flight: within the instance, concurrent callers wait on the one fetch in
+ * progress; across instances, a short Redis lock lets one node fetch while the others wait for it and
+ * read the fresh Redis entry.</p>
+ *
+ * <p>Request threads do not block on JWKS I/O in steady state: after {@code refreshAheadFraction} of the TTL a
+ * background refresh starts, an expired entry keeps being served for {@code staleWhileRevalidate} while it runs,
+ * and when Redis and the IdP are unreachable the last known good set is served for up to {@code staleIfError}.</p>
+ *
+ * <p>Every JWKS write is announced on a Redis channel (see {@link JwksCacheService#updatesChannel}); instances
+ * swap their local copy on notification via {@link #onJwksChanged} instead of waiting for TTL expiry.</p>
+ *
+ * <p>The current JWKS is mirrored to a {@link JwksSnapshotStore} file off the request path; {@link #loadSnapshot}
+ * seeds a cold instance from it, so it can validate tokens before Redis or the IdP answer.</p>
+ *
+ * <p>The reactive decoder never calls the blocking lookups: it reads keys with {@link #cachedVerificationKeys}
+ * and leaves the I/O to {@link ReactiveJwksLoader}, which installs what it loads here.</p>
  */
 @Slf4j
-@Component
-@RequiredArgsConstructor
 public class RedisCachingJwkSource implements JWKSource<SecurityContext> {
 
+    /**
+     * Where a key lookup was answered from, the {@code tier} tag of {@code auth.jwks.lookups}.
+     */
+    enum Tier {
+        /** In-memory entry, fresh or within stale-while-revalidate. */
+        LOCAL,
+        /** Shared Redis entry. */
+        REDIS,
+        /** A refresh: this instance's fetch from the IdP, or another instance's, taken from Redis. */
+        REMOTE,
+        /** Expired entry kept because Redis and the IdP are unreachable. */
+        STALE
+    }
+
+    private static final Duration REFRESH_RETRY_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MIN_TTL = Duration.ofSeconds(30);
+
     private final JwksCacheService cacheService;
     private final RemoteJwksFetcher remoteFetcher;
+    @Getter(AccessLevel.PACKAGE)
+    private final UnknownKidGuard unknownKidGuard;
+    private final JwksSnapshotStore snapshotStore;
 
     private final AtomicReference<CachedJwkSet> local = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<CachedJwkSet>> inFlight = new AtomicReference<>();
+    /** Bumped after every completed refresh; lets late callers reuse a refresh that finished meanwhile. */
+    private final AtomicLong refreshGeneration = new AtomicLong();
+
+    private final Counter coalesced;
+    private final Counter lockWaits;
+    private final Counter snapshotRebuilds;
+    private final Counter broadcastsApplied;
+    private final Counter versionHits;
+    private final Map<Tier, Counter> lookups = new EnumMap<>(Tier.class);
+
+    private final ExecutorService revalidator = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("jwks-revalidate").daemon().factory());
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    /** After a failed refresh, stale entries are served without new attempts until this instant. */
+    private volatile Instant retryNotBefore = Instant.MIN;
+    private volatile Consumer<JwkSnapshot> keysChangedListener = snapshot -> {};
+    /** Snapshot last handed to {@link #snapshotStore}. */
+    private volatile JwkSnapshot persisted;
+
+    private final Counter revalidated;
+    private final Counter revalidationFailed;
+    private final Counter staleRevalidating;
+    private final Counter staleOnError;
 
     // populated by configuration
-    private volatile URI jwksUri;
+    private volatile Supplier<URI> jwksUri;
+    @Getter(AccessLevel.PACKAGE)
     private volatile String redisKey;
+    @Getter(AccessLevel.PACKAGE)
     private volatile Duration ttl;
+    @Getter(AccessLevel.PACKAGE)
     private volatile Duration httpTimeout;
+    @Getter(AccessLevel.PACKAGE)
+    private volatile Duration refreshLockTtl;
+    private volatile double refreshAheadFraction;
+    private volatile Duration staleWhileRevalidate;
+    private volatile Duration staleIfError;
+    private volatile boolean ttlFromCacheControl;
+    private volatile Duration maxTtl;
 
-    public void configure(URI jwksUri, String redisKey, Duration ttl, Duration httpTimeout) {
+    /**
+     * Instances are created per issuer by {@link JwkSourceFactory}.
+     *
+     * @param tags identify the issuer, added to all meters
+     */
+    public RedisCachingJwkSource(JwksCacheService cacheService, RemoteJwksFetcher remoteFetcher,
+                                 UnknownKidGuard unknownKidGuard, JwksSnapshotStore snapshotStore,
+                                 MeterRegistry meterRegistry, Tags tags) {
+        this.cacheService = cacheService;
+        this.remoteFetcher = remoteFetcher;
+        this.unknownKidGuard = unknownKidGuard;
+        this.snapshotStore = snapshotStore;
+        this.coalesced = Counter.builder("auth.jwks.refresh.coalesced")
+                .description("Callers that joined a JWKS fetch already in progress on this instance")
+                .tags(tags)
+                .register(meterRegistry);
+        this.lockWaits = Counter.builder("auth.jwks.refresh.lock.waits")
+                .description("JWKS refreshes that waited for another instance holding the refresh lock")
+                .tags(tags)
+                .register(meterRegistry);
+        this.snapshotRebuilds = Counter.builder("auth.jwks.snapshot.rebuilds")
+                .description("Key conversions caused by a change in JWKS content")
+                .tags(tags)
+                .register(meterRegistry);
+        this.broadcastsApplied = Counter.builder("auth.jwks.broadcast.applied")
+                .description("Local JWKS swaps triggered by a change notification from the cluster")
+                .tags(tags)
+                .register(meterRegistry);
+        this.versionHits = Counter.builder("auth.jwks.redis.version.hits")
+                .description("Redis reads answered by the version key alone, reusing the parsed local snapshot")
+                .tags(tags)
+                .register(meterRegistry);
+        this.revalidated = revalidations(meterRegistry, tags, "success");
+        this.revalidationFailed = revalidations(meterRegistry, tags, "failure");
+        this.staleRevalidating = staleServed(meterRegistry, tags, "revalidating");
+        this.staleOnError = staleServed(meterRegistry, tags, "error");
+        for (Tier tier : Tier.values()) {
+            lookups.put(tier, Counter.builder("auth.jwks.lookups")
+                    .description("JWKS lookups by the tier that answered them")
+                    .tags(tags)
+                    .tag("tier", tier.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void configure(URI jwksUri, String redisKey, AuthProperties.JwksCache settings) {
+        Objects.requireNonNull(jwksUri, "jwksUri");
+        configure(() -> jwksUri, redisKey, settings);
+    }
+
+    /**
+     * @param jwksUri resolved again before every fetch, so a JWKS URI re-discovered by the issuer's OIDC metadata
+     *                takes effect without rebuilding the source
+     */
+    public void configure(Supplier<URI> jwksUri, String redisKey, AuthProperties.JwksCache settings) {
         this.jwksUri = Objects.requireNonNull(jwksUri, "jwksUri");
         this.redisKey = Objects.requireNonNull(redisKey, "redisKey");
-        this.ttl = Objects.requireNonNull(ttl, "ttl");
-        this.httpTimeout = Objects.requireNonNullElse(httpTimeout, Duration.ofSeconds(2));
+        this.ttl = Objects.requireNonNull(settings.getTtl(), "ttl");
+        this.httpTimeout = Objects.requireNonNullElse(settings.getFetchTimeout(), Duration.ofSeconds(2));
+        this.refreshLockTtl = Objects.requireNonNullElse(settings.getRefreshLockTtl(), Duration.ofSeconds(5));
+        this.refreshAheadFraction = settings.getRefreshAheadFraction();
+        this.staleWhileRevalidate = Objects.requireNonNullElse(settings.getStaleWhileRevalidate(), Duration.ZERO);
+        this.staleIfError = Objects.requireNonNullElse(settings.getStaleIfError(), Duration.ZERO);
+        this.ttlFromCacheControl = settings.isTtlFromCacheControl();
+        this.maxTtl = Objects.requireNonNullElse(settings.getMaxTtl(), this.ttl);
+    }
+
+    /**
+     * Registers a callback invoked with every new {@link JwkSnapshot} whose content differs from the previous one,
+     * once it has become the local entry.
+     */
+    public void onKeysChanged(Consumer<JwkSnapshot> listener) {
+        this.keysChangedListener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /**
+     * Seeds an empty local cache from the on-disk snapshot. The entry is served right away and revalidated in
+     * the background on first use.
+     *
+     * @return {@code true} if a snapshot was loaded
+     */
+    public boolean loadSnapshot() {
+        if (local.get() != null) {
+            return false;
+        }
+        Optional<JwksSnapshotStore.Loaded> loaded = snapshotStore.load(redisKey);
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        JwkSnapshot snapshot = JwkSnapshot.of(loaded.get().jwkSet(), null);
+        Instant now = cacheService.now();
+        persisted = snapshot;
+        if (!local.compareAndSet(null, new CachedJwkSet(snapshot, now, now.plus(ttl)))) {
+            return false;
+        }
+        log.info("JWKS loaded from disk snapshot: keys={} age={}", snapshot.size(), loaded.get().age());
+        return true;
+    }
+
+    /**
+     * Installs {@code jwkSet} as the local entry for {@code lifetime}, without Redis, the IdP or the disk
+     * snapshot. Only for scratch sources that must never fetch, such as the validation warm-up's.
+     */
+    public void seed(JWKSet jwkSet, Duration lifetime) {
+        Instant until = cacheService.now().plus(lifetime);
+        local.set(new CachedJwkSet(JwkSnapshot.of(jwkSet, null), until, until));
+    }
+
+    /**
+     * Makes sure a JWKS is loaded (disk snapshot, Redis or the IdP) with its verifiers built, ahead of the first
+     * request.
+     *
+     * @return number of usable keys
+     */
+    public int prefetch() {
+        return current(refreshGeneration.get()).getSnapshot().size();
     }
 
     @Override
     public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        String kid = UnknownKidGuard.kidOf(jwkSelector.getMatcher().getKeyIDs());
+        CachedJwkSet resolved = resolve(kid, cached -> !jwkSelector.select(cached.getJwkSet()).isEmpty());
+        return resolved == null ? List.of() : jwkSelector.select(resolved.getJwkSet());
+    }
+
+    /**
+     * Kid-indexed equivalent of {@link #get}: public keys for a JWS header, taken from the current
+     * {@link JwkSnapshot} without scanning or converting JWKs.
+     *
+     * @param kid header {@code kid}, may be {@code null}
+     * @param alg header algorithm
+     */
+    public List<PublicKey> verificationKeys(String kid, JWSAlgorithm alg) throws KeySourceException {
+        CachedJwkSet resolved = resolve(kid == null ? UnknownKidGuard.NO_KID : kid,
+                cached -> !cached.getSnapshot().keys(kid, alg).isEmpty());
+        return resolved == null ? List.of() : resolved.getSnapshot().keys(kid, alg);
+    }
+
+    /**
+     * Non-blocking variant of {@link #verificationKeys}: answers from the in-memory entry only and never
+     * fetches. Empty if there is no entry usable without I/O or it lacks the key.
+     */
+    List<PublicKey> cachedVerificationKeys(String kid, JWSAlgorithm alg) {
+        CachedJwkSet cached = servable(cacheService.now());
+        return cached == null ? List.of() : cached.getSnapshot().keys(kid, alg);
+    }
+
+    /**
+     * Pre-built verifier for a key returned by {@link #verificationKeys}, or {@code null} if the snapshot
+     * has been replaced since.
+     */
+    public JWSVerifier verifier(PublicKey key) {
+        CachedJwkSet cached = local.get();
+        return cached == null ? null : cached.getSnapshot().verifier(key);
+    }
+
+    /**
+     * Applies a JWKS change announced by another instance (or this one) on the updates channel.
+     *
+     * <p>Runs on the listener thread: the new JWKS is read from Redis here, so request threads simply see
+     * the swapped snapshot.</p>
+     *
+     * @param contentHash {@link JwkSnapshot#contentHash} of the JWKS now stored in Redis
+     */
+    public void onJwksChanged(String contentHash) {
+        CachedJwkSet cached = local.get();
+        if (redisKey == null || cached != null && cached.getSnapshot().getContentHash().equals(contentHash)) {
+            return;
+        }
+        loadFromRedis(ttl).ifPresent(fresh -> {
+            publish(fresh);
+            refreshGeneration.incrementAndGet();
+            broadcastsApplied.increment();
+            log.info("JWKS swapped after change notification: keys={}", fresh.getSnapshot().size());
+        });
+    }
+
+    /**
+     * Returns a cached entry satisfying {@code hit}, forcing a refresh on a miss.
+     *
+     * @return {@code null} if no entry satisfies {@code hit}
+     */
+    private CachedJwkSet resolve(String kid, Predicate<CachedJwkSet> hit) throws KeySourceException {
         try {
-            JWKSet jwkSet = loadOrRefresh(false);
-            List<JWK> selected = jwkSelector.select(jwkSet);
-            if (!selected.isEmpty()) {
-                return selected;
+            long generation = refreshGeneration.get();
+            CachedJwkSet cached = current(generation);
+            if (hit.test(cached)) {
+                return cached;
             }
 
             // If selector finds nothing, most common reason is rotation: unknown kid.
-            // Force refresh and try again.
-            jwkSet = loadOrRefresh(true);
-            selected = jwkSelector.select(jwkSet);
-            return selected;
+            // Force refresh (unless the kid is known garbage or refreshes are throttled) and try again.
+            if (unknownKidGuard.rejectsFast(kid)) {
+                return null;
+            }
+            CachedJwkSet refreshed = refresh(generation, true);
+            if (hit.test(refreshed)) {
+                return refreshed;
+            }
+            if (refreshGeneration.get() != generation) {
+                unknownKidGuard.rememberUnknown(kid);
+            }
+            return null;
         } catch (Exception e) {
             throw new KeySourceException("Unable to obtain keys from JWKS", e);
         }
     }
 
-    private JWKSet loadOrRefresh(boolean force) {
+    /**
+     * Returns the entry to validate against; only blocks on I/O on a cold start or once an entry is older
+     * than its stale-while-revalidate window.
+     */
+    private CachedJwkSet current(long generation) {
         Instant now = cacheService.now();
+        CachedJwkSet servable = servable(now);
+        if (servable != null) {
+            served(servable.isExpired(now.minus(staleWhileRevalidate)) ? Tier.STALE : Tier.LOCAL);
+            return servable;
+        }
+
+        CachedJwkSet cached = local.get();
+        try {
+            // try redis
+            Optional<CachedJwkSet> fromRedis = loadFromRedis(ttl);
+            if (fromRedis.isPresent()) {
+                publish(fromRedis.get());
+                served(Tier.REDIS);
+                return fromRedis.get();
+            }
+            CachedJwkSet refreshed = refresh(generation, false);
+            served(Tier.REMOTE);
+            return refreshed;
+        } catch (RuntimeException e) {
+            // IdP (and Redis) unreachable: keep serving the last known good set for a bounded time
+            retryNotBefore = now.plus(REFRESH_RETRY_BACKOFF);
+            if (cached != null && !cached.isExpired(now.minus(staleIfError))) {
+                log.warn("JWKS refresh failed, serving last known good set: {}", e.getMessage());
+                staleOnError.increment();
+                served(Tier.STALE);
+                return cached;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The local entry if it may be served without I/O (fresh, within stale-while-revalidate, or within
+     * stale-if-error while refreshes back off), starting a background revalidation when due.
+     *
+     * @return {@code null} if a blocking load is needed
+     */
+    private CachedJwkSet servable(Instant now) {
         CachedJwkSet cached = local.get();
 
-        if (!force && cached != null && !cached.isExpired(now)) {
-            return cached.getJwkSet();
+        if (cached != null && !cached.isExpired(now)) {
+            if (cached.isRefreshDue(now)) {
+                revalidateAsync(now);
+            }
+            return cached;
+        }
+        if (cached != null && !cached.isExpired(now.minus(staleWhileRevalidate))) {
+            staleRevalidating.increment();
+            revalidateAsync(now);
+            return cached;
         }
+        if (cached != null && now.isBefore(retryNotBefore) && !cached.isExpired(now.minus(staleIfError))) {
+            staleOnError.increment();
+            return cached;
+        }
+        return null;
+    }
 
-        if (!force) {
-            // try redis
-            JWKSet fromRedis = cacheService.get(redisKey).orElse(null);
-            if (fromRedis != null) {
-                local.set(new CachedJwkSet(fromRedis, now.plus(ttl)));
-                return fromRedis;
+    /**
+     * {@link #servable} for {@link ReactiveJwksLoader}.
+     */
+    CachedJwkSet servable() {
+        return servable(cacheService.now());
+    }
+
+    /**
+     * Counts a lookup answered from {@code tier}.
+     */
+    void served(Tier tier) {
+        lookups.get(tier).increment();
+    }
+
+    /**
+     * Local entry regardless of its age, {@code null} before the first load.
+     */
+    CachedJwkSet latest() {
+        return local.get();
+    }
+
+    long generation() {
+        return refreshGeneration.get();
+    }
+
+    /**
+     * Makes a JWKS loaded by {@link ReactiveJwksLoader} the local entry, exactly like a blocking refresh would.
+     */
+    CachedJwkSet install(JWKSet jwkSet, Duration lifetime) {
+        CachedJwkSet fresh = cached(jwkSet, lifetime);
+        publish(fresh);
+        refreshGeneration.incrementAndGet();
+        return fresh;
+    }
+
+    /**
+     * Records a failed non-blocking load: stale entries are served without new attempts for a while.
+     */
+    void refreshFailed() {
+        retryNotBefore = cacheService.now().plus(REFRESH_RETRY_BACKOFF);
+    }
+
+    /**
+     * Starts a background refresh unless one is already running or refreshes are backing off.
+     */
+    private void revalidateAsync(Instant now) {
+        if (now.isBefore(retryNotBefore) || !revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            revalidator.execute(this::revalidate);
+        } catch (RejectedExecutionException e) {
+            revalidating.set(false);
+        }
+    }
+
+    private void revalidate() {
+        try {
+            long generation = refreshGeneration.get();
+            // another instance may already have refreshed Redis: adopt its entry if it is not due itself
+            Duration remaining = cacheService.remainingTtl(redisKey).orElse(Duration.ZERO);
+            if (remaining.compareTo(ttl.minus(refreshAhead(ttl))) > 0) {
+                Optional<CachedJwkSet> fromRedis = loadFromRedis(remaining);
+                if (fromRedis.isPresent()) {
+                    publish(fromRedis.get());
+                    refreshGeneration.incrementAndGet();
+                    revalidated.increment();
+                    return;
+                }
+            }
+            refresh(generation, false);
+            revalidated.increment();
+        } catch (Exception e) {
+            retryNotBefore = cacheService.now().plus(REFRESH_RETRY_BACKOFF);
+            revalidationFailed.increment();
+            log.warn("Background JWKS revalidation failed: {}", e.getMessage());
+        } finally {
+            revalidating.set(false);
+        }
+    }
+
+    /**
+     * Stops background revalidation; called when the owning issuer's decoder is released.
+     */
+    public void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    /**
+     * Waits until a revalidation or snapshot write still running after {@link #shutdown()} has finished.
+     */
+    boolean awaitShutdown(Duration timeout) throws InterruptedException {
+        return revalidator.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces the local entry with a remotely fetched JWKS, coalescing concurrent callers.
+     *
+     * @param observedGeneration refresh generation seen by the caller before it found the local entry
+     *                           insufficient; if a refresh completed since, its result is reused
+     * @param forced             {@code true} for unknown-{@code kid} refreshes, which are throttled: when no
+     *                           permit is available the current entry is returned unchanged
+     */
+    private CachedJwkSet refresh(long observedGeneration, boolean forced) {
+        if (refreshGeneration.get() != observedGeneration && local.get() != null) {
+            return local.get();
+        }
+
+        CompletableFuture<CachedJwkSet> mine = new CompletableFuture<>();
+        CompletableFuture<CachedJwkSet> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            CachedJwkSet result;
+            CachedJwkSet latest = local.get();
+            if (latest != null && (refreshGeneration.get() != observedGeneration
+                    || forced && !unknownKidGuard.permitForcedRefresh())) {
+                result = latest;
+            } else {
+                result = refreshClusterWide();
+                publish(result);
+                refreshGeneration.incrementAndGet();
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.compareAndSet(mine, null);
+        }
+    }
+
+    private CachedJwkSet refreshClusterWide() {
+        String lockKey = redisKey + ":lock";
+        String token = UUID.randomUUID().toString();
+        if (cacheService.tryLock(lockKey, token, refreshLockTtl)) {
+            try {
+                return fetchAndStore();
+            } finally {
+                cacheService.unlock(lockKey, token);
+            }
+        }
+
+        // another instance is fetching: wait for it, then take its result from Redis
+        lockWaits.increment();
+        if (cacheService.awaitUnlock(lockKey, refreshLockTtl)) {
+            Optional<CachedJwkSet> fromRedis = loadFromRedis(ttl);
+            if (fromRedis.isPresent()) {
+                return fromRedis.get();
             }
         }
+        return fetchAndStore();
+    }
 
-        // fetch remote
+    /**
+     * Current JWKS URI of the issuer.
+     */
+    URI getJwksUri() {
         if (jwksUri == null) {
             throw new IllegalStateException("RedisCachingJwkSource not configured with jwksUri");
         }
-        JWKSet fetched = remoteFetcher.fetch(jwksUri, httpTimeout);
+        return jwksUri.get();
+    }
+
+    private CachedJwkSet fetchAndStore() {
+        URI jwksUri = getJwksUri();
+        RemoteJwksFetcher.FetchResult fetched = remoteFetcher.fetchConditional(jwksUri, httpTimeout);
+
+        long ttlSeconds = lifetimeOf(fetched.maxAge()).toSeconds();
+        if (!fetched.notModified() || !cacheService.touch(redisKey, ttlSeconds)) {
+            cacheService.put(redisKey, fetched.jwkSet(), ttlSeconds);
+        }
+
+        if (fetched.notModified()) {
+            log.debug("JWKS not modified at {}, ttl extended by {}s", jwksUri, ttlSeconds);
+        } else {
+            log.info("JWKS refreshed from {}: keys={}", jwksUri, fetched.jwkSet().getKeys().size());
+        }
+        return cached(fetched.jwkSet(), Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * @param maxAge {@code Cache-Control} lifetime of the fetched JWKS, used with {@code ttlFromCacheControl}
+     */
+    Duration lifetimeOf(Optional<Duration> maxAge) {
+        return lifetimeOf(maxAge, ttl, ttlFromCacheControl, maxTtl);
+    }
+
+    /**
+     * Lifetime of a JWKS fetched under {@code settings}; {@link JwksRefresher} writes the same Redis entry and
+     * must apply the same rule.
+     */
+    static Duration lifetimeOf(Optional<Duration> maxAge, AuthProperties.JwksCache settings) {
+        return lifetimeOf(maxAge, settings.getTtl(), settings.isTtlFromCacheControl(),
+                Objects.requireNonNullElse(settings.getMaxTtl(), settings.getTtl()));
+    }
+
+    private static Duration lifetimeOf(Optional<Duration> maxAge, Duration ttl, boolean ttlFromCacheControl,
+                                       Duration maxTtl) {
+        Duration lifetime = ttl;
+        if (ttlFromCacheControl && maxAge.isPresent()) {
+            lifetime = maxAge.get();
+            if (lifetime.compareTo(maxTtl) > 0) {
+                lifetime = maxTtl;
+            }
+        }
+        return lifetime.compareTo(MIN_TTL) < 0 ? MIN_TTL : lifetime;
+    }
+
+    /**
+     * Reads the shared entry; when its version matches the local snapshot only the version key is transferred
+     * and the snapshot is reused as is.
+     */
+    private Optional<CachedJwkSet> loadFromRedis(Duration lifetime) {
+        CachedJwkSet previous = local.get();
+        if (previous != null) {
+            Optional<String> version = cacheService.version(redisKey);
+            if (version.isPresent() && version.get().equals(previous.getSnapshot().getContentHash())) {
+                versionHits.increment();
+                return Optional.of(withLifetime(previous.getSnapshot(), lifetime));
+            }
+        }
+        return cacheService.get(redisKey).map(jwkSet -> cached(jwkSet, lifetime));
+    }
+
+    /**
+     * Wraps {@code jwkSet}, reusing the current snapshot (and its converted keys) when the content is unchanged.
+     *
+     * @param lifetime time until the entry expires; a background refresh becomes due after
+     *                 {@code refreshAheadFraction} of it
+     */
+    private CachedJwkSet cached(JWKSet jwkSet, Duration lifetime) {
+        CachedJwkSet previous = local.get();
+        JwkSnapshot before = previous == null ? null : previous.getSnapshot();
+        JwkSnapshot snapshot = JwkSnapshot.of(jwkSet, before);
+        if (snapshot != before) {
+            snapshotRebuilds.increment();
+            unknownKidGuard.forgetPublished(jwkSet);
+            log.debug("JWKS snapshot rebuilt: keys={} hash={}", snapshot.size(), snapshot.getContentHash());
+        }
+        return withLifetime(snapshot, lifetime);
+    }
+
+    /**
+     * Makes {@code fresh} the local entry, then tells the listener if its keys differ from the replaced entry's.
+     * Notifying only after the swap means anything the listener purges cannot be re-added by a lookup that still
+     * saw the old keys.
+     */
+    private void publish(CachedJwkSet fresh) {
+        CachedJwkSet previous = local.getAndSet(fresh);
+        if (previous == null || previous.getSnapshot() != fresh.getSnapshot()) {
+            keysChangedListener.accept(fresh.getSnapshot());
+        }
+    }
+
+    /**
+     * Whether the current local entry publishes {@code kid}; {@code true} before the first load.
+     */
+    public boolean publishes(String kid) {
+        CachedJwkSet cached = local.get();
+        return cached == null || cached.getSnapshot().contains(kid);
+    }
+
+    private CachedJwkSet withLifetime(JwkSnapshot snapshot, Duration lifetime) {
+        persist(snapshot);
+        Instant now = cacheService.now();
+        return new CachedJwkSet(snapshot, now.plus(refreshAhead(lifetime)), now.plus(lifetime));
+    }
+
+    /**
+     * Writes a changed snapshot to disk, or marks an unchanged one as confirmed, on the background thread.
+     */
+    private void persist(JwkSnapshot snapshot) {
+        if (!snapshotStore.isEnabled()) {
+            return;
+        }
+        boolean changed = snapshot != persisted;
+        persisted = snapshot;
+        try {
+            revalidator.execute(changed
+                    ? () -> snapshotStore.save(redisKey, snapshot.getJwkSet())
+                    : () -> snapshotStore.touch(redisKey));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
 
-        long ttlSeconds = Math.max(30, ttl.toSeconds());
-        cacheService.put(redisKey, fetched, ttlSeconds);
-        local.set(new CachedJwkSet(fetched, now.plusSeconds(ttlSeconds)));
+    private Duration refreshAhead(Duration lifetime) {
+        return Duration.ofMillis((long) (lifetime.toMillis() * refreshAheadFraction));
+    }
 
-        log.info("JWKS refreshed (force={}): keys={}", force, fetched.getKeys().size());
-        return fetched;
+    private static Counter revalidations(MeterRegistry meterRegistry, Tags tags, String outcome) {
+        return Counter.builder("auth.jwks.revalidations")
+                .description("Background JWKS refreshes started ahead of or after expiry")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter staleServed(MeterRegistry meterRegistry, Tags tags, String reason) {
+        return Counter.builder("auth.jwks.stale.served")
+                .description("Lookups answered from an expired JWKS entry")
+                .tags(tags)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private CachedJwkSet await(CompletableFuture<CachedJwkSet> flight) {
+        try {
+            return flight.get(httpTimeout.plus(refreshLockTtl).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for JWKS refresh", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("JWKS refresh failed", e.getCause());
+        } catch (Exception e) {
+            throw new IllegalStateException("Timed out waiting for JWKS refresh", e);
+        }
     }
 }
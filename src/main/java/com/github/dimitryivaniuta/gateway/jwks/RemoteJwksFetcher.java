@@ -1,45 +1,197 @@
 package com.github.dimitryivaniuta.gateway.jwks;
 
+import java.io.IOException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import org.springframework.http.MediaType;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClient;
 
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.util.JSONObjectUtils;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Fetches JWKS from a remote JWKS URI.
  *
- * <p>Kept intentionally simple and robust: fetch JSON, parse to {@link JWKSet}.</p>
+ * <p>Uses one pooled JDK {@link HttpClient} (HTTP/2 over TLS, HTTP/1.1 otherwise) with an enforced connect
+ * timeout and per-request timeout. Requests are conditional: the last {@code ETag}/{@code Last-Modified} per
+ * URI is sent back, and a {@code 304} returns the previously parsed {@link JWKSet} instance without reading or
+ * parsing a body. {@code Cache-Control: max-age} (minus {@code Age}) is reported for callers that derive
+ * their TTL from it.</p>
+ *
+ * <p>Metrics: {@code auth.jwks.fetch} counts requests and {@code auth.jwks.fetch.duration} times them, both by
+ * outcome.</p>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class RemoteJwksFetcher {
 
-    private final RestClient restClient = RestClient.create();
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])max-age\\s*=\\s*\"?(\\d+)\"?");
+    private static final Pattern NO_CACHE = Pattern.compile("(?:^|[,\\s])(?:no-cache|no-store)(?:$|[,\\s])");
+
+    /**
+     * Outcome of a fetch.
+     *
+     * @param jwkSet      parsed JWKS; on {@code 304} the same instance as the previous fetch of the URI
+     * @param notModified whether the server answered {@code 304 Not Modified}
+     * @param maxAge      freshness lifetime from {@code Cache-Control}, empty if the response has none
+     */
+    public record FetchResult(JWKSet jwkSet, boolean notModified, Optional<Duration> maxAge) {
+    }
+
+    private record Validators(String etag, String lastModified, JWKSet jwkSet) {
+    }
+
+    private final HttpClient httpClient;
+    private final Map<URI, Validators> validators = new ConcurrentHashMap<>();
+
+    private final Counter modified;
+    private final Counter notModified;
+    private final Counter failed;
+    private final Timer modifiedTime;
+    private final Timer notModifiedTime;
+    private final Timer failedTime;
 
+    @Autowired
+    public RemoteJwksFetcher(AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this(HttpClient.newBuilder()
+                .connectTimeout(authProperties.getJwksCache().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build(), meterRegistry);
+    }
+
+    RemoteJwksFetcher(HttpClient httpClient, MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.modified = fetches(meterRegistry, "modified");
+        this.notModified = fetches(meterRegistry, "not_modified");
+        this.failed = fetches(meterRegistry, "failed");
+        this.modifiedTime = fetchTime(meterRegistry, "modified");
+        this.notModifiedTime = fetchTime(meterRegistry, "not_modified");
+        this.failedTime = fetchTime(meterRegistry, "failed");
+    }
+
+    /**
+     * Fetches the JWKS, returning the cached instance when the server reports it unchanged.
+     */
     public JWKSet fetch(URI jwksUri, Duration timeout) {
+        return fetchConditional(jwksUri, timeout).jwkSet();
+    }
+
+    /**
+     * Conditional fetch reporting whether the JWKS changed and its {@code Cache-Control} lifetime.
+     *
+     * @param timeout request timeout (connect timeout is configured on the shared client)
+     */
+    public FetchResult fetchConditional(URI jwksUri, Duration timeout) {
+        Validators previous = validators.get(jwksUri);
+        HttpRequest.Builder request = HttpRequest.newBuilder(jwksUri)
+                .version("https".equalsIgnoreCase(jwksUri.getScheme())
+                        ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET();
+        if (previous != null && previous.etag() != null) {
+            request.header("If-None-Match", previous.etag());
+        }
+        if (previous != null && previous.lastModified() != null) {
+            request.header("If-Modified-Since", previous.lastModified());
+        }
+
+        long start = System.nanoTime();
         try {
-            String body = restClient.get()
-                    .uri(jwksUri)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .retrieve()
-                    .body(String.class);
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            HttpHeaders headers = response.headers();
+
+            if (response.statusCode() == 304 && previous != null) {
+                notModified.increment();
+                notModifiedTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return new FetchResult(previous.jwkSet(), true, maxAge(headers));
+            }
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Unexpected JWKS response status " + response.statusCode());
+            }
 
-            if (body == null || body.isBlank()) {
+            String body = new String(response.body(), StandardCharsets.UTF_8);
+            if (body.isBlank()) {
                 throw new IllegalStateException("Empty JWKS response");
             }
-            return JWKSet.parse(JSONObjectUtils.parse(body));
-        } catch (Exception e) {
+            JWKSet jwkSet = JWKSet.parse(JSONObjectUtils.parse(body));
+            String etag = headers.firstValue("ETag").orElse(null);
+            String lastModified = headers.firstValue("Last-Modified").orElse(null);
+            if (etag != null || lastModified != null) {
+                validators.put(jwksUri, new Validators(etag, lastModified, jwkSet));
+            } else {
+                validators.remove(jwksUri);
+            }
+            modified.increment();
+            modifiedTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new FetchResult(jwkSet, false, maxAge(headers));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.increment();
+            failedTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new IllegalStateException("Interrupted while fetching JWKS", e);
+        } catch (IOException | ParseException | RuntimeException e) {
+            failed.increment();
+            failedTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             log.error("Failed to fetch JWKS from {}: {}", jwksUri, e.getMessage());
             throw new IllegalStateException("Failed to fetch JWKS", e);
         }
     }
+
+    /**
+     * Freshness lifetime: {@code max-age} minus {@code Age}; zero for {@code no-cache}/{@code no-store}.
+     */
+    static Optional<Duration> maxAge(HttpHeaders headers) {
+        String cacheControl = String.join(",", headers.allValues("Cache-Control")).toLowerCase();
+        if (NO_CACHE.matcher(cacheControl).find()) {
+            return Optional.of(Duration.ZERO);
+        }
+        Matcher m = MAX_AGE.matcher(cacheControl);
+        if (!m.find()) {
+            return Optional.empty();
+        }
+        try {
+            long seconds = Long.parseLong(m.group(1)) - headers.firstValueAsLong("Age").orElse(0);
+            return Optional.of(Duration.ofSeconds(Math.max(0, seconds)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Counter fetches(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.jwks.fetch")
+                .description("Remote JWKS requests by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    static Timer fetchTime(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("auth.jwks.fetch.duration")
+                .description("Remote JWKS request latency by outcome")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
 }
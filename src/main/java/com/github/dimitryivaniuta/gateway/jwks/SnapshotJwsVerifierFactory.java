@@ -0,0 +1,50 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Set;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+
+/**
+ * {@link JWSVerifierFactory} that hands out the verifiers pre-built in the current {@link JwkSnapshot}.
+ *
+ * <p>Keys that are not from the current snapshot (it was swapped between key selection and verification)
+ * fall back to {@link DefaultJWSVerifierFactory}.</p>
+ */
+public class SnapshotJwsVerifierFactory implements JWSVerifierFactory {
+
+    private final DefaultJWSVerifierFactory fallback = new DefaultJWSVerifierFactory();
+    private final RedisCachingJwkSource source;
+
+    public SnapshotJwsVerifierFactory(RedisCachingJwkSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        if (key instanceof PublicKey publicKey) {
+            JWSVerifier verifier = source.verifier(publicKey);
+            if (verifier != null && verifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+                return verifier;
+            }
+        }
+        return fallback.createJWSVerifier(header, key);
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return fallback.supportedJWSAlgorithms();
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return fallback.getJCAContext();
+    }
+}
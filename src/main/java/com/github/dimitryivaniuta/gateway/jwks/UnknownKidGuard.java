@@ -0,0 +1,183 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Stops tokens with unknown {@code kid}s from turning into remote JWKS fetches.
+ *
+ * <ul>
+ *   <li>Negative cache: a {@code kid} still unknown after a forced refresh is rejected without fetching
+ *   until it expires (or shows up in a later JWKS).</li>
+ *   <li>Minimum interval between forced refreshes.</li>
+ *   <li>Token bucket bounding the sustained forced-refresh rate.</li>
+ * </ul>
+ *
+ * <p>Only forced refreshes are limited; expiry-driven and scheduled refreshes are not.</p>
+ */
+public class UnknownKidGuard {
+
+    /**
+     * Key used for tokens without a {@code kid} header.
+     */
+    static final String NO_KID = "";
+
+    /**
+     * Longer {@code kid}s are never fetched for nor remembered, so garbage cannot bloat the negative cache.
+     */
+    static final int MAX_KID_LENGTH = 256;
+
+    private final Cache<String, Boolean> unknownKids;
+    private final Ticker ticker;
+    private final long minIntervalNanos;
+    private final double burst;
+    private final double tokensPerNano;
+
+    private final Counter negativeHits;
+    private final Counter minIntervalRejects;
+    private final Counter rateLimitedRejects;
+    private final Counter invalidRejects;
+    private final Counter forcedRefreshes;
+
+    /** A lock rather than a monitor, so request threads never pin a virtual-thread carrier while waiting. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastForcedNanos;
+    private boolean forcedBefore;
+
+    /**
+     * @param tags identify the issuer this guard protects, added to its meters
+     */
+    public UnknownKidGuard(AuthProperties.UnknownKid props, MeterRegistry meterRegistry, Tags tags) {
+        this(props, meterRegistry, tags, Ticker.systemTicker());
+    }
+
+    UnknownKidGuard(AuthProperties.UnknownKid props, MeterRegistry meterRegistry, Tags tags, Ticker ticker) {
+        this.ticker = ticker;
+        this.unknownKids = Caffeine.newBuilder()
+                .maximumSize(props.getNegativeMaxSize())
+                .expireAfterWrite(props.getNegativeTtl())
+                .ticker(ticker)
+                .build();
+        this.minIntervalNanos = props.getMinRefreshInterval().toNanos();
+        this.burst = props.getRefreshBurst();
+        this.tokensPerNano = props.getRefreshesPerMinute() / 60_000_000_000d;
+        this.tokens = burst;
+        this.lastRefillNanos = ticker.read();
+
+        this.negativeHits = rejected(meterRegistry, tags, "negative_cache");
+        this.minIntervalRejects = rejected(meterRegistry, tags, "min_interval");
+        this.rateLimitedRejects = rejected(meterRegistry, tags, "rate_limited");
+        this.invalidRejects = rejected(meterRegistry, tags, "invalid_kid");
+        this.forcedRefreshes = Counter.builder("auth.jwks.refresh.forced")
+                .description("Forced JWKS refreshes permitted for an unknown kid")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("auth.jwks.unknown.kid.cached", unknownKids, Cache::estimatedSize)
+                .description("Unknown kids currently rejected without a JWKS fetch")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Extracts the {@code kid} a selector is looking for, or {@link #NO_KID}.
+     */
+    public static String kidOf(Set<String> keyIds) {
+        if (keyIds == null || keyIds.isEmpty()) {
+            return NO_KID;
+        }
+        String kid = keyIds.iterator().next();
+        return kid == null ? NO_KID : kid;
+    }
+
+    /**
+     * Whether a selector miss for {@code kid} should be rejected without refreshing at all.
+     */
+    public boolean rejectsFast(String kid) {
+        if (kid.length() > MAX_KID_LENGTH) {
+            invalidRejects.increment();
+            return true;
+        }
+        if (unknownKids.getIfPresent(kid) != null) {
+            negativeHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a permit for one forced remote refresh, enforcing the minimum interval and the token bucket.
+     *
+     * @return {@code false} if the refresh must be skipped; the protection that fired is counted
+     */
+    public boolean permitForcedRefresh() {
+        lock.lock();
+        try {
+            long now = ticker.read();
+            if (forcedBefore && now - lastForcedNanos < minIntervalNanos) {
+                minIntervalRejects.increment();
+                return false;
+            }
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                rateLimitedRejects.increment();
+                return false;
+            }
+            tokens -= 1;
+            lastForcedNanos = now;
+            forcedBefore = true;
+            forcedRefreshes.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remembers a {@code kid} that a fresh JWKS still does not contain.
+     */
+    public void rememberUnknown(String kid) {
+        if (kid.length() <= MAX_KID_LENGTH) {
+            unknownKids.put(kid, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Forgets remembered {@code kid}s that {@code jwkSet} now publishes.
+     */
+    public void forgetPublished(JWKSet jwkSet) {
+        if (unknownKids.estimatedSize() == 0) {
+            return;
+        }
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (jwk.getKeyID() != null) {
+                unknownKids.invalidate(jwk.getKeyID());
+            }
+        }
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, Tags tags, String reason) {
+        return Counter.builder("auth.jwks.unknown.kid.rejected")
+                .description("Unknown-kid selector misses answered without a remote JWKS fetch")
+                .tags(tags)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.dimitryivaniuta.gateway.observability;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link CorrelationIdFilter}.
+ *
+ * <p>The id is kept as an exchange attribute (read it with {@link #correlationId}) and in the Reactor context
+ * under {@link CorrelationIdFilter#MDC_KEY}, as there is no thread-bound MDC to rely on.</p>
+ */
+public class CorrelationIdWebFilter implements WebFilter {
+
+    public static final String ATTRIBUTE = CorrelationIdWebFilter.class.getName() + ".correlationId";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String cid = Optional.ofNullable(exchange.getRequest().getHeaders().getFirst(CorrelationIdFilter.HEADER))
+                .filter(s -> !s.isBlank())
+                .orElseGet(() -> UUID.randomUUID().toString());
+
+        exchange.getAttributes().put(ATTRIBUTE, cid);
+        exchange.getResponse().getHeaders().set(CorrelationIdFilter.HEADER, cid);
+        return chain.filter(exchange).contextWrite(context -> context.put(CorrelationIdFilter.MDC_KEY, cid));
+    }
+
+    public static String correlationId(ServerWebExchange exchange) {
+        return exchange.getAttributeOrDefault(ATTRIBUTE, "n/a");
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.dimitryivaniuta.gateway.proxy;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelope;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeSigner;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdFilter;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.HttpRequestHandler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Forwards the requests of one {@link AuthProperties.Route} to its upstream, after Spring Security has
+ * authenticated them.
+ *
+ * <p>Bodies are streamed both ways, never buffered: the servlet input stream is the upstream request entity
+ * (chunked when the client sent no length), and the upstream response is copied to the servlet output stream as
+ * it arrives. Hop-by-hop headers are dropped, {@code Authorization} unless the route forwards it, and the
+ * correlation id and {@code X-Forwarded-*} headers are added. With a signer, the caller's verified identity goes
+ * along as an {@link IdentityEnvelope} so that upstreams need not validate the token again; it names the route as
+ * audience and lives for a short TTL, and a client-supplied envelope is never passed on. Failures before the response is committed become
+ * 503 (no pooled connection in time), 504 (connect or response timeout) or 502. A request body the client fails
+ * to deliver is its own fault: 400 and outcome {@code client_abort}, kept apart from upstream errors.</p>
+ */
+@Slf4j
+public class ReverseProxyHandler implements HttpRequestHandler {
+
+    /**
+     * RFC 9110 hop-by-hop headers, plus the ones the client and the container set themselves.
+     */
+    private static final Set<String> HOP_BY_HOP = Collections.unmodifiableSet(caseInsensitive(
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+            "TE", "Trailer", HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE,
+            HttpHeaders.HOST, HttpHeaders.CONTENT_LENGTH, CorrelationIdFilter.HEADER, IdentityEnvelope.HEADER));
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final AuthProperties.Route route;
+    private final URI upstream;
+    private final HttpClient httpClient;
+    private final RequestConfig requestConfig;
+    private final IdentityEnvelopeSigner envelopeSigner;
+    private final Duration envelopeTtl;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param envelopeSigner signs the identity envelope; {@code null} when envelopes are disabled
+     */
+    public ReverseProxyHandler(AuthProperties.Route route, HttpClient httpClient, AuthProperties.Proxy proxy,
+                               IdentityEnvelopeSigner envelopeSigner, MeterRegistry meterRegistry) {
+        this.route = route;
+        this.upstream = URI.create(route.getUri());
+        this.httpClient = httpClient;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(proxy.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(route.getResponseTimeout()))
+                .setRedirectsEnabled(false)
+                .build();
+        this.envelopeSigner = envelopeSigner;
+        this.envelopeTtl = proxy.getIdentityEnvelope().getTtl();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        HttpUriRequestBase upstreamRequest = new HttpUriRequestBase(request.getMethod(), target(request));
+        upstreamRequest.setConfig(requestConfig);
+        copyRequestHeaders(request, upstreamRequest);
+        if (hasBody(request)) {
+            String contentType = request.getContentType();
+            upstreamRequest.setEntity(new InputStreamEntity(new ClientBody(request.getInputStream()),
+                    request.getContentLengthLong(),
+                    contentType == null ? null : ContentType.parseLenient(contentType)));
+        }
+
+        try (ClassicHttpResponse upstreamResponse = httpClient.executeOpen(null, upstreamRequest, null)) {
+            outcome = (upstreamResponse.getCode() / 100) + "xx";
+            response.setStatus(upstreamResponse.getCode());
+            for (Header header : upstreamResponse.getHeaders()) {
+                if (!HOP_BY_HOP.contains(header.getName()) || isContentLength(header, upstreamResponse)) {
+                    response.addHeader(header.getName(), header.getValue());
+                }
+            }
+            HttpEntity entity = upstreamResponse.getEntity();
+            if (entity != null) {
+                try (InputStream in = entity.getContent()) {
+                    OutputStream out = response.getOutputStream();
+                    in.transferTo(out);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                // status and headers are already out: the client sees a truncated body
+                log.warn("Proxy route {} failed mid-response: {}", route.getId(), e.toString());
+            } else {
+                outcome = fail(response, e);
+            }
+        } finally {
+            sample.stop(Timer.builder("auth.proxy.requests")
+                    .description("Requests forwarded to upstream services")
+                    .tag("route", route.getId())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Upstream URI: the route's base URL, the raw (still encoded) request path, prefix stripped if configured,
+     * and the raw query.
+     */
+    URI target(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (route.isStripPrefix()) {
+            path = path.substring(Math.min(route.getPathPrefix().length(), path.length()));
+        }
+        String base = upstream.toString();
+        StringBuilder target = new StringBuilder(base.endsWith("/") ? base.substring(0, base.length() - 1) : base);
+        if (!path.startsWith("/")) {
+            target.append('/');
+        }
+        target.append(path);
+        if (request.getQueryString() != null) {
+            target.append('?').append(request.getQueryString());
+        }
+        return URI.create(target.toString());
+    }
+
+    private void copyRequestHeaders(HttpServletRequest request, HttpUriRequestBase upstreamRequest) {
+        Set<String> connectionTokens = connectionTokens(request);
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (HOP_BY_HOP.contains(name) || connectionTokens.contains(name)
+                    || (!route.isForwardAuthorization() && HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name))) {
+                continue;
+            }
+            for (String value : Collections.list(request.getHeaders(name))) {
+                upstreamRequest.addHeader(name, value);
+            }
+        }
+        String correlationId = MDC.get(CorrelationIdFilter.MDC_KEY);
+        if (correlationId != null) {
+            upstreamRequest.setHeader(CorrelationIdFilter.HEADER, correlationId);
+        }
+        String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+        upstreamRequest.setHeader(X_FORWARDED_FOR, forwardedFor == null
+                ? request.getRemoteAddr() : forwardedFor + ", " + request.getRemoteAddr());
+        upstreamRequest.setHeader("X-Forwarded-Proto", request.getScheme());
+        upstreamRequest.setHeader("X-Forwarded-Host", request.getHeader(HttpHeaders.HOST));
+        if (envelopeSigner != null) {
+            String envelope = identityEnvelope(SecurityContextHolder.getContext().getAuthentication(), correlationId);
+            if (envelope != null) {
+                upstreamRequest.setHeader(IdentityEnvelope.HEADER, envelope);
+            }
+        }
+    }
+
+    /**
+     * Envelope of a JWT-authenticated caller for this route, valid for {@code envelopeTtl} or until the token
+     * expires, whichever comes first; {@code null} for other callers and tokens without {@code iss} or {@code exp}.
+     */
+    private String identityEnvelope(Authentication authentication, String correlationId) {
+        if (!(authentication instanceof JwtAuthenticationToken token)) {
+            return null;
+        }
+        Jwt jwt = token.getToken();
+        String issuer = jwt.getClaimAsString(JwtClaimNames.ISS);
+        if (issuer == null || jwt.getExpiresAt() == null) {
+            return null;
+        }
+        Instant cap = Instant.now().plus(envelopeTtl).truncatedTo(ChronoUnit.SECONDS);
+        Instant expiresAt = jwt.getExpiresAt().isBefore(cap) ? jwt.getExpiresAt() : cap;
+        Object kid = jwt.getHeaders().get("kid");
+        return envelopeSigner.sign(new IdentityEnvelope(issuer, route.getId(), token.getName(),
+                token.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+                kid == null ? null : kid.toString(), expiresAt, correlationId));
+    }
+
+    private static String fail(HttpServletResponse response, IOException e) throws IOException {
+        int status;
+        String error;
+        String outcome;
+        if (e instanceof ClientBodyException) {
+            status = HttpServletResponse.SC_BAD_REQUEST;
+            error = "incomplete_request";
+            outcome = "client_abort";
+        } else if (e instanceof ConnectionRequestTimeoutException) {
+            status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            error = "upstream_busy";
+            outcome = "pool_timeout";
+        } else if (e instanceof InterruptedIOException) {
+            status = HttpServletResponse.SC_GATEWAY_TIMEOUT;
+            error = "upstream_timeout";
+            outcome = "timeout";
+        } else {
+            status = HttpServletResponse.SC_BAD_GATEWAY;
+            error = "bad_gateway";
+            outcome = "error";
+        }
+        if (e instanceof ClientBodyException) {
+            log.debug("Client request body failed: {}", e.getCause().toString());
+        } else {
+            log.warn("Proxy request failed ({}): {}", error, e.toString());
+        }
+        response.resetBuffer();
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+        return outcome;
+    }
+
+    private static boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null;
+    }
+
+    /**
+     * {@code Content-Length} is kept on responses so that the container does not re-chunk a sized body.
+     */
+    private static boolean isContentLength(Header header, ClassicHttpResponse upstreamResponse) {
+        return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getName())
+                && !upstreamResponse.containsHeader(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * Further hop-by-hop headers named by the client's {@code Connection} header.
+     */
+    private static Set<String> connectionTokens(HttpServletRequest request) {
+        Set<String> tokens = caseInsensitive();
+        for (String value : Collections.list(request.getHeaders(HttpHeaders.CONNECTION))) {
+            for (String token : value.split(",")) {
+                tokens.add(token.trim());
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> caseInsensitive(String... names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        Collections.addAll(set, names);
+        return set;
+    }
+
+    /**
+     * The client's request body, whose read failures are told apart from the upstream's.
+     */
+    private static final class ClientBody extends FilterInputStream {
+
+        ClientBody(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw new ClientBodyException(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw new ClientBodyException(e);
+            }
+        }
+    }
+
+    private static final class ClientBodyException extends IOException {
+
+        ClientBodyException(IOException cause) {
+            super(cause);
+        }
+    }
+}
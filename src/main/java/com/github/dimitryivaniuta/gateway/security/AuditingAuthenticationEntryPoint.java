@@ -31,10 +31,10 @@ public class AuditingAuthenticationEntryPoint implements AuthenticationEntryPoin
 
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.getWriter().write("{"error":"unauthorized","message":"" + escape(authException.getMessage()) + ""}");
+        response.getWriter().write("{\"error\":\"unauthorized\",\"message\":\"" + escape(authException.getMessage()) + "\"}");
     }
 
     private static String escape(String s) {
-        return s == null ? "" : s.replace(""", "\\"");
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 }
@@ -0,0 +1,52 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdWebFilter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.server.authorization.ServerAccessDeniedHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AuditingAccessDeniedHandler}: writes 403 and records an audit entry.
+ */
+@RequiredArgsConstructor
+public class AuditingServerAccessDeniedHandler implements ServerAccessDeniedHandler {
+
+    private final AuthAuditService auditService;
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, AccessDeniedException accessDeniedException) {
+        return exchange.getPrincipal()
+                .ofType(JwtAuthenticationToken.class)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(token -> {
+                    Jwt jwt = token.map(JwtAuthenticationToken::getToken).orElse(null);
+                    auditService.forbidden(exchange.getRequest(), jwt, accessDeniedException.getMessage(),
+                            CorrelationIdWebFilter.correlationId(exchange));
+
+                    ServerHttpResponse response = exchange.getResponse();
+                    response.setStatusCode(HttpStatus.FORBIDDEN);
+                    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    byte[] body = ("{\"error\":\"forbidden\",\"message\":\"" + escape(accessDeniedException.getMessage())
+                            + "\"}").getBytes(StandardCharsets.UTF_8);
+                    return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+                });
+    }
+
+    private static String escape(String s) {
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
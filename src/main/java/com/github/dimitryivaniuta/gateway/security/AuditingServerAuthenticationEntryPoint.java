@@ -0,0 +1,42 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdWebFilter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.web.server.ServerWebExchange;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AuditingAuthenticationEntryPoint}: writes 401 and records an audit entry.
+ */
+@RequiredArgsConstructor
+public class AuditingServerAuthenticationEntryPoint implements ServerAuthenticationEntryPoint {
+
+    private final AuthAuditService auditService;
+
+    @Override
+    public Mono<Void> commence(ServerWebExchange exchange, AuthenticationException authException) {
+        auditService.rejected(exchange.getRequest(), authException.getMessage(),
+                CorrelationIdWebFilter.correlationId(exchange));
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"error\":\"unauthorized\",\"message\":\"" + escape(authException.getMessage()) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static String escape(String s) {
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
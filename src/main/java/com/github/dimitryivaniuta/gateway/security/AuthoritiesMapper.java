@@ -3,7 +3,7 @@ package com.github.dimitryivaniuta.gateway.security;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
@@ -11,6 +11,9 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 /**
  * Maps JWT claims to Spring Security authorities.
  *
@@ -20,47 +23,94 @@ import org.springframework.stereotype.Component;
  *   <li>{@code scope} or {@code scp}: space-separated string or array -&gt; {@code SCOPE_*}</li>
  *   <li>{@code permissions}: array or comma-separated -&gt; {@code PERM_*}</li>
  * </ul>
+ *
+ * <p>The same claim combinations repeat across tokens, so the result is memoized by the four claim values and
+ * authority objects are shared through a bounded canonical pool. Strings are tokenized by hand (no regex or
+ * intermediate lists). Both caches are bounded; beyond them results are just computed.</p>
  */
 @Component
 public class AuthoritiesMapper implements Converter<Jwt, Collection<GrantedAuthority>> {
 
+    private static final int MAX_MEMOIZED = 10_000;
+    private static final int MAX_POOLED = 10_000;
+
+    /**
+     * Memo key: the raw claim values (Strings or JSON arrays), compared by value.
+     */
+    private record ClaimValues(Object roles, Object permissions, Object scope, Object scp) {
+    }
+
+    private final Cache<ClaimValues, List<GrantedAuthority>> memo = Caffeine.newBuilder()
+            .maximumSize(MAX_MEMOIZED)
+            .build();
+    private final Cache<String, GrantedAuthority> pool = Caffeine.newBuilder()
+            .maximumSize(MAX_POOLED)
+            .build();
+
     @Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
+        Map<String, Object> claims = jwt.getClaims();
+        ClaimValues key = new ClaimValues(claims.get("roles"), claims.get("permissions"),
+                claims.get("scope"), claims.get("scp"));
+        return memo.get(key, this::map);
+    }
+
+    private List<GrantedAuthority> map(ClaimValues claims) {
         List<GrantedAuthority> out = new ArrayList<>();
-        out.addAll(prefixFromClaim(jwt, "roles", "ROLE_"));
-        out.addAll(prefixFromClaim(jwt, "permissions", "PERM_"));
+        addPrefixed(out, claims.roles(), "ROLE_");
+        addPrefixed(out, claims.permissions(), "PERM_");
 
         // scope can be "scope": "a b" or "scp": ["a","b"]
-        out.addAll(prefixFromClaim(jwt, "scope", "SCOPE_"));
-        out.addAll(prefixFromClaim(jwt, "scp", "SCOPE_"));
+        addPrefixed(out, claims.scope(), "SCOPE_");
+        addPrefixed(out, claims.scp(), "SCOPE_");
 
-        return out;
+        return List.copyOf(out);
     }
 
-    private List<GrantedAuthority> prefixFromClaim(Jwt jwt, String claim, String prefix) {
-        Object v = jwt.getClaims().get(claim);
-        if (v == null) return List.of();
-
-        List<String> values = new ArrayList<>();
-
+    private void addPrefixed(List<GrantedAuthority> out, Object v, String prefix) {
+        if (v == null) {
+            return;
+        }
         if (v instanceof String s) {
             // allow "a b" or "a,b"
-            String normalized = s.replace(",", " ");
-            for (String token : normalized.split("\\s+")) {
-                if (!token.isBlank()) values.add(token.trim());
-            }
+            addTokens(out, s, prefix);
         } else if (v instanceof Collection<?> c) {
             for (Object o : c) {
-                Optional.ofNullable(o).map(Object::toString).filter(str -> !str.isBlank()).ifPresent(values::add);
+                if (o != null) {
+                    String str = o.toString();
+                    if (!str.isBlank()) {
+                        out.add(authority(prefix, str));
+                    }
+                }
             }
         } else {
-            values.add(v.toString());
+            out.add(authority(prefix, v.toString()));
         }
+    }
 
-        List<GrantedAuthority> out = new ArrayList<>();
-        for (String val : values) {
-            out.add(new SimpleGrantedAuthority(prefix + val));
+    private void addTokens(List<GrantedAuthority> out, String s, String prefix) {
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && isSeparator(s.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < len && !isSeparator(s.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                out.add(authority(prefix, s.substring(start, i)));
+            }
         }
-        return out;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == ',' || Character.isWhitespace(c);
+    }
+
+    private GrantedAuthority authority(String prefix, String value) {
+        String name = prefix.concat(value);
+        return pool.get(name, SimpleGrantedAuthority::new);
     }
 }
@@ -0,0 +1,155 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Cheap structural check of bearer tokens ahead of {@code BearerTokenAuthenticationFilter}
+ * ({@code auth.precheck}).
+ *
+ * <p>Rejects tokens that are too long, are not three base64url segments, use an algorithm outside
+ * {@code allowedAlgorithms}, lack a {@code kid} (if required) or whose {@code exp}/{@code nbf} already rule
+ * them out. Nothing is parsed into objects, no signature is checked and the JWKS source is never consulted;
+ * the 401 body is pre-serialized. Requests without a bearer token pass through untouched, and tokens that pass
+ * still get the full validation.</p>
+ */
+public class BearerTokenPrecheckFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * Why a token was rejected; each carries its pre-serialized response body.
+     */
+    enum Reason {
+        TOO_LONG("Bearer token too long"),
+        MALFORMED("Malformed bearer token"),
+        UNSUPPORTED_ALG("Unsupported token algorithm"),
+        MISSING_KID("Token has no key id"),
+        EXPIRED("Token expired"),
+        NOT_YET_VALID("Token not yet valid");
+
+        final String message;
+        final byte[] body;
+
+        Reason(String message) {
+            this.message = message;
+            this.body = ("{\"error\":\"unauthorized\",\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final int maxTokenLength;
+    private final Set<String> allowedAlgorithms;
+    private final boolean requireKid;
+    private final long clockSkewSeconds;
+    private final Clock clock;
+    private final AuthAuditService auditService;
+    private final Map<Reason, Counter> rejected = new EnumMap<>(Reason.class);
+
+    public BearerTokenPrecheckFilter(AuthProperties.Precheck settings, Clock clock, MeterRegistry meterRegistry,
+                                     AuthAuditService auditService) {
+        this.maxTokenLength = settings.getMaxTokenLength();
+        this.allowedAlgorithms = Set.copyOf(settings.getAllowedAlgorithms());
+        this.requireKid = settings.isRequireKid();
+        this.clockSkewSeconds = settings.getClockSkew().toSeconds();
+        this.clock = clock;
+        this.auditService = auditService;
+        for (Reason reason : Reason.values()) {
+            rejected.put(reason, Counter.builder("auth.precheck.rejected")
+                    .description("Bearer tokens rejected by the structural pre-check")
+                    .tag("reason", reason.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Reason reason = precheck(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (reason == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        auditService.rejected(request, reason.message);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(reason.body.length);
+        response.getOutputStream().write(reason.body);
+    }
+
+    /**
+     * Checks an {@code Authorization} header value and counts the rejection, if any.
+     *
+     * @return why the token is rejected, {@code null} if there is no bearer token or it may proceed
+     */
+    Reason precheck(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        Reason reason = check(authorization, BEARER.length());
+        if (reason != null) {
+            rejected.get(reason).increment();
+        }
+        return reason;
+    }
+
+    /**
+     * @param start index of the token in {@code authorization}
+     * @return why the token is rejected, {@code null} if it may proceed to full validation
+     */
+    Reason check(String authorization, int start) {
+        int end = authorization.length();
+        if (end - start > maxTokenLength) {
+            return Reason.TOO_LONG;
+        }
+        int first = authorization.indexOf('.', start);
+        int second = first < 0 ? -1 : authorization.indexOf('.', first + 1);
+        if (second < 0 || second == end - 1 || authorization.indexOf('.', second + 1) >= 0) {
+            return Reason.MALFORMED;
+        }
+
+        byte[] header = JwtPeek.decodeSegment(authorization, start, first);
+        byte[] payload = header == null ? null : JwtPeek.decodeSegment(authorization, first + 1, second);
+        if (payload == null) {
+            return Reason.MALFORMED;
+        }
+        String alg = JwtPeek.topLevelString(header, "alg");
+        if (alg == null || !allowedAlgorithms.contains(alg)) {
+            return Reason.UNSUPPORTED_ALG;
+        }
+        if (requireKid && JwtPeek.topLevelString(header, "kid") == null) {
+            return Reason.MISSING_KID;
+        }
+
+        long now = clock.millis() / 1000;
+        Long exp = JwtPeek.topLevelLong(payload, "exp");
+        if (exp != null && exp + clockSkewSeconds < now) {
+            return Reason.EXPIRED;
+        }
+        Long nbf = JwtPeek.topLevelLong(payload, "nbf");
+        if (nbf != null && nbf - clockSkewSeconds > now) {
+            return Reason.NOT_YET_VALID;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,247 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSourceFactory;
+import com.github.dimitryivaniuta.gateway.jwks.KidIndexedJwsKeySelector;
+import com.github.dimitryivaniuta.gateway.jwks.OidcDiscoveryClient;
+import com.github.dimitryivaniuta.gateway.jwks.RedisCachingJwkSource;
+import com.github.dimitryivaniuta.gateway.jwks.SnapshotJwsVerifierFactory;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Allow-list of trusted issuers and their lazily built decoders.
+ *
+ * <p>The top-level {@code auth.issuer}/{@code audience}/{@code jwksUri} form the {@code default} tenant;
+ * {@code auth.issuers} adds more. Each tenant gets its own {@link RedisCachingJwkSource} and issuer/audience
+ * validators, built on first use and released after {@code auth.decoderIdleTimeout} without traffic.</p>
+ */
+@Slf4j
+@Component
+public class IssuerRegistry {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    static final Set<JWSAlgorithm> SIGNING_ALGORITHMS = Set.of(JWSAlgorithm.RS256);
+
+    /**
+     * A tenant's decoder with the JWKS source it owns.
+     *
+     * @param cachedDecoder same validation as {@code decoder}, but keys come from the source's in-memory JWKS
+     *                      only, never fetched; used by the reactive decoder
+     */
+    public record TenantDecoder(TrustedIssuer tenant, RedisCachingJwkSource jwkSource, JwtDecoder decoder,
+                                JwtDecoder cachedDecoder) {
+    }
+
+    private final List<TrustedIssuer> tenants;
+    private final Map<String, TrustedIssuer> byIssuer;
+    private final JwkSourceFactory sourceFactory;
+    private final OidcDiscoveryClient discovery;
+    private final VerifiedTokenCache tokenCache;
+    private final MeterRegistry meterRegistry;
+    private final LoadingCache<String, TenantDecoder> decoders;
+    private final Counter untrusted;
+    private final boolean preloadSnapshots;
+
+    public IssuerRegistry(AuthProperties authProperties,
+                          JwkSourceFactory sourceFactory,
+                          OidcDiscoveryClient discovery,
+                          VerifiedTokenCache tokenCache,
+                          MeterRegistry meterRegistry) {
+        this.sourceFactory = sourceFactory;
+        this.discovery = discovery;
+        this.tokenCache = tokenCache;
+        this.meterRegistry = meterRegistry;
+        this.tenants = List.copyOf(tenantsOf(authProperties));
+        this.preloadSnapshots = authProperties.getJwksCache().getSnapshot().isEnabled();
+
+        Map<String, TrustedIssuer> index = new HashMap<>();
+        for (TrustedIssuer tenant : tenants) {
+            if (index.putIfAbsent(tenant.issuer(), tenant) != null) {
+                throw new IllegalStateException("Issuer configured twice: " + tenant.issuer());
+            }
+        }
+        this.byIssuer = Map.copyOf(index);
+
+        this.decoders = Caffeine.newBuilder()
+                .expireAfterAccess(authProperties.getDecoderIdleTimeout())
+                .scheduler(Scheduler.systemScheduler())
+                .<String, TenantDecoder>removalListener((issuer, decoder, cause) -> {
+                    if (decoder != null) {
+                        log.info("Released idle decoder for issuer {} ({})", issuer, cause);
+                        decoder.jwkSource().shutdown();
+                    }
+                })
+                .build(issuer -> build(byIssuer.get(issuer)));
+
+        this.untrusted = Counter.builder("auth.issuers.untrusted")
+                .description("Tokens rejected before validation because their iss is not allow-listed")
+                .register(meterRegistry);
+        Gauge.builder("auth.issuers.decoders.active", decoders, LoadingCache::estimatedSize)
+                .description("Per-issuer decoders currently built")
+                .register(meterRegistry);
+    }
+
+    public List<TrustedIssuer> tenants() {
+        return tenants;
+    }
+
+    /**
+     * The only tenant when exactly one is configured, else {@code null}.
+     */
+    public TrustedIssuer singleTenant() {
+        return tenants.size() == 1 ? tenants.get(0) : null;
+    }
+
+    /**
+     * Decoder for a trusted issuer, building it on first use.
+     *
+     * @return {@code null} if {@code issuer} is not allow-listed
+     */
+    public TenantDecoder decoderFor(String issuer) {
+        if (issuer == null || !byIssuer.containsKey(issuer)) {
+            untrusted.increment();
+            return null;
+        }
+        return decoders.get(issuer);
+    }
+
+    /**
+     * Tenant whose {@code iss} is {@code issuer}, or {@code null} if it is not allow-listed.
+     */
+    public TrustedIssuer tenant(String issuer) {
+        return issuer == null ? null : byIssuer.get(issuer);
+    }
+
+    public boolean isTrusted(String issuer) {
+        return issuer != null && byIssuer.containsKey(issuer);
+    }
+
+    /**
+     * Decoder for {@code issuer} if it is already built; never builds (which reads the on-disk JWKS snapshot).
+     */
+    public TenantDecoder decoderIfBuilt(String issuer) {
+        return issuer == null ? null : decoders.getIfPresent(issuer);
+    }
+
+    /**
+     * Configured JWKS URI of {@code tenant}, or the one advertised by its OIDC discovery document.
+     */
+    public URI jwksUri(TrustedIssuer tenant) {
+        return tenant.jwksUri() != null ? URI.create(tenant.jwksUri()) : discovery.jwksUri(tenant.issuer());
+    }
+
+    /**
+     * Forwards a JWKS change notification to the tenant's source if its decoder is currently built.
+     */
+    public void onJwksChanged(String issuer, String contentHash) {
+        TenantDecoder decoder = decoders.getIfPresent(issuer);
+        if (decoder != null) {
+            decoder.jwkSource().onJwksChanged(contentHash);
+        }
+    }
+
+    /**
+     * Builds every decoder at boot, before the application reports readiness, so they start from their on-disk
+     * JWKS snapshots. Building needs no network: a discovered JWKS URI is only resolved when a source fetches.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void preload() {
+        if (!preloadSnapshots) {
+            return;
+        }
+        for (TrustedIssuer tenant : tenants) {
+            decoders.get(tenant.issuer());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        decoders.invalidateAll();
+    }
+
+    private TenantDecoder build(TrustedIssuer tenant) {
+        RedisCachingJwkSource source = sourceFactory.create(tenant.id(), () -> jwksUri(tenant), tenant.redisKey());
+        source.onKeysChanged(snapshot -> tokenCache.onKeysChanged(tenant.issuer(), snapshot));
+
+        JwtDecoder decoder = decoder(tenant, source, new KidIndexedJwsKeySelector(SIGNING_ALGORITHMS, source),
+                meterRegistry);
+        JwtDecoder cachedDecoder = decoder(tenant, source,
+                KidIndexedJwsKeySelector.cachedOnly(SIGNING_ALGORITHMS, source), meterRegistry);
+        log.info("Built decoder for issuer {} (tenant {})", tenant.issuer(), tenant.id());
+        return new TenantDecoder(tenant, source, decoder, cachedDecoder);
+    }
+
+    /**
+     * A decoder for {@code tenant} built like its real one (key selector, verifier factory, validators, timing),
+     * over a scratch source that serves {@code keys} from memory; used by {@link JwtValidationWarmup}. Meters go
+     * to {@code scratchRegistry}.
+     */
+    TenantDecoder scratchDecoder(TrustedIssuer tenant, JWKSet keys, Duration lifetime,
+                                 MeterRegistry scratchRegistry) {
+        RedisCachingJwkSource source = sourceFactory.scratch(tenant.id(), keys, lifetime, scratchRegistry);
+        return new TenantDecoder(tenant, source,
+                decoder(tenant, source, new KidIndexedJwsKeySelector(SIGNING_ALGORITHMS, source), scratchRegistry),
+                decoder(tenant, source, KidIndexedJwsKeySelector.cachedOnly(SIGNING_ALGORITHMS, source),
+                        scratchRegistry));
+    }
+
+    private static JwtDecoder decoder(TrustedIssuer tenant, RedisCachingJwkSource source,
+                                      KidIndexedJwsKeySelector keySelector, MeterRegistry meterRegistry) {
+        // keys and verifiers are looked up by kid in a snapshot rebuilt only when the JWKS changes
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(keySelector);
+        processor.setJWSVerifierFactory(new SnapshotJwsVerifierFactory(source));
+        // claims are validated by Spring validators below
+        processor.setJWTClaimsSetVerifier((claims, context) -> {});
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(JwtValidatorsFactory.issuerAndAudience(tenant.issuer(), tenant.audience()));
+        return new TimedJwtDecoder(decoder, meterRegistry, Tags.of("tenant", tenant.id()));
+    }
+
+    private static List<TrustedIssuer> tenantsOf(AuthProperties authProperties) {
+        String baseKey = authProperties.getJwksCache().getRedisKey();
+        List<TrustedIssuer> all = new ArrayList<>();
+        all.add(new TrustedIssuer(DEFAULT_TENANT, authProperties.getIssuer(), authProperties.getAudience(),
+                blankToNull(authProperties.getJwksUri()), baseKey));
+        for (AuthProperties.Issuer issuer : authProperties.getIssuers()) {
+            String redisKey = blankToNull(issuer.getRedisKey());
+            all.add(new TrustedIssuer(issuer.getId(), issuer.getIssuer(), issuer.getAudience(),
+                    blankToNull(issuer.getJwksUri()), redisKey != null ? redisKey : baseKey + ":" + issuer.getId()));
+        }
+        return all;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Reads top-level members of a compact JWS header or payload <b>without</b> verifying them, for routing
+ * ({@code iss}) and structural pre-checks only.
+ *
+ * <p>Only the needed segment is decoded and only top-level members are scanned; nested values are skipped
+ * without being materialised. The routed decoder still verifies the signature and the exact issuer.</p>
+ */
+public final class JwtPeek {
+
+    private JwtPeek() {}
+
+    /**
+     * @return the top-level {@code iss} string, or {@code null} if absent or the token is malformed
+     */
+    public static String issuer(String token) {
+        byte[] payload = payload(token);
+        return payload == null ? null : topLevelString(payload, "iss");
+    }
+
+    /**
+     * Base64url-decoded header segment of a compact JWS, or {@code null} if there is none or it is not base64url.
+     */
+    static byte[] header(String token) {
+        int first = token.indexOf('.');
+        return first < 0 ? null : decodeSegment(token, 0, first);
+    }
+
+    /**
+     * Base64url-decoded payload segment of a compact JWS, or {@code null} if there is none or it is not base64url.
+     */
+    static byte[] payload(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return second < 0 ? null : decodeSegment(token, first + 1, second);
+    }
+
+    /**
+     * Base64url-decodes {@code token[from, to)}; {@code null} if it is empty or not base64url.
+     */
+    static byte[] decodeSegment(String token, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        try {
+            return Base64.getUrlDecoder().decode(token.substring(from, to));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String topLevelString(byte[] json, String name) {
+        return topLevel(json, name, Cursor::string);
+    }
+
+    /**
+     * Integer part of a top-level numeric member (e.g. {@code exp}); {@code null} if absent or not a number.
+     */
+    static Long topLevelLong(byte[] json, String name) {
+        return topLevel(json, name, Cursor::integer);
+    }
+
+    private static <T> T topLevel(byte[] json, String name, Function<Cursor, T> reader) {
+        Cursor c = new Cursor(json);
+        if (!c.consume('{') || c.consume('}')) {
+            return null;
+        }
+        do {
+            String key = c.string();
+            if (key == null || !c.consume(':')) {
+                return null;
+            }
+            if (name.equals(key)) {
+                return reader.apply(c);
+            }
+            if (!c.skipValue()) {
+                return null;
+            }
+        } while (c.consume(','));
+        return null;
+    }
+
+    private static final class Cursor {
+        private final byte[] b;
+        private int i;
+
+        Cursor(byte[] b) {
+            this.b = b;
+        }
+
+        boolean consume(char expected) {
+            skipWhitespace();
+            if (i < b.length && b[i] == expected) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Reads a JSON string, decoding escapes; {@code null} if the next value is not a string.
+         */
+        String string() {
+            skipWhitespace();
+            if (i >= b.length || b[i] != '"') {
+                return null;
+            }
+            int start = ++i;
+            while (i < b.length && b[i] != '"' && b[i] != '\\') {
+                i++;
+            }
+            if (i < b.length && b[i] == '"') {
+                return new String(b, start, i++ - start, StandardCharsets.UTF_8);
+            }
+            // escapes present: slow path
+            StringBuilder sb = new StringBuilder(new String(b, start, i - start, StandardCharsets.UTF_8));
+            int runStart = i;
+            while (i < b.length) {
+                byte ch = b[i];
+                if (ch == '"') {
+                    sb.append(new String(b, runStart, i - runStart, StandardCharsets.UTF_8));
+                    i++;
+                    return sb.toString();
+                }
+                if (ch != '\\') {
+                    i++;
+                    continue;
+                }
+                sb.append(new String(b, runStart, i - runStart, StandardCharsets.UTF_8));
+                if (i + 1 >= b.length) {
+                    return null;
+                }
+                char esc = (char) b[i + 1];
+                i += 2;
+                switch (esc) {
+                    case '"', '\\', '/' -> sb.append(esc);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (i + 4 > b.length) {
+                            return null;
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(new String(b, i, 4, StandardCharsets.US_ASCII), 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        i += 4;
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+                runStart = i;
+            }
+            return null;
+        }
+
+        /**
+         * Reads the integer part of a JSON number; {@code null} if the next value is not a number or too large.
+         */
+        Long integer() {
+            skipWhitespace();
+            boolean negative = i < b.length && b[i] == '-';
+            if (negative) {
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            while (i < b.length && b[i] >= '0' && b[i] <= '9') {
+                if (i - start >= 18) {
+                    return null;
+                }
+                value = value * 10 + (b[i++] - '0');
+            }
+            if (i == start) {
+                return null;
+            }
+            // fraction/exponent: NumericDate may be fractional, the integer part is enough
+            while (i < b.length && (b[i] == '.' || b[i] == 'e' || b[i] == 'E' || b[i] == '+' || b[i] == '-'
+                    || b[i] >= '0' && b[i] <= '9')) {
+                i++;
+            }
+            return negative ? -value : value;
+        }
+
+        boolean skipValue() {
+            skipWhitespace();
+            if (i >= b.length) {
+                return false;
+            }
+            byte ch = b[i];
+            if (ch == '"') {
+                return skipString();
+            }
+            if (ch == '{' || ch == '[') {
+                int depth = 0;
+                while (i < b.length) {
+                    ch = b[i];
+                    if (ch == '"') {
+                        if (!skipString()) {
+                            return false;
+                        }
+                        continue;
+                    }
+                    if (ch == '{' || ch == '[') {
+                        depth++;
+                    } else if ((ch == '}' || ch == ']') && --depth == 0) {
+                        i++;
+                        return true;
+                    }
+                    i++;
+                }
+                return false;
+            }
+            // number, true, false, null
+            while (i < b.length && b[i] != ',' && b[i] != '}' && b[i] != ']' && !isWhitespace(b[i])) {
+                i++;
+            }
+            return true;
+        }
+
+        private boolean skipString() {
+            i++;
+            while (i < b.length) {
+                if (b[i] == '\\') {
+                    i += 2;
+                } else if (b[i++] == '"') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (i < b.length && isWhitespace(b[i])) {
+                i++;
+            }
+        }
+
+        private static boolean isWhitespace(byte ch) {
+            return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.stereotype.Component;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Startup warm-up of the JWT validation path ({@code auth.warmup.enabled}).
+ *
+ * <p>Prefetches the JWKS of every trusted issuer (building their verifiers), then decodes {@code tokens}
+ * synthetic tokens signed by a throwaway key through the production pipeline: {@link MultiIssuerJwtDecoder}
+ * with a {@link VerifiedTokenCache} (each token misses, then hits), and per tenant a decoder built by
+ * {@link IssuerRegistry} exactly like the real one ({@code TimedJwtDecoder}, {@code KidIndexedJwsKeySelector},
+ * {@code SnapshotJwsVerifierFactory}, issuer/audience validators), followed by the authentication converter.
+ * Only the key source and the token cache are scratch instances seeded with the throwaway key, so the real
+ * JWKS, token cache and exported metrics see none of the synthetic traffic. The JIT has compiled the request
+ * path before the first request. Runs as an
+ * {@link ApplicationRunner}: Spring Boot only switches readiness to {@code ACCEPTING_TRAFFIC} after all
+ * runners completed, and readiness is explicitly set to refusing while this runs. The duration is recorded as
+ * {@code auth.warmup.duration}.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "auth.warmup", name = "enabled", havingValue = "true")
+public class JwtValidationWarmup implements ApplicationRunner {
+
+    private static final int DISTINCT_TOKENS = 16;
+
+    private final AuthProperties authProperties;
+    private final IssuerRegistry issuerRegistry;
+    private final JwtAuthenticationConverter jwtAuthenticationConverter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        AuthProperties.Warmup settings = authProperties.getWarmup();
+        long started = System.nanoTime();
+        long deadline = started + settings.getMaxDuration().toNanos();
+
+        String outcome = "success";
+        int decoded = 0;
+        try {
+            prefetchJwks();
+            decoded = decodeSynthetic(settings.getTokens(), deadline, settings.getMaxDuration());
+        } catch (Exception e) {
+            outcome = "failure";
+            log.warn("JWT validation warm-up failed: {}", e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - started;
+        Timer.builder("auth.warmup.duration")
+                .description("Time spent warming up JWT validation before readiness")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("JWT validation warm-up finished in {} ms ({} synthetic tokens decoded)",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), decoded);
+    }
+
+    private void prefetchJwks() {
+        for (TrustedIssuer tenant : issuerRegistry.tenants()) {
+            try {
+                int keys = issuerRegistry.decoderFor(tenant.issuer()).jwkSource().prefetch();
+                log.debug("Warm-up prefetched JWKS of {}: keys={}", tenant.id(), keys);
+            } catch (RuntimeException e) {
+                log.warn("Warm-up could not prefetch JWKS of {}: {}", tenant.id(), e.getMessage());
+            }
+        }
+    }
+
+    private int decodeSynthetic(int count, long deadline, Duration maxDuration) throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("warmup-" + UUID.randomUUID()).generate();
+        RSASSASigner signer = new RSASSASigner(key);
+        JWKSet keys = new JWKSet(key.toPublicJWK());
+        MeterRegistry scratchRegistry = new SimpleMeterRegistry();
+        List<TrustedIssuer> tenants = issuerRegistry.tenants();
+
+        Map<String, IssuerRegistry.TenantDecoder> scratch = new HashMap<>();
+        for (TrustedIssuer tenant : tenants) {
+            // outlives the loop, so the scratch source never tries to refresh
+            scratch.put(tenant.issuer(), issuerRegistry.scratchDecoder(tenant, keys, maxDuration.plusMinutes(1),
+                    scratchRegistry));
+        }
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(authProperties, Clock.systemUTC(), scratchRegistry);
+        JwtDecoder decoder = new MultiIssuerJwtDecoder(issuerRegistry, scratch::get, tokenCache);
+        try {
+            List<String> tokens = new ArrayList<>(DISTINCT_TOKENS);
+            for (int i = 0; i < DISTINCT_TOKENS; i++) {
+                tokens.add(sign(signer, key, tenants.get(i % tenants.size()), i));
+            }
+
+            int n = 0;
+            while (n < count && System.nanoTime() - deadline < 0) {
+                int i = n % DISTINCT_TOKENS;
+                String token = tokens.get(i);
+                Jwt jwt = decoder.decode(token);
+                decoder.decode(token);
+                jwtAuthenticationConverter.convert(jwt);
+                if (i == DISTINCT_TOKENS - 1) {
+                    // so the next round verifies signatures again
+                    tokenCache.invalidateAll();
+                }
+                n++;
+            }
+            return n;
+        } finally {
+            scratch.values().forEach(tenant -> tenant.jwkSource().shutdown());
+        }
+    }
+
+    private static String sign(RSASSASigner signer, RSAKey key, TrustedIssuer tenant, int i) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(tenant.issuer())
+                .audience(tenant.audience())
+                .subject("warmup-" + i)
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(600)))
+                .claim("roles", i % 2 == 0 ? List.of("USER") : List.of("USER", "ADMIN"))
+                .claim("scope", "read write")
+                .claim("permissions", "audit:read,jwks:refresh")
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+}
@@ -2,6 +2,7 @@ package com.github.dimitryivaniuta.gateway.security;
 
 import java.util.List;
 
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
@@ -38,6 +39,6 @@ public final class JwtValidatorsFactory {
             ));
         };
 
-        return withIssuer.and(withAudience);
+        return new DelegatingOAuth2TokenValidator<>(withIssuer, withAudience);
     }
 }
@@ -0,0 +1,60 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.util.function.Function;
+
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * {@link JwtDecoder} routing each token to its issuer's decoder.
+ *
+ * <p>The issuer is read with {@link JwtPeek} (unverified; the routed decoder verifies signature and exact
+ * issuer). Untrusted issuers are rejected before any key lookup. With a single configured issuer no peek is
+ * done at all. Tokens already verified are answered from {@link VerifiedTokenCache}.</p>
+ */
+public class MultiIssuerJwtDecoder implements JwtDecoder {
+
+    private final Function<String, IssuerRegistry.TenantDecoder> decoders;
+    private final VerifiedTokenCache tokenCache;
+    private final String singleIssuer;
+
+    public MultiIssuerJwtDecoder(IssuerRegistry registry, VerifiedTokenCache tokenCache) {
+        this(registry, registry::decoderFor, tokenCache);
+    }
+
+    /**
+     * @param decoders decoder of a trusted issuer, {@code null} for others; the warm-up routes to scratch
+     *                 decoders this way
+     */
+    MultiIssuerJwtDecoder(IssuerRegistry registry, Function<String, IssuerRegistry.TenantDecoder> decoders,
+                          VerifiedTokenCache tokenCache) {
+        this.decoders = decoders;
+        this.tokenCache = tokenCache;
+        TrustedIssuer single = registry.singleTenant();
+        this.singleIssuer = single == null ? null : single.issuer();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Jwt cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        String issuer = singleIssuer != null ? singleIssuer : JwtPeek.issuer(token);
+        IssuerRegistry.TenantDecoder tenant;
+        try {
+            tenant = decoders.apply(issuer);
+        } catch (RuntimeException e) {
+            // e.g. OIDC discovery failed while building the decoder
+            throw new JwtException("Unable to build decoder for issuer " + issuer, e);
+        }
+        if (tenant == null) {
+            throw new BadJwtException("Untrusted or missing issuer");
+        }
+        Jwt jwt = tenant.decoder().decode(token);
+        tokenCache.put(issuer, jwt, tenant.jwkSource()::publishes);
+        return jwt;
+    }
+}
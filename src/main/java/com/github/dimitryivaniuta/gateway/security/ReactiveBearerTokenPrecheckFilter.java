@@ -0,0 +1,51 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.time.Clock;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdWebFilter;
+import com.github.dimitryivaniuta.gateway.security.BearerTokenPrecheckFilter.Reason;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link BearerTokenPrecheckFilter}, ahead of the bearer token authentication filter;
+ * same checks, counters and pre-serialized 401 bodies.
+ */
+public class ReactiveBearerTokenPrecheckFilter implements WebFilter {
+
+    private final BearerTokenPrecheckFilter precheck;
+    private final AuthAuditService auditService;
+
+    public ReactiveBearerTokenPrecheckFilter(AuthProperties.Precheck settings, Clock clock,
+                                             MeterRegistry meterRegistry, AuthAuditService auditService) {
+        this.precheck = new BearerTokenPrecheckFilter(settings, clock, meterRegistry, auditService);
+        this.auditService = auditService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Reason reason = precheck.precheck(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        if (reason == null) {
+            return chain.filter(exchange);
+        }
+
+        auditService.rejected(exchange.getRequest(), reason.message, CorrelationIdWebFilter.correlationId(exchange));
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(reason.body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(reason.body)));
+    }
+}
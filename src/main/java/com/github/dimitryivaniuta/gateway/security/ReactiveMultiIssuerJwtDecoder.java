@@ -0,0 +1,80 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import com.github.dimitryivaniuta.gateway.jwks.ReactiveJwksLoader;
+
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import com.nimbusds.jose.JWSAlgorithm;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link MultiIssuerJwtDecoder}, with the same routing, token cache and per-issuer
+ * validation.
+ *
+ * <p>Signature and claims are checked by the tenant's {@link IssuerRegistry.TenantDecoder#cachedDecoder}, which
+ * only reads the in-memory JWKS, so decoding is pure CPU on the calling event loop. When that JWKS lacks the
+ * token's key (cold start, rotation), {@link ReactiveJwksLoader} loads it first without blocking. Building an
+ * issuer's decoder the first time may need OIDC discovery and the disk snapshot, and runs on
+ * {@link Schedulers#boundedElastic()}.</p>
+ */
+public class ReactiveMultiIssuerJwtDecoder implements ReactiveJwtDecoder {
+
+    private final IssuerRegistry registry;
+    private final VerifiedTokenCache tokenCache;
+    private final ReactiveJwksLoader loader;
+    private final String singleIssuer;
+
+    public ReactiveMultiIssuerJwtDecoder(IssuerRegistry registry, VerifiedTokenCache tokenCache,
+                                         ReactiveJwksLoader loader) {
+        this.registry = registry;
+        this.tokenCache = tokenCache;
+        this.loader = loader;
+        TrustedIssuer single = registry.singleTenant();
+        this.singleIssuer = single == null ? null : single.issuer();
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        Jwt cached = tokenCache.get(token);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        String issuer = singleIssuer != null ? singleIssuer : JwtPeek.issuer(token);
+        return tenant(issuer)
+                .flatMap(tenant -> keysFor(tenant, token)
+                        .then(Mono.fromCallable(() -> tenant.cachedDecoder().decode(token)))
+                        .doOnNext(jwt -> tokenCache.put(issuer, jwt, tenant.jwkSource()::publishes)));
+    }
+
+    private Mono<IssuerRegistry.TenantDecoder> tenant(String issuer) {
+        IssuerRegistry.TenantDecoder built = registry.decoderIfBuilt(issuer);
+        if (built != null) {
+            return Mono.just(built);
+        }
+        Mono<IssuerRegistry.TenantDecoder> decoder = Mono.fromCallable(() -> registry.decoderFor(issuer));
+        if (registry.isTrusted(issuer)) {
+            decoder = decoder.subscribeOn(Schedulers.boundedElastic())
+                    // e.g. OIDC discovery failed while building the decoder
+                    .onErrorMap(e -> new JwtException("Unable to build decoder for issuer " + issuer, e));
+        }
+        return decoder.switchIfEmpty(Mono.error(() -> new BadJwtException("Untrusted or missing issuer")));
+    }
+
+    /**
+     * Loads the JWKS if the token's key is not in memory. Tokens with an unreadable header or an algorithm the
+     * decoder refuses anyway are left to it.
+     */
+    private Mono<Void> keysFor(IssuerRegistry.TenantDecoder tenant, String token) {
+        byte[] header = JwtPeek.header(token);
+        String alg = header == null ? null : JwtPeek.topLevelString(header, "alg");
+        if (alg == null || !IssuerRegistry.SIGNING_ALGORITHMS.contains(JWSAlgorithm.parse(alg))) {
+            return Mono.empty();
+        }
+        return loader.ensure(tenant.jwkSource(), JwtPeek.topLevelString(header, "kid"), JWSAlgorithm.parse(alg));
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times a tenant's {@link JwtDecoder} as {@code auth.jwt.decode}: parsing, key lookup, signature check and
+ * validators, i.e. everything a token-cache miss costs.
+ *
+ * <p>Outcomes are {@code valid}, {@code invalid} (bad token, failed validator) and {@code error} (keys could not
+ * be obtained). Tags are only the tenant and the outcome; the {@code kid} and subject are deliberately not tags,
+ * since both come from the token and would let callers create series at will.</p>
+ */
+class TimedJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Timer valid;
+    private final Timer invalid;
+    private final Timer error;
+
+    TimedJwtDecoder(JwtDecoder delegate, MeterRegistry meterRegistry, Tags tags) {
+        this.delegate = delegate;
+        this.valid = timer(meterRegistry, tags, "valid");
+        this.invalid = timer(meterRegistry, tags, "invalid");
+        this.error = timer(meterRegistry, tags, "error");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        Timer outcome = error;
+        try {
+            Jwt jwt = delegate.decode(token);
+            outcome = valid;
+            return jwt;
+        } catch (BadJwtException e) {
+            outcome = invalid;
+            throw e;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Tags tags, String outcome) {
+        return Timer.builder("auth.jwt.decode")
+                .description("Bearer token decoding and validation on a token cache miss")
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.of(20, ChronoUnit.MICROS))
+                .maximumExpectedValue(Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+/**
+ * A tenant the gateway accepts tokens from.
+ *
+ * @param id       short tenant id (meter tag, default Redis key suffix)
+ * @param issuer   exact {@code iss} value
+ * @param audience required {@code aud} value
+ * @param jwksUri  configured JWKS URI, or {@code null} to use OIDC discovery
+ * @param redisKey Redis key of the tenant's shared JWKS cache
+ */
+public record TrustedIssuer(String id, String issuer, String audience, String jwksUri, String redisKey) {
+}
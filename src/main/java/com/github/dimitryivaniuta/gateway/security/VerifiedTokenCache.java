@@ -0,0 +1,187 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSnapshot;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of already verified bearer tokens ({@code auth.tokenCache}).
+ *
+ * <p>Clients reuse a token for its whole lifetime, so the signature check, claim parsing and validators of
+ * {@link MultiIssuerJwtDecoder} only have to run on the first request. Entries are keyed by the SHA-256 of the
+ * raw token (the token itself is never a key), hold the decoded {@link Jwt} and, once converted, its
+ * authorities, and expire at the token's {@code exp} or after {@code maxTtl}, whichever comes first. They are
+ * dropped as soon as their signing {@code kid} disappears from the issuer's JWKS. Eviction is by approximate
+ * memory weight ({@code maxWeight}). Metrics: {@code auth.token.cache.*}, {@code auth.token.cache.hit.ratio} and
+ * {@code auth.jwt.authorities} (time spent in the authorities mapper).</p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * Rough per-entry overhead on top of the token text: key, claim map, headers, authorities.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private static final class Entry {
+        private final Jwt jwt;
+        private final String issuer;
+        private final String kid;
+        private final long ttlNanos;
+        private volatile Collection<GrantedAuthority> authorities;
+
+        private Entry(Jwt jwt, String issuer, long ttlNanos) {
+            this.jwt = jwt;
+            this.issuer = issuer;
+            this.kid = (String) jwt.getHeaders().get("kid");
+            this.ttlNanos = ttlNanos;
+        }
+    }
+
+    private final boolean enabled;
+    private final Duration maxTtl;
+    private final Clock clock;
+    private final Cache<String, Entry> cache;
+    private final Timer authoritiesMapping;
+
+    public VerifiedTokenCache(AuthProperties authProperties, Clock clock, MeterRegistry meterRegistry) {
+        AuthProperties.TokenCache settings = authProperties.getTokenCache();
+        this.enabled = settings.isEnabled();
+        this.maxTtl = settings.getMaxTtl();
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxWeight().toBytes())
+                .weigher((String key, Entry entry) -> 2 * entry.jwt.getTokenValue().length() + ENTRY_OVERHEAD_BYTES)
+                .expireAfter(Expiry.creating((String key, Entry entry) -> Duration.ofNanos(entry.ttlNanos)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.cache");
+        Gauge.builder("auth.token.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of bearer tokens answered without signature verification")
+                .register(meterRegistry);
+        this.authoritiesMapping = Timer.builder("auth.jwt.authorities")
+                .description("Conversion of token claims to authorities, skipped for cached tokens already converted")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.of(1, ChronoUnit.MICROS))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the verified token, or {@code null} if not cached (or caching is disabled)
+     */
+    public Jwt get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(digest(token));
+        return entry == null ? null : entry.jwt;
+    }
+
+    /**
+     * Caches a token that {@code issuer}'s decoder has just verified and validated.
+     */
+    public void put(String issuer, Jwt jwt) {
+        put(issuer, jwt, kid -> true);
+    }
+
+    /**
+     * Like {@link #put(String, Jwt)}, then drops the entry again if {@code published} no longer knows its
+     * {@code kid}. The JWKS may have changed while the token was being verified, after {@link #onKeysChanged}
+     * already purged that {@code kid}.
+     *
+     * @param published whether the issuer's current JWKS still publishes a {@code kid}
+     */
+    public void put(String issuer, Jwt jwt, Predicate<String> published) {
+        if (!enabled) {
+            return;
+        }
+        Instant now = clock.instant();
+        Instant until = now.plus(maxTtl);
+        if (jwt.getExpiresAt() != null && jwt.getExpiresAt().isBefore(until)) {
+            until = jwt.getExpiresAt();
+        }
+        long ttlNanos = Duration.between(now, until).toNanos();
+        if (ttlNanos <= 0) {
+            return;
+        }
+        String key = digest(jwt.getTokenValue());
+        Entry entry = new Entry(jwt, issuer, ttlNanos);
+        cache.put(key, entry);
+        if (entry.kid != null && !published.test(entry.kid)) {
+            cache.asMap().remove(key, entry);
+        }
+    }
+
+    /**
+     * Authorities of {@code jwt}: converted once per cached token, otherwise by {@code mapper} on every call.
+     */
+    public Collection<GrantedAuthority> authorities(Jwt jwt, Converter<Jwt, Collection<GrantedAuthority>> mapper) {
+        Entry entry = enabled ? cache.getIfPresent(digest(jwt.getTokenValue())) : null;
+        if (entry == null || entry.jwt != jwt) {
+            return authoritiesMapping.record(() -> mapper.convert(jwt));
+        }
+        Collection<GrantedAuthority> authorities = entry.authorities;
+        if (authorities == null) {
+            authorities = List.copyOf(authoritiesMapping.record(() -> mapper.convert(jwt)));
+            entry.authorities = authorities;
+        }
+        return authorities;
+    }
+
+    /**
+     * Drops tokens of {@code issuer} whose signing key is no longer published. Tokens without {@code kid} are
+     * dropped on every JWKS change, as it is unknown which key verified them.
+     */
+    public void onKeysChanged(String issuer, JwkSnapshot snapshot) {
+        cache.asMap().values().removeIf(entry -> entry.issuer.equals(issuer)
+                && (entry.kid == null || !snapshot.contains(entry.kid)));
+    }
+
+    /**
+     * Drops every entry; the warm-up's scratch cache uses it so its tokens keep missing.
+     */
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
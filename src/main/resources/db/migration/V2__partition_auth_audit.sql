@@ -0,0 +1,46 @@
+-- Converts auth_audit into a table range-partitioned by created_at.
+--
+-- Existing rows are not copied: the old heap table is attached as partition auth_audit_legacy, covering
+-- everything up to the end of the current UTC day (or its newest row, if later). Future partitions
+-- (auth_audit_pYYYYMMDD / auth_audit_pYYYYMMDDHH) are created and expired by AuthAuditPartitionMaintainer.
+
+alter table auth_audit rename to auth_audit_legacy;
+alter table auth_audit_legacy drop constraint auth_audit_pkey;
+alter index idx_auth_audit_created_at rename to idx_auth_audit_legacy_created_at;
+alter index idx_auth_audit_subject rename to idx_auth_audit_legacy_subject;
+
+-- the partition key must be part of every unique constraint
+create table auth_audit (
+    id uuid not null,
+    created_at timestamptz not null,
+    correlation_id varchar(64) not null,
+    subject varchar(256),
+    issuer varchar(512) not null,
+    audience varchar(256) not null,
+    kid varchar(128),
+    path varchar(512) not null,
+    method varchar(16) not null,
+    outcome varchar(32) not null,
+    reason varchar(512),
+    primary key (id, created_at)
+) partition by range (created_at);
+
+create index idx_auth_audit_created_at on auth_audit(created_at);
+create index idx_auth_audit_subject on auth_audit(subject);
+
+do $$
+declare
+    legacy_upper timestamptz;
+begin
+    select greatest(
+               (date_trunc('day', now() at time zone 'UTC') + interval '1 day') at time zone 'UTC',
+               max(created_at) + interval '1 microsecond')
+      into legacy_upper
+      from auth_audit_legacy;
+
+    execute format('alter table auth_audit attach partition auth_audit_legacy for values from (minvalue) to (%L)',
+                   legacy_upper);
+end $$;
+
+-- safety net for rows outside any managed partition (e.g. maintainer not running)
+create table auth_audit_default partition of auth_audit default;
@@ -0,0 +1,7 @@
+-- Aggregated / sampled audit rows.
+-- event_count: number of requests a row stands for (1 for full records, window total for aggregates,
+--              1/sampleRate for sampled records).
+-- window_end:  end of the aggregation window (created_at is its start); null for per-request rows.
+
+alter table auth_audit add column event_count bigint not null default 1;
+alter table auth_audit add column window_end timestamptz;
@@ -0,0 +1,15 @@
+-- Transactional outbox for auth audit events.
+-- Rows are inserted in the same transaction as auth_audit and relayed to Kafka by AuthAuditOutboxRelay,
+-- which claims pending rows with FOR UPDATE SKIP LOCKED so several instances can share the work.
+
+create table if not exists auth_audit_outbox (
+    id bigserial primary key,
+    created_at timestamptz not null,
+    message_key varchar(256) not null,
+    payload text not null,
+    sent_at timestamptz
+);
+
+-- pending rows only: keeps the relay's claim query cheap however many sent rows remain
+create index if not exists idx_auth_audit_outbox_pending on auth_audit_outbox(id) where sent_at is null;
+create index if not exists idx_auth_audit_outbox_sent_at on auth_audit_outbox(sent_at) where sent_at is not null;
@@ -0,0 +1,5 @@
+-- Issuer and audience are those of the tenant that validated the token. Requests rejected before
+-- authentication have neither, so both columns become nullable (propagated to every partition).
+
+alter table auth_audit alter column issuer drop not null;
+alter table auth_audit alter column audience drop not null;
@@ -0,0 +1,11 @@
+-- Failed relay attempts are counted per outbox row. A row whose payload cannot be read or that Kafka rejects
+-- permanently, or that keeps failing while the rest of its batch is acknowledged, is parked: it stays in the
+-- table for inspection but is no longer claimed, so it cannot stall the relay.
+
+alter table auth_audit_outbox add column if not exists attempts int not null default 0;
+alter table auth_audit_outbox add column if not exists last_error varchar(512);
+alter table auth_audit_outbox add column if not exists parked_at timestamptz;
+
+drop index if exists idx_auth_audit_outbox_pending;
+create index if not exists idx_auth_audit_outbox_pending on auth_audit_outbox(id)
+    where sent_at is null and parked_at is null;
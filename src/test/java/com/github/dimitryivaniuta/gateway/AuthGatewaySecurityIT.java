@@ -1,6 +1,7 @@
 package com.github.dimitryivaniuta.gateway;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -8,6 +9,7 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
@@ -98,7 +100,9 @@ class AuthGatewaySecurityIT {
                 .header("Authorization", "Bearer " + jwt))
                 .andExpect(status().isOk());
 
-        assertThat(auditRepository.count()).isGreaterThan(0);
+        // audit is write-behind: records land shortly after the response
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(auditRepository.count()).isGreaterThan(0));
     }
 
     @Test
@@ -121,12 +125,18 @@ class AuthGatewaySecurityIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void health_probes_are_public() throws Exception {
+        mvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+        mvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+    }
+
     private static void stubJwks(JWKSet jwkSet) {
         WIREMOCK.resetMappings();
-        WIREMOCK.stubFor(get(urlEqualTo("/jwks"))
+        WIREMOCK.stubFor(com.github.tomakehurst.wiremock.client.WireMock.get(urlEqualTo("/jwks"))
                 .willReturn(aResponse()
                         .withHeader("Content-Type", "application/json")
-                        .withBody(jwkSet.toJSONObject().toJSONString())));
+                        .withBody(jwkSet.toString())));
     }
 
     private static RSAKey newKey(String kid) throws Exception {
@@ -0,0 +1,35 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for partition boundaries and names of {@link AuditPartitionGranularity}.
+ */
+class AuditPartitionGranularityTest {
+
+    @Test
+    void day_partitions_start_at_utc_midnight() {
+        Instant t = Instant.parse("2025-03-01T23:59:59.999Z");
+
+        assertThat(AuditPartitionGranularity.DAY.floor(t)).isEqualTo(Instant.parse("2025-03-01T00:00:00Z"));
+        assertThat(AuditPartitionGranularity.DAY.next(Instant.parse("2025-02-28T00:00:00Z")))
+                .isEqualTo(Instant.parse("2025-03-01T00:00:00Z"));
+        assertThat(AuditPartitionGranularity.DAY.partitionName(Instant.parse("2025-03-01T00:00:00Z")))
+                .isEqualTo("auth_audit_p20250301");
+    }
+
+    @Test
+    void hour_partitions_start_at_the_full_hour() {
+        Instant t = Instant.parse("2025-12-31T23:30:00Z");
+
+        assertThat(AuditPartitionGranularity.HOUR.floor(t)).isEqualTo(Instant.parse("2025-12-31T23:00:00Z"));
+        assertThat(AuditPartitionGranularity.HOUR.next(AuditPartitionGranularity.HOUR.floor(t)))
+                .isEqualTo(Instant.parse("2026-01-01T00:00:00Z"));
+        assertThat(AuditPartitionGranularity.HOUR.partitionName(Instant.parse("2026-01-01T07:00:00Z")))
+                .isEqualTo("auth_audit_p2026010107");
+    }
+}
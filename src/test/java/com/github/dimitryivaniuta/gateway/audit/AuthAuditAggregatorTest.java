@@ -0,0 +1,141 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Window swaps, key limit and summary rows of {@link AuthAuditAggregator}.
+ */
+class AuthAuditAggregatorTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+
+    @Test
+    void flush_writes_one_summary_per_key() {
+        AuthAuditQueue queue = queue();
+        AuthAuditAggregator aggregator = new AuthAuditAggregator(queue, Clock.fixed(NOW, ZoneOffset.UTC), props, registry);
+        aggregator.record(entity("alice"));
+        aggregator.record(entity("alice"));
+        aggregator.record(entity("bob"));
+
+        aggregator.flush();
+
+        List<AuthAuditEntity> out = drain(queue);
+        assertThat(out).extracting(AuthAuditEntity::getSubject, AuthAuditEntity::getEventCount)
+                .containsExactlyInAnyOrder(tuple("alice", 2L), tuple("bob", 1L));
+        assertThat(out).allSatisfy(e -> {
+            assertThat(e.getCorrelationId()).isEqualTo(AuthAuditAggregator.AGGREGATE_CORRELATION_ID);
+            assertThat(e.getCreatedAt()).isEqualTo(NOW);
+            assertThat(e.getWindowEnd()).isEqualTo(NOW);
+            assertThat(e.getOutcome()).isEqualTo(AuthAuditOutcome.ACCEPTED);
+        });
+
+        aggregator.flush();
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void new_key_beyond_max_keys_is_refused() {
+        props.getAudit().getAggregation().setMaxKeys(1);
+        AuthAuditAggregator aggregator = new AuthAuditAggregator(queue(), Clock.systemUTC(), props, registry);
+
+        assertThat(aggregator.record(entity("alice"))).isTrue();
+        assertThat(aggregator.record(entity("alice"))).isTrue();
+        assertThat(aggregator.record(entity("bob"))).isFalse();
+
+        aggregator.flush();
+        assertThat(aggregator.record(entity("bob"))).isTrue();
+    }
+
+    @Test
+    void concurrent_records_survive_window_swaps_exactly_once() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        AuthAuditQueue queue = queue();
+        AuthAuditAggregator aggregator = new AuthAuditAggregator(queue, Clock.systemUTC(), props, registry);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        try {
+            List<Future<?>> recorders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String subject = "user-" + (t % 3);
+                recorders.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        assertThat(aggregator.record(entity(subject))).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> flusher = pool.submit(() -> {
+                start.await();
+                int flushes = 0;
+                while (recording.get()) {
+                    aggregator.flush();
+                    flushes++;
+                }
+                return flushes;
+            });
+
+            start.countDown();
+            for (Future<?> f : recorders) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            assertThat(flusher.get(30, TimeUnit.SECONDS)).isPositive();
+        } finally {
+            pool.shutdownNow();
+        }
+        aggregator.flush();
+
+        assertThat(drain(queue).stream().mapToLong(AuthAuditEntity::getEventCount).sum())
+                .isEqualTo((long) threads * perThread);
+    }
+
+    private AuthAuditQueue queue() {
+        props.getAudit().setQueueCapacity(1_000_000);
+        return new AuthAuditQueue(props, registry);
+    }
+
+    private static List<AuthAuditEntity> drain(AuthAuditQueue queue) {
+        List<AuthAuditEntity> out = new ArrayList<>();
+        queue.drainTo(out, Integer.MAX_VALUE);
+        return out;
+    }
+
+    private static AuthAuditEntity entity(String subject) {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.randomUUID());
+        e.setCreatedAt(NOW);
+        e.setIssuer("http://issuer.test");
+        e.setAudience("api");
+        e.setSubject(subject);
+        e.setPath("/api/orders");
+        e.setMethod("GET");
+        e.setOutcome(AuthAuditOutcome.ACCEPTED);
+        return e;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Round-trip and compatibility tests for the binary {@link AuthAuditEvent} wire format.
+ */
+class AuthAuditEventBinaryCodecTest {
+
+    private static final List<String> ISSUERS = List.of("http://issuer.test");
+    private static final List<String> AUDIENCES = List.of("api");
+
+    private final AuthAuditEventBinaryCodec codec = new AuthAuditEventBinaryCodec(ISSUERS, AUDIENCES);
+
+    /**
+     * Version 2 encoding of {@link #minimal()} with the fingerprint of {@link #ISSUERS} and {@link #AUDIENCES};
+     * must keep decoding after any change to the codec.
+     */
+    private static final String V2_MINIMAL_HEX =
+            "02" + "2d8f5b02" + "bf07" + "00000000000000010000000000000002" + "80c49fd50c" + "00" + "03636964" + "0161"
+                    + "01" + "01" + "062f6170692f78" + "01" + "01" + "01";
+
+    /**
+     * The same fields in the unfingerprinted version 1 layout, which is no longer accepted.
+     */
+    private static final String V1_MINIMAL_HEX = "01" + V2_MINIMAL_HEX.substring(10);
+
+    @Test
+    void round_trips_full_event() {
+        AuthAuditEvent event = AuthAuditEvent.builder()
+                .id(UUID.randomUUID())
+                .createdAt(Instant.parse("2025-03-01T12:34:56.123456789Z"))
+                .correlationId("c0ffee")
+                .subject("john")
+                .issuer("http://issuer.test")
+                .audience("api")
+                .kid("kid-1")
+                .path("/api/user/me")
+                .method("GET")
+                .outcome(AuthAuditOutcome.FORBIDDEN)
+                .reason("Access Denied")
+                .eventCount(42)
+                .windowEnd(Instant.parse("2025-03-01T12:35:56Z"))
+                .build();
+
+        assertThat(codec.decode(codec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void round_trips_nulls_and_values_outside_dictionaries() {
+        AuthAuditEvent event = AuthAuditEvent.builder()
+                .id(UUID.randomUUID())
+                .createdAt(Instant.ofEpochSecond(-5, 7))
+                .correlationId("n/a")
+                .issuer("https://other-issuer")
+                .audience("other-api")
+                .path("/api/ünïcode")
+                .method("PROPFIND")
+                .outcome(AuthAuditOutcome.REJECTED)
+                .eventCount(1)
+                .build();
+
+        AuthAuditEvent decoded = codec.decode(codec.encode(event));
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.getSubject()).isNull();
+        assertThat(decoded.getWindowEnd()).isNull();
+    }
+
+    @Test
+    void rejects_version_1_payload() {
+        assertThatThrownBy(() -> codec.decode(HexFormat.of().parseHex(V1_MINIMAL_HEX)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("wire version: 1");
+    }
+
+    @Test
+    void encodes_version_2_golden_payload() {
+        assertThat(codec.encode(minimal())).isEqualTo(HexFormat.of().parseHex(V2_MINIMAL_HEX));
+        assertThat(codec.decode(HexFormat.of().parseHex(V2_MINIMAL_HEX))).isEqualTo(minimal());
+    }
+
+    @Test
+    void reads_producers_whose_dictionaries_are_a_prefix_of_its_own() {
+        AuthAuditEventBinaryCodec appended = new AuthAuditEventBinaryCodec(
+                List.of("http://issuer.test", "https://partner.test"), List.of("api", "partner-api"));
+
+        assertThat(appended.decode(codec.encode(minimal()))).isEqualTo(minimal());
+        assertThat(appended.fingerprint()).isNotEqualTo(codec.fingerprint());
+    }
+
+    @Test
+    void rejects_producers_with_different_dictionaries() {
+        AuthAuditEventBinaryCodec reordered = new AuthAuditEventBinaryCodec(
+                List.of("https://partner.test", "http://issuer.test"), AUDIENCES);
+        AuthAuditEventBinaryCodec appended = new AuthAuditEventBinaryCodec(
+                List.of("http://issuer.test", "https://partner.test"), AUDIENCES);
+
+        assertThatThrownBy(() -> codec.decode(reordered.encode(minimal())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dictionaries differ");
+        // a newer producer may use codes this consumer does not know yet
+        assertThatThrownBy(() -> codec.decode(appended.encode(minimal())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void is_much_smaller_than_json() throws Exception {
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        AuthAuditEvent event = minimal();
+
+        assertThat(codec.encode(event).length * 3).isLessThan(json.writeValueAsBytes(event).length);
+    }
+
+    @Test
+    void rejects_unknown_version_and_truncated_payloads() {
+        byte[] payload = codec.encode(minimal());
+        byte[] future = payload.clone();
+        future[0] = 3;
+
+        AuthAuditEventBinaryDeserializer deserializer = new AuthAuditEventBinaryDeserializer();
+        deserializer.configure(Map.of(AuthAuditEventBinarySerializer.ISSUER_DICTIONARY_CONFIG, "http://issuer.test",
+                AuthAuditEventBinarySerializer.AUDIENCE_DICTIONARY_CONFIG, "api"), false);
+
+        assertThat(deserializer.deserialize("t", payload)).isEqualTo(minimal());
+        assertThatThrownBy(() -> deserializer.deserialize("t", future)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserializer.deserialize("t", Arrays.copyOf(payload, payload.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private static AuthAuditEvent minimal() {
+        return AuthAuditEvent.builder()
+                .id(new UUID(1, 2))
+                .createdAt(Instant.ofEpochSecond(1_700_000_000L))
+                .correlationId("cid")
+                .subject("a")
+                .issuer("http://issuer.test")
+                .audience("api")
+                .path("/api/x")
+                .method("GET")
+                .outcome(AuthAuditOutcome.ACCEPTED)
+                .eventCount(1)
+                .build();
+    }
+}
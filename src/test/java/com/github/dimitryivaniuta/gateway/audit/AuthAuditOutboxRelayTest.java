@@ -0,0 +1,136 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.apache.kafka.common.errors.NetworkException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Failure accounting and parking of {@link AuthAuditOutboxRelay}.
+ */
+class AuthAuditOutboxRelayTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final AuthAuditEvent EVENT = AuthAuditEvent.builder().outcome(AuthAuditOutcome.ACCEPTED).build();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final AuthAuditOutbox outbox = mock(AuthAuditOutbox.class);
+    private final AuthAuditPublisher publisher = mock(AuthAuditPublisher.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        props.getAudit().getOutbox().setMaxAttempts(3);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+        when(outbox.read(any())).thenReturn(EVENT);
+        when(publisher.publish(anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void unreadable_payload_is_parked_at_once_and_the_rest_is_sent() {
+        AuthAuditOutbox.Message bad = message(2, 0);
+        when(outbox.claim(anyInt())).thenReturn(List.of(message(1, 0), bad, message(3, 0)));
+        when(outbox.read(bad)).thenThrow(new IllegalStateException("Unreadable outbox payload id=2"));
+
+        relay().relay();
+
+        verify(outbox).markSent(List.of(1L, 3L), NOW);
+        assertThat(failures()).singleElement().satisfies(f -> {
+            assertThat(f.id()).isEqualTo(2);
+            assertThat(f.park()).isTrue();
+            assertThat(f.error()).contains("Unreadable outbox payload id=2");
+        });
+        assertThat(count("auth.audit.outbox.parked")).isEqualTo(1);
+        assertThat(count("auth.audit.outbox.failed")).isEqualTo(1);
+    }
+
+    @Test
+    void record_rejected_by_kafka_is_parked_even_when_nothing_else_is_acknowledged() {
+        when(outbox.claim(anyInt())).thenReturn(List.of(message(1, 0)));
+        when(publisher.publish(anyString(), any())).thenReturn(CompletableFuture.failedFuture(
+                new KafkaProducerException(null, "Failed to send", new RecordTooLargeException("too large"))));
+
+        relay().relay();
+
+        assertThat(failures()).singleElement().satisfies(f -> {
+            assertThat(f.park()).isTrue();
+            assertThat(f.error()).contains("too large");
+        });
+    }
+
+    @Test
+    void transient_failure_counts_an_attempt_and_parks_at_max_attempts() {
+        when(outbox.claim(anyInt())).thenReturn(List.of(message(1, 0), message(2, 1), message(3, 2)));
+        when(publisher.publish(anyString(), any())).thenReturn(
+                CompletableFuture.completedFuture(null),
+                CompletableFuture.failedFuture(new NetworkException("reset")),
+                CompletableFuture.failedFuture(new NetworkException("reset")));
+
+        relay().relay();
+
+        verify(outbox).markSent(List.of(1L), NOW);
+        assertThat(failures()).extracting(AuthAuditOutbox.Failure::id, AuthAuditOutbox.Failure::park)
+                .containsExactly(tuple(2L, false), tuple(3L, true));
+        assertThat(count("auth.audit.outbox.parked")).isEqualTo(1);
+    }
+
+    @Test
+    void outage_counts_no_attempts() {
+        when(outbox.claim(anyInt())).thenReturn(List.of(message(1, 5), message(2, 5)));
+        when(publisher.publish(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new NetworkException("broker down")));
+
+        relay().relay();
+
+        assertThat(failures()).isEmpty();
+        assertThat(count("auth.audit.outbox.parked")).isZero();
+        assertThat(count("auth.audit.outbox.failed")).isEqualTo(2);
+    }
+
+    private AuthAuditOutboxRelay relay() {
+        return new AuthAuditOutboxRelay(outbox, publisher, transactionTemplate, Clock.fixed(NOW, ZoneOffset.UTC),
+                props, registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AuthAuditOutbox.Failure> failures() {
+        ArgumentCaptor<List<AuthAuditOutbox.Failure>> captor = ArgumentCaptor.forClass(List.class);
+        verify(outbox).recordFailures(captor.capture(), eq(NOW));
+        return captor.getValue();
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static AuthAuditOutbox.Message message(long id, int attempts) {
+        return new AuthAuditOutbox.Message(id, "key-" + id, "{}", attempts);
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for partition bounds, creation and retention of {@link AuthAuditPartitionMaintainer}, against a
+ * scripted JDBC connection.
+ */
+class AuthAuditPartitionMaintainerTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T10:15:00Z");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final Connection con = mock(Connection.class);
+    private final Statement st = mock(Statement.class);
+    /** Executed statements, in order. */
+    private final List<String> executed = new ArrayList<>();
+    /** SQLState to fail a statement with, by statement prefix. */
+    private final Map<String, String> failures = new HashMap<>();
+    private final List<String> partitions = new ArrayList<>();
+
+    @BeforeEach
+    void scriptConnection() throws Exception {
+        AuthProperties.Partitions p = props.getAudit().getPartitions();
+        p.setGranularity(AuditPartitionGranularity.DAY);
+        p.setPrecreateAhead(Duration.ofDays(1));
+        p.setRetention(Duration.ofDays(7));
+
+        when(con.createStatement()).thenReturn(st);
+        when(st.execute(anyString())).thenAnswer(inv -> run(inv.getArgument(0)) == 0);
+        when(st.executeUpdate(anyString())).thenAnswer(inv -> run(inv.getArgument(0)));
+        when(st.executeQuery(anyString())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            executed.add(sql);
+            return sql.contains("pg_try_advisory_lock") ? rows(List.of(true)) : rows(new ArrayList<>(partitions));
+        });
+    }
+
+    @Test
+    void derives_the_upper_bound_from_day_and_hour_names() {
+        assertThat(AuthAuditPartitionMaintainer.upperBound("auth_audit_p20250301"))
+                .isEqualTo(Instant.parse("2025-03-02T00:00:00Z"));
+        assertThat(AuthAuditPartitionMaintainer.upperBound("auth_audit_p2025030123"))
+                .isEqualTo(Instant.parse("2025-03-02T00:00:00Z"));
+        assertThatThrownBy(() -> AuthAuditPartitionMaintainer.upperBound("auth_audit_legacy"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void precreates_partitions_up_to_the_horizon() {
+        maintainer().maintain();
+
+        assertThat(executed).contains(
+                "create table if not exists auth_audit_p20250310 partition of auth_audit"
+                        + " for values from ('2025-03-10T00:00:00Z') to ('2025-03-11T00:00:00Z')",
+                "create table if not exists auth_audit_p20250311 partition of auth_audit"
+                        + " for values from ('2025-03-11T00:00:00Z') to ('2025-03-12T00:00:00Z')");
+        assertThat(failed("create")).isZero();
+    }
+
+    @Test
+    void drops_or_detaches_only_expired_managed_partitions() {
+        partitions.addAll(List.of("auth_audit_legacy", "auth_audit_default", "auth_audit_p20250302",
+                "auth_audit_p20250303", "auth_audit_p20250304"));
+
+        maintainer().maintain();
+        props.getAudit().getPartitions().setRetentionAction(AuditPartitionRetentionAction.DETACH);
+        maintainer().maintain();
+
+        // cutoff is 2025-03-03T10:15Z: only the partition ending at 2025-03-03T00:00Z is past it
+        assertThat(executed).contains("drop table if exists auth_audit_p20250302",
+                "alter table auth_audit detach partition auth_audit_p20250302");
+        assertThat(executed).noneMatch(sql -> (sql.startsWith("drop") || sql.contains("detach"))
+                && !sql.endsWith("auth_audit_p20250302"));
+    }
+
+    @Test
+    void moves_rows_out_of_the_default_partition_before_attaching() throws Exception {
+        failures.put("create table if not exists auth_audit_p20250310", "23514");
+
+        maintainer().maintain();
+
+        assertThat(executed).containsSubsequence(
+                "create table auth_audit_p20250310 (like auth_audit including defaults including constraints)",
+                "with moved as (delete from auth_audit_default where created_at >= '2025-03-10T00:00:00Z'"
+                        + " and created_at < '2025-03-11T00:00:00Z' returning *)"
+                        + " insert into auth_audit_p20250310 select * from moved",
+                "alter table auth_audit attach partition auth_audit_p20250310"
+                        + " for values from ('2025-03-10T00:00:00Z') to ('2025-03-11T00:00:00Z')");
+        verify(con).commit();
+        assertThat(failed("create")).isZero();
+    }
+
+    @Test
+    void failed_creation_is_counted_but_an_overlap_is_not() throws Exception {
+        failures.put("create table if not exists auth_audit_p20250310", "42P17");
+        failures.put("create table if not exists auth_audit_p20250311", "42501");
+
+        maintainer().maintain();
+
+        assertThat(failed("create")).isEqualTo(1);
+
+        failures.clear();
+        failures.put("create table if not exists auth_audit_p20250310", "23514");
+        failures.put("alter table auth_audit attach", "23514");
+        maintainer().maintain();
+
+        verify(con).rollback();
+        assertThat(failed("create")).isEqualTo(2);
+    }
+
+    private AuthAuditPartitionMaintainer maintainer() {
+        DataSource dataSource = mock(DataSource.class);
+        try {
+            when(dataSource.getConnection()).thenReturn(con);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return new AuthAuditPartitionMaintainer(props, new JdbcTemplate(dataSource),
+                Clock.fixed(NOW, ZoneOffset.UTC), registry);
+    }
+
+    private int run(String sql) throws SQLException {
+        executed.add(sql);
+        for (Map.Entry<String, String> failure : failures.entrySet()) {
+            if (sql.startsWith(failure.getKey())) {
+                throw new SQLException("scripted failure", failure.getValue());
+            }
+        }
+        return 0;
+    }
+
+    private double failed(String action) {
+        return registry.get("auth.audit.partition.failed").tag("action", action).counter().count();
+    }
+
+    private static ResultSet rows(List<?> values) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        when(rs.next()).thenAnswer(inv -> ++row[0] < values.size());
+        when(rs.getString(1)).thenAnswer(inv -> String.valueOf(values.get(row[0])));
+        when(rs.getBoolean(1)).thenAnswer(inv -> (Boolean) values.get(row[0]));
+        return rs;
+    }
+}
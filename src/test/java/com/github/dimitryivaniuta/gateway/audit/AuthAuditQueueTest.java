@@ -0,0 +1,96 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the write-behind queue overflow policies.
+ */
+class AuthAuditQueueTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void drains_failures_before_accepted() {
+        AuthAuditQueue queue = queue(10, AuditOverflowPolicy.DROP_OLDEST);
+        queue.offer(entity(AuthAuditOutcome.ACCEPTED, 1));
+        queue.offer(entity(AuthAuditOutcome.REJECTED, 2));
+
+        List<AuthAuditEntity> out = new ArrayList<>();
+        assertThat(queue.drainTo(out, 10)).isEqualTo(2);
+        assertThat(out).extracting(AuthAuditEntity::getOutcome)
+                .containsExactly(AuthAuditOutcome.REJECTED, AuthAuditOutcome.ACCEPTED);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void drop_oldest_evicts_oldest_record() {
+        AuthAuditQueue queue = queue(2, AuditOverflowPolicy.DROP_OLDEST);
+        queue.offer(entity(AuthAuditOutcome.REJECTED, 1));
+        queue.offer(entity(AuthAuditOutcome.ACCEPTED, 2));
+
+        assertThat(queue.offer(entity(AuthAuditOutcome.ACCEPTED, 3))).isTrue();
+
+        List<AuthAuditEntity> out = new ArrayList<>();
+        queue.drainTo(out, 10);
+        assertThat(out).extracting(e -> e.getCreatedAt().getEpochSecond()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(dropped(AuthAuditOutcome.REJECTED)).isEqualTo(1.0);
+    }
+
+    @Test
+    void drop_accepted_first_keeps_failures() {
+        AuthAuditQueue queue = queue(2, AuditOverflowPolicy.DROP_ACCEPTED_FIRST);
+        queue.offer(entity(AuthAuditOutcome.REJECTED, 1));
+        queue.offer(entity(AuthAuditOutcome.ACCEPTED, 2));
+
+        assertThat(queue.offer(entity(AuthAuditOutcome.ACCEPTED, 3))).isFalse();
+        assertThat(queue.offer(entity(AuthAuditOutcome.FORBIDDEN, 4))).isTrue();
+
+        List<AuthAuditEntity> out = new ArrayList<>();
+        queue.drainTo(out, 10);
+        assertThat(out).extracting(AuthAuditEntity::getOutcome)
+                .containsExactly(AuthAuditOutcome.REJECTED, AuthAuditOutcome.FORBIDDEN);
+        assertThat(dropped(AuthAuditOutcome.ACCEPTED)).isEqualTo(2.0);
+    }
+
+    @Test
+    void block_gives_up_after_timeout() {
+        AuthAuditQueue queue = queue(1, AuditOverflowPolicy.BLOCK);
+        queue.offer(entity(AuthAuditOutcome.ACCEPTED, 1));
+
+        assertThat(queue.offer(entity(AuthAuditOutcome.REJECTED, 2))).isFalse();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(dropped(AuthAuditOutcome.REJECTED)).isEqualTo(1.0);
+    }
+
+    private AuthAuditQueue queue(int capacity, AuditOverflowPolicy policy) {
+        AuthProperties props = new AuthProperties();
+        props.getAudit().setQueueCapacity(capacity);
+        props.getAudit().setOverflowPolicy(policy);
+        props.getAudit().setBlockTimeout(Duration.ofMillis(5));
+        return new AuthAuditQueue(props, registry);
+    }
+
+    private double dropped(AuthAuditOutcome outcome) {
+        return registry.get("auth.audit.queue.dropped").tag("outcome", outcome.name()).counter().count();
+    }
+
+    private static AuthAuditEntity entity(AuthAuditOutcome outcome, long epochSecond) {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.randomUUID());
+        e.setCreatedAt(Instant.ofEpochSecond(epochSecond));
+        e.setOutcome(outcome);
+        return e;
+    }
+}
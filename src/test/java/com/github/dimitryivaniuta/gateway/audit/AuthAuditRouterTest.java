@@ -0,0 +1,160 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-outcome modes, sampling weights and full-record fallbacks of {@link AuthAuditRouter}.
+ */
+class AuthAuditRouterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private AuthAuditQueue queue;
+    private AuthAuditAggregator aggregator;
+
+    @Test
+    void sample_rate_of_one_keeps_every_record_at_weight_one() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.ACCEPTED, AuditMode.SAMPLED);
+        props.getAudit().setSampleRate(1.0);
+        AuthAuditRouter router = router();
+
+        for (int i = 0; i < 1_000; i++) {
+            router.route(entity(AuthAuditOutcome.ACCEPTED));
+        }
+
+        assertThat(drain()).hasSize(1_000).allSatisfy(e -> assertThat(e.getEventCount()).isEqualTo(1));
+        assertThat(count("auth.audit.sampled.out")).isZero();
+    }
+
+    @Test
+    void sampled_records_carry_the_inverse_rate_and_total_stays_close() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.ACCEPTED, AuditMode.SAMPLED);
+        props.getAudit().setSampleRate(0.1);
+        AuthAuditRouter router = router();
+
+        int routed = 100_000;
+        for (int i = 0; i < routed; i++) {
+            router.route(entity(AuthAuditOutcome.ACCEPTED));
+        }
+
+        List<AuthAuditEntity> kept = drain();
+        assertThat(kept).allSatisfy(e -> assertThat(e.getEventCount()).isEqualTo(10));
+        // binomial(100000, 0.1): sd ~95, so +-1000 is far outside any plausible run
+        assertThat(kept.size()).isBetween(9_000, 11_000);
+        assertThat(count("auth.audit.sampled.out")).isEqualTo(routed - kept.size());
+    }
+
+    @Test
+    void weight_is_the_rounded_inverse_rate() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.ACCEPTED, AuditMode.SAMPLED);
+        props.getAudit().setSampleRate(0.3);
+        AuthAuditRouter router = router();
+
+        // 0.7^200: never all sampled out
+        for (int i = 0; i < 200 && queue.isEmpty(); i++) {
+            router.route(entity(AuthAuditOutcome.ACCEPTED));
+        }
+
+        assertThat(drain()).singleElement().extracting(AuthAuditEntity::getEventCount).isEqualTo(3L);
+    }
+
+    @Test
+    void tiny_sample_rate_drops_nearly_everything() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.ACCEPTED, AuditMode.SAMPLED);
+        props.getAudit().setSampleRate(1e-9);
+        AuthAuditRouter router = router();
+
+        for (int i = 0; i < 10_000; i++) {
+            router.route(entity(AuthAuditOutcome.ACCEPTED));
+        }
+
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(count("auth.audit.sampled.out")).isEqualTo(10_000);
+    }
+
+    @Test
+    void failures_are_written_in_full_whatever_the_routing_says() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.REJECTED, AuditMode.SAMPLED);
+        props.getAudit().getRouting().put(AuthAuditOutcome.FORBIDDEN, AuditMode.AGGREGATED);
+        props.getAudit().setSampleRate(1e-9);
+        AuthAuditRouter router = router();
+
+        for (int i = 0; i < 100; i++) {
+            router.route(entity(AuthAuditOutcome.REJECTED));
+            router.route(entity(AuthAuditOutcome.FORBIDDEN));
+        }
+        aggregator.flush();
+
+        assertThat(drain()).hasSize(200).allSatisfy(e -> {
+            assertThat(e.getEventCount()).isEqualTo(1);
+            assertThat(e.getCorrelationId()).isNotEqualTo(AuthAuditAggregator.AGGREGATE_CORRELATION_ID);
+        });
+        assertThat(count("auth.audit.sampled.out")).isZero();
+        assertThat(count("auth.audit.aggregated")).isZero();
+    }
+
+    @Test
+    void aggregation_overflow_falls_back_to_a_full_record() {
+        props.getAudit().getRouting().put(AuthAuditOutcome.ACCEPTED, AuditMode.AGGREGATED);
+        props.getAudit().getAggregation().setMaxKeys(1);
+        AuthAuditRouter router = router();
+
+        router.route(entity(AuthAuditOutcome.ACCEPTED, "alice"));
+        router.route(entity(AuthAuditOutcome.ACCEPTED, "alice"));
+        router.route(entity(AuthAuditOutcome.ACCEPTED, "bob"));
+
+        assertThat(drain()).singleElement().extracting(AuthAuditEntity::getSubject).isEqualTo("bob");
+        assertThat(count("auth.audit.aggregated")).isEqualTo(2);
+        assertThat(count("auth.audit.aggregation.overflow")).isEqualTo(1);
+
+        aggregator.flush();
+        assertThat(drain()).singleElement().satisfies(e -> {
+            assertThat(e.getSubject()).isEqualTo("alice");
+            assertThat(e.getEventCount()).isEqualTo(2);
+        });
+    }
+
+    private AuthAuditRouter router() {
+        props.getAudit().setQueueCapacity(1_000_000);
+        queue = new AuthAuditQueue(props, registry);
+        aggregator = new AuthAuditAggregator(queue, Clock.systemUTC(), props, registry);
+        return new AuthAuditRouter(props, queue, aggregator, registry);
+    }
+
+    private List<AuthAuditEntity> drain() {
+        List<AuthAuditEntity> out = new ArrayList<>();
+        queue.drainTo(out, Integer.MAX_VALUE);
+        return out;
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static AuthAuditEntity entity(AuthAuditOutcome outcome) {
+        return entity(outcome, "alice");
+    }
+
+    private static AuthAuditEntity entity(AuthAuditOutcome outcome, String subject) {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.randomUUID());
+        e.setCreatedAt(Instant.now());
+        e.setSubject(subject);
+        e.setPath("/api/orders");
+        e.setMethod("GET");
+        e.setOutcome(outcome);
+        return e;
+    }
+}
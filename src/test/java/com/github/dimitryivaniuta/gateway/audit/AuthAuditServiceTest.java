@@ -0,0 +1,84 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Unit tests for the issuer, audience and token fields of audit records.
+ */
+class AuthAuditServiceTest {
+
+    private static final TrustedIssuer TENANT_B =
+            new TrustedIssuer("b", "http://issuer-b.test", "api-b", "http://issuer-b.test/jwks", "jwks:b");
+
+    private final IssuerRegistry issuerRegistry = mock(IssuerRegistry.class);
+    private final AuthAuditRouter router = mock(AuthAuditRouter.class);
+    private final AuthAuditService service = new AuthAuditService(issuerRegistry, router);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+
+    @Test
+    void accepted_record_carries_the_issuer_and_audience_of_the_token_tenant() {
+        when(issuerRegistry.tenant(TENANT_B.issuer())).thenReturn(TENANT_B);
+
+        AuthAuditEntity e = service.accepted(request, Jwt.withTokenValue("t")
+                .header("alg", "RS256")
+                .header("kid", "key-b")
+                .issuer(TENANT_B.issuer())
+                .audience(List.of("other", "api-b"))
+                .subject("bob")
+                .build());
+
+        assertThat(e.getIssuer()).isEqualTo("http://issuer-b.test");
+        assertThat(e.getAudience()).isEqualTo("api-b");
+        assertThat(e.getSubject()).isEqualTo("bob");
+        assertThat(e.getKid()).isEqualTo("key-b");
+        verify(router).route(e);
+    }
+
+    @Test
+    void rejected_record_has_no_issuer_or_audience() {
+        AuthAuditEntity e = service.rejected(request, "Invalid token");
+
+        assertThat(e.getIssuer()).isNull();
+        assertThat(e.getAudience()).isNull();
+        assertThat(e.getSubject()).isNull();
+        assertThat(e.getOutcome()).isEqualTo(AuthAuditOutcome.REJECTED);
+    }
+
+    @Test
+    void forbidden_record_without_a_jwt_has_no_token_fields() {
+        AuthAuditEntity e = service.forbidden(request, null, "Access Denied");
+
+        assertThat(e.getIssuer()).isNull();
+        assertThat(e.getKid()).isNull();
+        assertThat(e.getOutcome()).isEqualTo(AuthAuditOutcome.FORBIDDEN);
+    }
+
+    @Test
+    void token_fields_are_truncated_to_their_columns() {
+        MockHttpServletRequest custom = new MockHttpServletRequest("PROPFIND-EXTENDED-METHOD", "/api/orders");
+
+        AuthAuditEntity e = service.forbidden(custom, Jwt.withTokenValue("t")
+                .header("alg", "RS256")
+                .header("kid", "k".repeat(300))
+                .issuer("http://unknown.test")
+                .subject("s".repeat(1000))
+                .build(), "Access Denied");
+
+        assertThat(e.getSubject()).hasSize(256);
+        assertThat(e.getKid()).hasSize(128);
+        assertThat(e.getMethod()).hasSize(16);
+        assertThat(e.getAudience()).isNull();
+    }
+}
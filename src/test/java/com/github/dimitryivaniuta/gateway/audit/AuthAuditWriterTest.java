@@ -0,0 +1,124 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Batch splitting and failure accounting of {@link AuthAuditWriter}.
+ */
+class AuthAuditWriterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+
+    @Test
+    void rejected_record_is_isolated_and_its_neighbours_are_written() {
+        RecordingSink sink = new RecordingSink(new SQLException("invalid byte sequence", "22021"));
+
+        run(sink, 100, 37);
+
+        assertThat(sink.written).hasSize(99).noneMatch(e -> e.getSubject().equals("poison"));
+        assertThat(count("auth.audit.written")).isEqualTo(99);
+        assertThat(count("auth.audit.write.failed")).isEqualTo(1);
+        assertThat(count("auth.audit.write.split")).isPositive();
+        // one bisection path down to the bad record, not a retry per record
+        assertThat(sink.attempts).isLessThan(20);
+    }
+
+    @Test
+    void other_failures_drop_the_batch_without_splitting() {
+        RecordingSink sink = new RecordingSink(null);
+        sink.down = true;
+
+        run(sink, 100, -1);
+
+        assertThat(sink.attempts).isEqualTo(1);
+        assertThat(count("auth.audit.write.failed")).isEqualTo(100);
+        assertThat(count("auth.audit.write.split")).isZero();
+    }
+
+    @Test
+    void only_data_and_constraint_errors_count_as_rejected_data() {
+        assertThat(AuthAuditWriter.isRejectedData(new DataIntegrityViolationException("dup",
+                new SQLException("duplicate key", "23505")))).isTrue();
+        assertThat(AuthAuditWriter.isRejectedData(new IllegalStateException("COPY into auth_audit failed",
+                new SQLException("value too long", "22001")))).isTrue();
+        assertThat(AuthAuditWriter.isRejectedData(new DataAccessResourceFailureException("down",
+                new SQLException("connection refused", "08001")))).isFalse();
+        assertThat(AuthAuditWriter.isRejectedData(new IllegalStateException("no cause"))).isFalse();
+    }
+
+    /**
+     * Queues {@code records} (the one at {@code poison} marked bad), then lets one writer drain them in one batch.
+     */
+    private void run(AuthAuditSink sink, int records, int poison) {
+        props.getAudit().setWriterThreads(1);
+        props.getAudit().setBatchSize(records);
+        props.getAudit().setShutdownTimeout(Duration.ofSeconds(10));
+        AuthAuditQueue queue = new AuthAuditQueue(props, registry);
+        for (int i = 0; i < records; i++) {
+            queue.offer(entity(i == poison ? "poison" : "user-" + i));
+        }
+        AuthAuditWriter writer = new AuthAuditWriter(queue, sink, props, registry, new MockEnvironment());
+        writer.start();
+        writer.stop();
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static AuthAuditEntity entity(String subject) {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.randomUUID());
+        e.setCreatedAt(Instant.now());
+        e.setSubject(subject);
+        e.setPath("/api/orders");
+        e.setMethod("GET");
+        e.setOutcome(AuthAuditOutcome.ACCEPTED);
+        return e;
+    }
+
+    /**
+     * Writes all or nothing, like the transactional sinks.
+     */
+    private static final class RecordingSink implements AuthAuditSink {
+        final List<AuthAuditEntity> written = new ArrayList<>();
+        final SQLException rejection;
+        boolean down;
+        int attempts;
+
+        RecordingSink(SQLException rejection) {
+            this.rejection = rejection;
+        }
+
+        @Override
+        public void write(List<AuthAuditEntity> batch) {
+            attempts++;
+            if (down) {
+                throw new DataAccessResourceFailureException("connection refused",
+                        new SQLException("connection refused", "08001"));
+            }
+            if (batch.stream().anyMatch(e -> e.getSubject().equals("poison"))) {
+                throw new DataIntegrityViolationException("rejected", rejection);
+            }
+            written.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.dimitryivaniuta.gateway.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the COPY text-format encoding.
+ */
+class CopyAuthAuditSinkTest {
+
+    @Test
+    void encodes_nulls_and_escapes_control_characters() {
+        AuthAuditEntity e = new AuthAuditEntity();
+        e.setId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        e.setCreatedAt(Instant.parse("2025-01-01T10:00:00Z"));
+        e.setCorrelationId("cid");
+        e.setIssuer("iss");
+        e.setAudience("api");
+        e.setPath("/api/a\tb");
+        e.setMethod("GET");
+        e.setOutcome(AuthAuditOutcome.REJECTED);
+        e.setReason("line1\nline2 \\ end");
+
+        StringBuilder sb = new StringBuilder();
+        CopyAuthAuditSink.appendRow(sb, e);
+
+        assertThat(sb.toString()).isEqualTo(
+                "00000000-0000-0000-0000-000000000001\t2025-01-01T10:00:00Z\tcid\t\\N\tiss\tapi\t\\N\t"
+                        + "/api/a\\tb\tGET\tREJECTED\tline1\\nline2 \\\\ end\t1\t\\N\n");
+    }
+}
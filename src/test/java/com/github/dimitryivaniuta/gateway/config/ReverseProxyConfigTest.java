@@ -0,0 +1,49 @@
+package com.github.dimitryivaniuta.gateway.config;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the upstream connection pool of {@link ReverseProxyConfig}.
+ */
+class ReverseProxyConfigTest {
+
+    private final AuthProperties props = new AuthProperties();
+
+    @Test
+    void routes_sharing_a_host_with_different_connect_timeouts_fail_startup() {
+        props.getProxy().getRoutes().add(route("orders", "http://orders.internal", Duration.ofMillis(500)));
+        props.getProxy().getRoutes().add(route("invoices", "http://orders.internal:80/invoices", null));
+
+        assertThatThrownBy(() -> new ReverseProxyConfig().proxyConnectionManager(props, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("orders and invoices");
+    }
+
+    @Test
+    void routes_sharing_a_host_may_repeat_the_same_connect_timeout() throws Exception {
+        props.getProxy().getRoutes().add(route("orders", "http://orders.internal", Duration.ofMillis(500)));
+        props.getProxy().getRoutes().add(route("invoices", "http://orders.internal/invoices", Duration.ofMillis(500)));
+        props.getProxy().getRoutes().add(route("users", "http://users.internal", null));
+
+        try (PoolingHttpClientConnectionManager ignored =
+                     new ReverseProxyConfig().proxyConnectionManager(props, new SimpleMeterRegistry())) {
+            // built without a conflict
+        }
+    }
+
+    private static AuthProperties.Route route(String id, String uri, Duration connectTimeout) {
+        AuthProperties.Route route = new AuthProperties.Route();
+        route.setId(id);
+        route.setPathPrefix("/" + id);
+        route.setUri(uri);
+        route.setConnectTimeout(connectTimeout);
+        return route;
+    }
+}
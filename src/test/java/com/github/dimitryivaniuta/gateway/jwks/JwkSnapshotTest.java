@@ -0,0 +1,69 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.PublicKey;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * Unit tests for the kid-indexed {@link JwkSnapshot}.
+ */
+class JwkSnapshotTest {
+
+    @Test
+    void indexes_signing_keys_by_kid_and_alg() throws Exception {
+        RSAKey rs256 = new RSAKeyGenerator(2048).keyID("k1").algorithm(JWSAlgorithm.RS256).generate().toPublicJWK();
+        RSAKey anyAlg = new RSAKeyGenerator(2048).keyID("k2").generate().toPublicJWK();
+        RSAKey encryption = new RSAKeyGenerator(2048).keyID("k3").keyUse(KeyUse.ENCRYPTION).generate().toPublicJWK();
+
+        JwkSnapshot snapshot = JwkSnapshot.of(new JWKSet(List.of(rs256, anyAlg, encryption)), null);
+
+        List<PublicKey> k1 = snapshot.keys("k1", JWSAlgorithm.RS256);
+        assertThat(k1).containsExactly(rs256.toRSAPublicKey());
+        assertThat(snapshot.keys("k1", JWSAlgorithm.RS256)).isSameAs(k1);
+        assertThat(snapshot.verifier(k1.get(0))).isNotNull();
+        assertThat(snapshot.keys("k1", JWSAlgorithm.PS256)).isEmpty();
+        assertThat(snapshot.keys("k2", JWSAlgorithm.PS256)).hasSize(1);
+        assertThat(snapshot.keys("k3", JWSAlgorithm.RS256)).isEmpty();
+        assertThat(snapshot.keys(null, JWSAlgorithm.RS256)).hasSize(2);
+    }
+
+    @Test
+    void keeps_every_key_published_under_the_same_kid() throws Exception {
+        RSAKey rsa = new RSAKeyGenerator(2048).keyID("shared").algorithm(JWSAlgorithm.RS256).generate().toPublicJWK();
+        ECKey ec = new ECKeyGenerator(Curve.P_256).keyID("shared").algorithm(JWSAlgorithm.ES256).generate()
+                .toPublicJWK();
+
+        JwkSnapshot snapshot = JwkSnapshot.of(new JWKSet(List.of(rsa, ec)), null);
+
+        assertThat(snapshot.keys("shared", JWSAlgorithm.RS256)).containsExactly(rsa.toRSAPublicKey());
+        assertThat(snapshot.keys("shared", JWSAlgorithm.ES256)).containsExactly(ec.toECPublicKey());
+        assertThat(snapshot.keys("shared", JWSAlgorithm.PS256)).isEmpty();
+        assertThat(snapshot.verifier(snapshot.keys("shared", JWSAlgorithm.ES256).get(0))).isNotNull();
+    }
+
+    @Test
+    void reuses_previous_snapshot_when_content_is_unchanged() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK();
+        JwkSnapshot first = JwkSnapshot.of(new JWKSet(key), null);
+
+        JwkSnapshot same = JwkSnapshot.of(JWKSet.parse(new JWKSet(key).toString()), first);
+        JwkSnapshot rotated = JwkSnapshot.of(
+                new JWKSet(List.of(key, new RSAKeyGenerator(2048).keyID("k2").generate().toPublicJWK())), first);
+
+        assertThat(same).isSameAs(first);
+        assertThat(rotated).isNotSameAs(first);
+        assertThat(rotated.contains("k2")).isTrue();
+    }
+}
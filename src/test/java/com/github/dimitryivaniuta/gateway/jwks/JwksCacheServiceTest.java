@@ -0,0 +1,25 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * Payload encoding of the Redis JWKS entry.
+ */
+class JwksCacheServiceTest {
+
+    @Test
+    void compressed_and_plain_payloads_decode_to_the_same_json() throws Exception {
+        String json = new JWKSet(new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK()).toString();
+
+        String compressed = JwksCacheService.gzip(json);
+
+        assertThat(compressed).startsWith("gz:");
+        assertThat(JwksCacheService.decode(compressed)).isEqualTo(json);
+        assertThat(JwksCacheService.decode(json)).isEqualTo(json);
+    }
+}
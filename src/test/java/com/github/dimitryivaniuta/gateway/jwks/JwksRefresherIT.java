@@ -0,0 +1,143 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.containers.Containers;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Leader lease, fencing and leader-only refresh of {@link JwksRefresher} against a real Redis.
+ */
+class JwksRefresherIT {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private JwksCacheService cacheService;
+    private String redisKey;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(Containers.REDIS.getHost(),
+                Containers.REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+        redisKey = "test:jwks:" + UUID.randomUUID();
+        props.getJwksCache().setRedisKey(redisKey);
+        props.getJwksCache().setLeaderLeaseTtl(Duration.ofMillis(500));
+        cacheService = new JwksCacheService(redis, props, registry);
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void only_one_instance_holds_the_lease_until_it_releases_it() {
+        JwksRefreshLease first = lease();
+        JwksRefreshLease second = lease();
+
+        assertThat(first.acquireOrRenew()).isTrue();
+        long fence = first.fence();
+        assertThat(second.acquireOrRenew()).isFalse();
+        assertThat(first.acquireOrRenew()).isTrue();
+        assertThat(first.fence()).isEqualTo(fence);
+
+        // RELEASE only deletes the caller's own lease
+        second.release();
+        assertThat(redis.opsForValue().get(redisKey + ":refresh-leader")).isNotNull();
+        first.release();
+        assertThat(redis.hasKey(redisKey + ":refresh-leader")).isFalse();
+
+        assertThat(second.acquireOrRenew()).isTrue();
+        assertThat(second.fence()).isEqualTo(fence + 1);
+        assertThat(first.isLeader()).isFalse();
+    }
+
+    @Test
+    void lapsed_leader_is_fenced_off_by_its_successor() throws Exception {
+        JwksRefreshLease stalled = lease();
+        JwksRefreshLease successor = lease();
+        assertThat(stalled.acquireOrRenew()).isTrue();
+        long staleFence = stalled.fence();
+
+        Thread.sleep(700);
+        assertThat(successor.acquireOrRenew()).isTrue();
+        assertThat(successor.fence()).isEqualTo(staleFence + 1);
+        assertThat(stalled.isLeader()).isFalse();
+
+        JWKSet fresh = jwks("key-new");
+        assertThat(cacheService.putFenced(redisKey, fresh, 60, successor.fenceKey(), successor.fence())).isTrue();
+        assertThat(cacheService.putFenced(redisKey, jwks("key-old"), 60, stalled.fenceKey(), staleFence)).isFalse();
+        assertThat(cacheService.get(redisKey)).map(set -> set.getKeys().get(0).getKeyID()).contains("key-new");
+    }
+
+    @Test
+    void follower_skips_the_refresh_and_leader_stores_it() {
+        JwksRefreshLease leaderLease = lease();
+        JwksRefreshLease followerLease = lease();
+        assertThat(leaderLease.acquireOrRenew()).isTrue();
+        assertThat(followerLease.acquireOrRenew()).isFalse();
+
+        TrustedIssuer tenant = new TrustedIssuer("default", "http://issuer.test", "api",
+                "http://issuer.test/jwks", redisKey);
+        IssuerRegistry issuerRegistry = mock(IssuerRegistry.class);
+        when(issuerRegistry.tenants()).thenReturn(List.of(tenant));
+        when(issuerRegistry.jwksUri(tenant)).thenReturn(URI.create(tenant.jwksUri()));
+
+        RemoteJwksFetcher followerFetcher = mock(RemoteJwksFetcher.class);
+        new JwksRefresher(props, issuerRegistry, followerFetcher, cacheService, followerLease,
+                new MockEnvironment()).refresh();
+        verifyNoInteractions(followerFetcher);
+        assertThat(cacheService.get(redisKey)).isEmpty();
+
+        RemoteJwksFetcher leaderFetcher = mock(RemoteJwksFetcher.class);
+        when(leaderFetcher.fetchConditional(any(), any()))
+                .thenReturn(new RemoteJwksFetcher.FetchResult(jwks("key-1"), false, Optional.empty()));
+        new JwksRefresher(props, issuerRegistry, leaderFetcher, cacheService, leaderLease,
+                new MockEnvironment()).refresh();
+        verify(leaderFetcher).fetchConditional(any(), any());
+        assertThat(cacheService.get(redisKey)).map(set -> set.getKeys().get(0).getKeyID()).contains("key-1");
+    }
+
+    private JwksRefreshLease lease() {
+        return new JwksRefreshLease(redis, props, registry);
+    }
+
+    private static JWKSet jwks(String kid) {
+        try {
+            return new JWKSet(new RSAKeyGenerator(2048).keyID(kid).generate().toPublicJWK());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.security.IssuerRegistry;
+import com.github.dimitryivaniuta.gateway.security.TrustedIssuer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * Unit tests for the jittered refresh period, the TTL of the leader's Redis entry and the refresher's threads.
+ */
+class JwksRefresherTest {
+
+    private final AuthProperties props = new AuthProperties();
+    private final IssuerRegistry issuerRegistry = mock(IssuerRegistry.class);
+    private final RemoteJwksFetcher fetcher = mock(RemoteJwksFetcher.class);
+    private final JwksCacheService cacheService = mock(JwksCacheService.class);
+    private final JwksRefreshLease lease = mock(JwksRefreshLease.class);
+
+    @Test
+    void spreads_period_by_jitter() {
+        Duration period = Duration.ofMinutes(5);
+
+        assertThat(JwksRefresher.jittered(period, 0.1, 0.0)).isEqualTo(Duration.ofSeconds(270));
+        assertThat(JwksRefresher.jittered(period, 0.1, 0.5)).isEqualTo(period);
+        assertThat(JwksRefresher.jittered(period, 0.1, 0.999999)).isBetween(period, Duration.ofSeconds(330));
+        assertThat(JwksRefresher.jittered(period, 0.0, 0.9)).isEqualTo(period);
+    }
+
+    @Test
+    void leader_stores_the_entry_for_the_idp_max_age_when_enabled() throws Exception {
+        props.getJwksCache().setTtlFromCacheControl(true);
+        props.getJwksCache().setMaxTtl(Duration.ofHours(1));
+        JWKSet jwkSet = new JWKSet(new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK());
+        refreshed(new RemoteJwksFetcher.FetchResult(jwkSet, false, Optional.of(Duration.ofSeconds(120))));
+
+        verify(cacheService).putFenced("jwks", jwkSet, 120, "fence", 7);
+    }
+
+    @Test
+    void not_modified_extends_by_the_capped_max_age_and_ignores_it_when_disabled() throws Exception {
+        props.getJwksCache().setTtlFromCacheControl(true);
+        props.getJwksCache().setMaxTtl(Duration.ofMinutes(5));
+        JWKSet jwkSet = new JWKSet();
+        when(cacheService.touch("jwks", 300)).thenReturn(true);
+        refreshed(new RemoteJwksFetcher.FetchResult(jwkSet, true, Optional.of(Duration.ofDays(1))));
+        verify(cacheService).touch("jwks", 300);
+
+        props.getJwksCache().setTtlFromCacheControl(false);
+        long ttl = props.getJwksCache().getTtl().toSeconds();
+        when(cacheService.touch("jwks", ttl)).thenReturn(true);
+        refreshed(new RemoteJwksFetcher.FetchResult(jwkSet, true, Optional.of(Duration.ofSeconds(120))));
+        verify(cacheService).touch("jwks", ttl);
+        verify(cacheService, never()).putFenced(any(), any(), anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void lease_heartbeat_runs_on_a_virtual_thread_in_virtual_mode() throws Exception {
+        CompletableFuture<Thread> heartbeat = new CompletableFuture<>();
+        doAnswer(inv -> heartbeat.complete(Thread.currentThread())).when(lease).acquireOrRenew();
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        JwksRefresher refresher = new JwksRefresher(props, issuerRegistry, fetcher, cacheService, lease, environment);
+        try {
+            refresher.start();
+            assertThat(heartbeat.get(5, TimeUnit.SECONDS).isVirtual()).isTrue();
+        } finally {
+            refresher.stop();
+        }
+    }
+
+    private void refreshed(RemoteJwksFetcher.FetchResult result) throws Exception {
+        TrustedIssuer tenant = new TrustedIssuer("default", "http://issuer.test", "api", "http://issuer.test/jwks",
+                "jwks");
+        when(issuerRegistry.tenants()).thenReturn(List.of(tenant));
+        when(issuerRegistry.jwksUri(tenant)).thenReturn(URI.create(tenant.jwksUri()));
+        when(fetcher.fetchConditional(any(), any())).thenReturn(result);
+        when(lease.isLeader()).thenReturn(true);
+        when(lease.fence()).thenReturn(7L);
+        when(lease.fenceKey()).thenReturn("fence");
+        when(cacheService.putFenced(any(), any(), anyLong(), any(), anyLong())).thenReturn(true);
+
+        JwksRefresher refresher = new JwksRefresher(props, issuerRegistry, fetcher, cacheService, lease,
+                new MockEnvironment());
+        try {
+            refresher.refresh();
+        } finally {
+            refresher.stop();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * Unit tests for the on-disk JWKS snapshot format.
+ */
+class JwksSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void round_trips_and_rejects_corrupt_or_old_snapshots() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        JwksSnapshotStore store = store();
+
+        store.save("auth-gateway:jwks", new JWKSet(key));
+        Path file = store.file("auth-gateway:jwks");
+        assertThat(file.getFileName().toString()).isEqualTo("auth-gateway_jwks.jwks");
+        assertThat(store.load("auth-gateway:jwks")).hasValueSatisfying(loaded -> {
+            assertThat(loaded.jwkSet().getKeyByKeyId("key-1").isPrivate()).isFalse();
+            assertThat(loaded.jwkSet().getKeyByKeyId("key-1").toRSAKey().getModulus()).isEqualTo(key.getModulus());
+        });
+
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        assertThat(store.load("auth-gateway:jwks")).isEmpty();
+        store.touch("auth-gateway:jwks");
+        assertThat(store.load("auth-gateway:jwks")).isPresent();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 3] ^= 1;
+        Files.write(file, bytes);
+        assertThat(store.load("auth-gateway:jwks")).isEmpty();
+        assertThat(store.load("missing")).isEmpty();
+    }
+
+    private JwksSnapshotStore store() {
+        AuthProperties props = new AuthProperties();
+        props.getJwksCache().getSnapshot().setDir(dir.toString());
+        props.getJwksCache().getSnapshot().setMaxAge(Duration.ofDays(1));
+        return new JwksSnapshotStore(props, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking loading into a {@link RedisCachingJwkSource}: cold start, steady state and unknown {@code kid}s.
+ */
+@SuppressWarnings("unchecked")
+class ReactiveJwksLoaderTest {
+
+    private final WireMockServer server = new WireMockServer(0);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final JwksCacheService cacheService =
+            new JwksCacheService(mock(StringRedisTemplate.class), props, registry);
+    private final ReactiveStringRedisTemplate redis = mock(ReactiveStringRedisTemplate.class);
+    private final ReactiveValueOperations<String, String> ops = mock(ReactiveValueOperations.class);
+    private final UnknownKidGuard guard =
+            new UnknownKidGuard(props.getJwksCache().getUnknownKid(), registry, Tags.empty());
+
+    @TempDir
+    Path snapshotDir;
+
+    private ReactiveJwksLoader loader;
+    private RedisCachingJwkSource source;
+
+    @BeforeEach
+    void start() throws Exception {
+        server.start();
+        String jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK()).toString();
+        server.stubFor(get(urlEqualTo("/jwks")).willReturn(aResponse().withStatus(200)
+                .withHeader("Content-Type", "application/json").withBody(jwks)));
+
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenReturn(Mono.empty());
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(ops.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redis.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(redis.execute(eq(JwksCacheService.UNLOCK), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        loader = new ReactiveJwksLoader(redis, cacheService, WebClient.builder(), props, registry);
+        source = new RedisCachingJwkSource(cacheService, mock(RemoteJwksFetcher.class), guard, snapshotStore(),
+                registry, Tags.empty());
+        AuthProperties.JwksCache settings = new AuthProperties.JwksCache();
+        settings.setRedisKey("jwks");
+        settings.setTtl(Duration.ofMinutes(10));
+        // the first WebClient request also starts Netty, which can take seconds on a loaded machine
+        settings.setFetchTimeout(Duration.ofSeconds(10));
+        source.configure(URI.create(server.baseUrl() + "/jwks"), "jwks", settings);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        server.stop();
+        source.shutdown();
+        assertThat(source.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void cold_source_is_loaded_once_and_then_served_from_memory() {
+        loader.ensure(source, "key-1", JWSAlgorithm.RS256).block(Duration.ofSeconds(5));
+        loader.ensure(source, "key-1", JWSAlgorithm.RS256).block(Duration.ofSeconds(5));
+
+        assertThat(source.cachedVerificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+        server.verify(1, getRequestedFor(urlEqualTo("/jwks")));
+        verify(ops).set(eq("jwks"), anyString(), any(Duration.class));
+        verify(redis).convertAndSend(eq(JwksCacheService.updatesChannel("jwks")), anyString());
+    }
+
+    @Test
+    void unknown_kid_is_remembered_after_one_forced_refresh() {
+        loader.ensure(source, "key-1", JWSAlgorithm.RS256).block(Duration.ofSeconds(5));
+
+        loader.ensure(source, "rotated-away", JWSAlgorithm.RS256).block(Duration.ofSeconds(5));
+        loader.ensure(source, "rotated-away", JWSAlgorithm.RS256).block(Duration.ofSeconds(5));
+
+        assertThat(source.cachedVerificationKeys("rotated-away", JWSAlgorithm.RS256)).isEmpty();
+        server.verify(2, getRequestedFor(urlEqualTo("/jwks")));
+        assertThat(guard.rejectsFast("rotated-away")).isTrue();
+    }
+
+    private JwksSnapshotStore snapshotStore() {
+        AuthProperties snapshotProps = new AuthProperties();
+        snapshotProps.getJwksCache().getSnapshot().setDir(snapshotDir.toString());
+        return new JwksSnapshotStore(snapshotProps, Clock.systemUTC());
+    }
+}
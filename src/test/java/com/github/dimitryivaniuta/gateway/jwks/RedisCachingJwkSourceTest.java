@@ -0,0 +1,362 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for forced-refresh coalescing, stale serving and disk snapshots in {@link RedisCachingJwkSource}.
+ */
+class RedisCachingJwkSourceTest {
+
+    private static final URI JWKS_URI = URI.create("http://issuer.test/jwks");
+
+    private final JwksCacheService cacheService = mock(JwksCacheService.class);
+    private final RemoteJwksFetcher fetcher = mock(RemoteJwksFetcher.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UnknownKidGuard guard =
+            new UnknownKidGuard(new AuthProperties().getJwksCache().getUnknownKid(), registry, Tags.empty());
+
+    private final List<RedisCachingJwkSource> sources = new ArrayList<>();
+
+    @TempDir
+    Path snapshotDir;
+
+    @AfterEach
+    void shutdown() throws Exception {
+        // snapshot writes run in the background and must be done before the temp dir is deleted
+        for (RedisCachingJwkSource source : sources) {
+            source.shutdown();
+            assertThat(source.awaitShutdown(Duration.ofSeconds(5))).isTrue();
+        }
+    }
+
+    @Test
+    void cold_start_is_served_from_disk_snapshot() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+        JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("key-1").build());
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(true);
+        when(fetcher.fetchConditional(eq(JWKS_URI), any())).thenReturn(modified(new JWKSet(key)));
+
+        RedisCachingJwkSource first = source();
+        first.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+        assertThat(first.get(selector, null)).hasSize(1);
+        await().atMost(Duration.ofSeconds(5)).until(() -> snapshotStore().load("jwks").isPresent());
+        first.shutdown();
+
+        // next boot: Redis empty and the IdP down
+        when(fetcher.fetchConditional(eq(JWKS_URI), any())).thenThrow(new IllegalStateException("IdP down"));
+        RedisCachingJwkSource restarted = source();
+        restarted.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+
+        assertThat(restarted.loadSnapshot()).isTrue();
+        assertThat(restarted.get(selector, null)).extracting(JWK::getKeyID).containsExactly("key-1");
+    }
+
+    @Test
+    void concurrent_unknown_kid_misses_share_one_fetch() throws Exception {
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(true);
+        when(fetcher.fetchConditional(eq(JWKS_URI), any())).thenAnswer(inv -> {
+            fetchStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return modified(new JWKSet(rotated));
+        });
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+        JWKSelector selector = new JWKSelector(new JWKMatcher.Builder().keyID("key-2").build());
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<JWK>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> source.get(selector, null)));
+            }
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<List<JWK>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).extracting(JWK::getKeyID).containsExactly("key-2");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(fetcher, times(1)).fetchConditional(eq(JWKS_URI), any());
+        verify(cacheService, times(1)).put(eq("jwks"), any(), anyLong());
+        assertThat(registry.get("auth.jwks.refresh.coalesced").counter().count()).isPositive();
+    }
+
+    @Test
+    void jwks_uri_is_resolved_again_for_each_fetch() throws Exception {
+        URI moved = URI.create("http://issuer.test/v2/jwks");
+        RSAKey old = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+        AtomicReference<URI> discovered = new AtomicReference<>(JWKS_URI);
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.empty());
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(true);
+        when(fetcher.fetchConditional(eq(JWKS_URI), any())).thenReturn(modified(new JWKSet(old)));
+        when(fetcher.fetchConditional(eq(moved), any())).thenReturn(modified(new JWKSet(rotated)));
+
+        RedisCachingJwkSource source = source();
+        source.configure(discovered::get, "jwks", settings(Duration.ofMinutes(10)));
+        assertThat(source.get(new JWKSelector(new JWKMatcher.Builder().keyID("key-1").build()), null)).hasSize(1);
+
+        discovered.set(moved);
+        assertThat(source.get(new JWKSelector(new JWKMatcher.Builder().keyID("key-2").build()), null))
+                .extracting(JWK::getKeyID).containsExactly("key-2");
+        verify(fetcher).fetchConditional(eq(JWKS_URI), any());
+        verify(fetcher).fetchConditional(eq(moved), any());
+    }
+
+    @Test
+    void garbage_kids_are_remembered_and_forced_refreshes_throttled() throws Exception {
+        RSAKey known = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.of(new JWKSet(known)));
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(true);
+        when(fetcher.fetchConditional(eq(JWKS_URI), any())).thenReturn(modified(new JWKSet(known)));
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(source.get(new JWKSelector(new JWKMatcher.Builder().keyID("garbage").build()), null)).isEmpty();
+        }
+        assertThat(source.get(new JWKSelector(new JWKMatcher.Builder().keyID("other").build()), null)).isEmpty();
+
+        verify(fetcher, times(1)).fetchConditional(eq(JWKS_URI), any());
+        assertThat(rejected("negative_cache")).isEqualTo(2.0);
+        assertThat(rejected("min_interval")).isEqualTo(1.0);
+        assertThat(registry.get("auth.jwks.refresh.forced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void decoder_resolves_keys_by_kid_and_converts_them_once() throws Exception {
+        RSAKey signing = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        JWKSet published = new JWKSet(signing.toPublicJWK());
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenAnswer(inv -> Optional.of(JWKSet.parse(published.toString())));
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new KidIndexedJwsKeySelector(Set.of(JWSAlgorithm.RS256), source));
+        processor.setJWSVerifierFactory(new SnapshotJwsVerifierFactory(source));
+
+        for (int i = 0; i < 3; i++) {
+            SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build(),
+                    new JWTClaimsSet.Builder().subject("user-" + i).build());
+            jwt.sign(new RSASSASigner(signing));
+            assertThat(processor.process(jwt.serialize(), null).getSubject()).isEqualTo("user-" + i);
+            // re-reads the same JWKS from Redis, which must not rebuild the snapshot
+            source.onJwksChanged("other-hash");
+        }
+
+        assertThat(registry.get("auth.jwks.snapshot.rebuilds").counter().count()).isEqualTo(1.0);
+        verify(fetcher, times(0)).fetchConditional(any(), any());
+    }
+
+    @Test
+    void change_notification_swaps_local_copy_without_request_path_reads() throws Exception {
+        RSAKey old = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+        JWKSet before = new JWKSet(old);
+        JWKSet after = new JWKSet(List.of(old, rotated));
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.of(before)).thenReturn(Optional.of(after));
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+        List<Boolean> rotatedKeyCurrentInListener = new ArrayList<>();
+        source.onKeysChanged(snapshot -> rotatedKeyCurrentInListener.add(source.publishes("key-2")));
+        assertThat(source.verificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+
+        source.onJwksChanged(JwkSnapshot.contentHash(before));
+        verify(cacheService, times(1)).get("jwks");
+
+        source.onJwksChanged(JwkSnapshot.contentHash(after));
+        assertThat(source.verificationKeys("key-2", JWSAlgorithm.RS256)).hasSize(1);
+
+        verify(cacheService, times(2)).get("jwks");
+        verify(fetcher, times(0)).fetchConditional(any(), any());
+        assertThat(registry.get("auth.jwks.broadcast.applied").counter().count()).isEqualTo(1.0);
+        // the listener runs once the new keys are in place, so its purge cannot race a stale lookup
+        assertThat(rotatedKeyCurrentInListener).containsExactly(false, true);
+    }
+
+    @Test
+    void refreshes_ahead_in_background_and_serves_last_known_good_when_idp_is_down() throws Exception {
+        RSAKey old = new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK();
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+        AtomicReference<Instant> clock = new AtomicReference<>(Instant.parse("2025-01-01T00:00:00Z"));
+
+        when(cacheService.now()).thenAnswer(inv -> clock.get());
+        when(cacheService.get(anyString())).thenReturn(Optional.of(new JWKSet(old)))
+                .thenReturn(Optional.empty());
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(true);
+        when(fetcher.fetchConditional(eq(JWKS_URI), any()))
+                .thenReturn(modified(new JWKSet(List.of(old, rotated))))
+                .thenThrow(new IllegalStateException("Failed to fetch JWKS"));
+
+        RedisCachingJwkSource source = source();
+        AuthProperties.JwksCache settings = settings(Duration.ofMinutes(10));
+        settings.setStaleIfError(Duration.ofHours(1));
+        source.configure(JWKS_URI, "jwks", settings);
+        assertThat(source.verificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+
+        // past 80% of the ttl: served from memory, refreshed in the background
+        clock.set(clock.get().plus(Duration.ofMinutes(9)));
+        assertThat(source.verificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> registry.get("auth.jwks.revalidations").tag("outcome", "success").counter().count() == 1.0);
+        assertThat(source.verificationKeys("key-2", JWSAlgorithm.RS256)).hasSize(1);
+
+        // long expired and the IdP is down: the last known good set is still served
+        clock.set(clock.get().plus(Duration.ofMinutes(30)));
+        assertThat(source.verificationKeys("key-2", JWSAlgorithm.RS256)).hasSize(1);
+        assertThat(source.verificationKeys("key-2", JWSAlgorithm.RS256)).hasSize(1);
+
+        verify(fetcher, times(2)).fetchConditional(eq(JWKS_URI), any());
+        assertThat(registry.get("auth.jwks.stale.served").tag("reason", "error").counter().count()).isEqualTo(2.0);
+        assertThat(lookups("redis")).isEqualTo(1.0);
+        assertThat(lookups("local")).isEqualTo(2.0);
+        assertThat(lookups("stale")).isEqualTo(2.0);
+    }
+
+    @Test
+    void expired_local_copy_is_revalidated_by_version_key_only() throws Exception {
+        JWKSet jwkSet = new JWKSet(new RSAKeyGenerator(2048).keyID("key-1").generate().toPublicJWK());
+        AtomicReference<Instant> clock = new AtomicReference<>(Instant.parse("2025-01-01T00:00:00Z"));
+
+        when(cacheService.now()).thenAnswer(inv -> clock.get());
+        when(cacheService.get("jwks")).thenReturn(Optional.of(jwkSet));
+        when(cacheService.version("jwks")).thenReturn(Optional.of(JwkSnapshot.contentHash(jwkSet)));
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+        assertThat(source.verificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+
+        clock.set(clock.get().plus(Duration.ofMinutes(11)));
+        assertThat(source.verificationKeys("key-1", JWSAlgorithm.RS256)).hasSize(1);
+
+        verify(cacheService, times(1)).get("jwks");
+        assertThat(registry.get("auth.jwks.redis.version.hits").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void waits_for_other_instance_and_reuses_its_redis_entry() throws Exception {
+        RSAKey rotated = new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK();
+
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        when(cacheService.get(anyString())).thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new JWKSet(rotated)));
+        when(cacheService.tryLock(anyString(), anyString(), any())).thenReturn(false);
+        when(cacheService.awaitUnlock(eq("jwks:lock"), any())).thenReturn(true);
+
+        RedisCachingJwkSource source = source();
+        source.configure(JWKS_URI, "jwks", settings(Duration.ofMinutes(10)));
+
+        List<JWK> selected = source.get(new JWKSelector(new JWKMatcher.Builder().keyID("key-2").build()), null);
+
+        assertThat(selected).extracting(JWK::getKeyID).containsExactly("key-2");
+        verify(fetcher, times(0)).fetchConditional(any(), any());
+        assertThat(registry.get("auth.jwks.refresh.lock.waits").counter().count()).isEqualTo(1.0);
+    }
+
+    private static RemoteJwksFetcher.FetchResult modified(JWKSet jwkSet) {
+        return new RemoteJwksFetcher.FetchResult(jwkSet, false, Optional.empty());
+    }
+
+    private RedisCachingJwkSource source() {
+        RedisCachingJwkSource source = new RedisCachingJwkSource(cacheService, fetcher, guard, snapshotStore(),
+                registry, Tags.empty());
+        sources.add(source);
+        return source;
+    }
+
+    private JwksSnapshotStore snapshotStore() {
+        AuthProperties props = new AuthProperties();
+        props.getJwksCache().getSnapshot().setDir(snapshotDir.toString());
+        return new JwksSnapshotStore(props, Clock.systemUTC());
+    }
+
+    private static AuthProperties.JwksCache settings(Duration ttl) {
+        AuthProperties.JwksCache settings = new AuthProperties.JwksCache();
+        settings.setRedisKey("jwks");
+        settings.setTtl(ttl);
+        settings.setStaleWhileRevalidate(Duration.ZERO);
+        settings.setStaleIfError(Duration.ZERO);
+        return settings;
+    }
+
+    private double lookups(String tier) {
+        return registry.get("auth.jwks.lookups").tag("tier", tier).counter().count();
+    }
+
+    private double rejected(String reason) {
+        return registry.get("auth.jwks.unknown.kid.rejected").tag("reason", reason).counter().count();
+    }
+}
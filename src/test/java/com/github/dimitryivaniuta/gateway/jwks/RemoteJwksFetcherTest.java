@@ -0,0 +1,80 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.time.Duration;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * HTTP behaviour of {@link RemoteJwksFetcher}: conditional requests, Cache-Control and timeouts.
+ */
+class RemoteJwksFetcherTest {
+
+    private final WireMockServer server = new WireMockServer(0);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RemoteJwksFetcher fetcher;
+    private URI jwksUri;
+
+    @BeforeEach
+    void start() {
+        server.start();
+        jwksUri = URI.create(server.baseUrl() + "/jwks");
+        fetcher = new RemoteJwksFetcher(new AuthProperties(), registry);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void revalidates_with_etag_and_reuses_parsed_set_on_304() throws Exception {
+        String jwks = new JWKSet(new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK()).toString();
+        server.stubFor(get(urlEqualTo("/jwks")).withHeader("If-None-Match", absent())
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"")
+                        .withHeader("Cache-Control", "public, max-age=600").withHeader("Age", "100")
+                        .withBody(jwks)));
+        server.stubFor(get(urlEqualTo("/jwks")).withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304).withHeader("Cache-Control", "max-age=300")));
+
+        RemoteJwksFetcher.FetchResult first = fetcher.fetchConditional(jwksUri, Duration.ofSeconds(2));
+        RemoteJwksFetcher.FetchResult second = fetcher.fetchConditional(jwksUri, Duration.ofSeconds(2));
+
+        assertThat(first.notModified()).isFalse();
+        assertThat(first.maxAge()).contains(Duration.ofSeconds(500));
+        assertThat(second.notModified()).isTrue();
+        assertThat(second.jwkSet()).isSameAs(first.jwkSet());
+        assertThat(second.maxAge()).contains(Duration.ofSeconds(300));
+        assertThat(registry.get("auth.jwks.fetch").tag("outcome", "not_modified").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void enforces_request_timeout() {
+        server.stubFor(get(urlEqualTo("/jwks"))
+                .willReturn(aResponse().withStatus(200).withBody("{\"keys\":[]}").withFixedDelay(2_000)));
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> fetcher.fetchConditional(jwksUri, Duration.ofMillis(200)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(1_500));
+        assertThat(registry.get("auth.jwks.fetch").tag("outcome", "failed").counter().count()).isEqualTo(1.0);
+    }
+}
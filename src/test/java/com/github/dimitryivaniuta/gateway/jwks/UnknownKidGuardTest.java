@@ -0,0 +1,78 @@
+package com.github.dimitryivaniuta.gateway.jwks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the unknown-kid negative cache and forced-refresh limits.
+ */
+class UnknownKidGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong(1);
+
+    @Test
+    void token_bucket_and_min_interval_bound_forced_refreshes() {
+        AuthProperties.UnknownKid props = new AuthProperties.UnknownKid();
+        props.setMinRefreshInterval(Duration.ofSeconds(1));
+        props.setRefreshBurst(2);
+        props.setRefreshesPerMinute(6);
+        UnknownKidGuard guard = new UnknownKidGuard(props, registry, Tags.empty(), nanos::get);
+
+        assertThat(guard.permitForcedRefresh()).isTrue();
+        assertThat(guard.permitForcedRefresh()).isFalse();
+        advance(Duration.ofSeconds(1));
+        assertThat(guard.permitForcedRefresh()).isTrue();
+        advance(Duration.ofSeconds(1));
+        assertThat(guard.permitForcedRefresh()).isFalse();
+        advance(Duration.ofSeconds(10));
+        assertThat(guard.permitForcedRefresh()).isTrue();
+
+        assertThat(rejected("min_interval")).isEqualTo(1.0);
+        assertThat(rejected("rate_limited")).isEqualTo(1.0);
+    }
+
+    @Test
+    void negative_cache_expires_and_is_cleared_when_kid_is_published() throws Exception {
+        AuthProperties.UnknownKid props = new AuthProperties.UnknownKid();
+        props.setNegativeTtl(Duration.ofSeconds(30));
+        UnknownKidGuard guard = new UnknownKidGuard(props, registry, Tags.empty(), nanos::get);
+
+        guard.rememberUnknown("k1");
+        guard.rememberUnknown("k2");
+        assertThat(guard.rejectsFast("k1")).isTrue();
+        assertThat(guard.rejectsFast("k3")).isFalse();
+        assertThat(guard.rejectsFast("x".repeat(UnknownKidGuard.MAX_KID_LENGTH + 1))).isTrue();
+
+        RSAKey published = new RSAKeyGenerator(2048).keyID("k1").generate().toPublicJWK();
+        guard.forgetPublished(new JWKSet(published));
+        assertThat(guard.rejectsFast("k1")).isFalse();
+
+        advance(Duration.ofSeconds(31));
+        assertThat(guard.rejectsFast("k2")).isFalse();
+
+        assertThat(rejected("negative_cache")).isEqualTo(1.0);
+        assertThat(rejected("invalid_kid")).isEqualTo(1.0);
+    }
+
+    private void advance(Duration d) {
+        nanos.addAndGet(d.toNanos());
+    }
+
+    private double rejected(String reason) {
+        return registry.get("auth.jwks.unknown.kid.rejected").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.dimitryivaniuta.gateway.proxy;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelope;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeSigner;
+import com.github.dimitryivaniuta.gateway.identity.IdentityEnvelopeVerifier;
+import com.github.dimitryivaniuta.gateway.observability.CorrelationIdFilter;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletInputStream;
+
+/**
+ * Forwarding behaviour of {@link ReverseProxyHandler} against a stub upstream.
+ */
+class ReverseProxyHandlerTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final WireMockServer upstream = new WireMockServer(0);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties.Proxy proxy = new AuthProperties.Proxy();
+    private final CloseableHttpClient httpClient = HttpClients.custom().disableAutomaticRetries().build();
+
+    @BeforeEach
+    void start() {
+        upstream.start();
+        MDC.put(CorrelationIdFilter.MDC_KEY, "cid-1");
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        MDC.remove(CorrelationIdFilter.MDC_KEY);
+        SecurityContextHolder.clearContext();
+        httpClient.close();
+        upstream.stop();
+    }
+
+    @Test
+    void forwards_path_query_and_headers_and_copies_the_response() throws Exception {
+        upstream.stubFor(get(urlEqualTo("/orders/42?expand=lines")).willReturn(aResponse().withStatus(201)
+                .withHeader("X-Upstream", "yes").withHeader("Connection", "close").withBody("{\"id\":42}")));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/42");
+        request.setQueryString("expand=lines");
+        request.addHeader("Authorization", "Bearer abc");
+        request.addHeader("Accept", "application/json");
+        request.addHeader("Host", "gateway.test");
+        request.addHeader(IdentityEnvelope.HEADER, "spoofed");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler(route(true, false)).handleRequest(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader("X-Upstream")).isEqualTo("yes");
+        assertThat(response.getHeader("Connection")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":42}");
+        upstream.verify(getRequestedFor(urlEqualTo("/orders/42?expand=lines"))
+                .withHeader("Authorization", absent())
+                .withHeader(IdentityEnvelope.HEADER, absent())
+                .withHeader("Accept", equalTo("application/json"))
+                .withHeader(CorrelationIdFilter.HEADER, equalTo("cid-1"))
+                .withHeader("X-Forwarded-For", equalTo("127.0.0.1"))
+                .withHeader("X-Forwarded-Host", equalTo("gateway.test")));
+        assertThat(timer("2xx")).isEqualTo(1);
+    }
+
+    @Test
+    void streams_the_request_body_and_passes_authorization_when_configured() throws Exception {
+        upstream.stubFor(any(urlEqualTo("/api/orders")).willReturn(aResponse().withStatus(202)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setContentType("application/json");
+        request.setContent("{\"item\":\"book\"}".getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Authorization", "Bearer abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler(route(false, true)).handleRequest(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(202);
+        upstream.verify(postRequestedFor(urlEqualTo("/api/orders"))
+                .withHeader("Authorization", equalTo("Bearer abc"))
+                .withHeader("Content-Type", equalTo("application/json"))
+                .withRequestBody(equalTo("{\"item\":\"book\"}")));
+    }
+
+    @Test
+    void adds_a_signed_identity_envelope_for_the_authenticated_caller() throws Exception {
+        upstream.stubFor(get(urlEqualTo("/api/orders")).willReturn(aResponse().withStatus(200)));
+        Instant exp = Instant.now().plusSeconds(30).truncatedTo(ChronoUnit.SECONDS);
+        authenticate(exp);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader(IdentityEnvelope.HEADER, "spoofed");
+        envelopeHandler().handleRequest(request, new MockHttpServletResponse());
+
+        assertThat(new IdentityEnvelopeVerifier("orders", Map.of("k1", SECRET)).verify(envelope())).isEqualTo(
+                new IdentityEnvelope("http://issuer.test", "orders", "john", List.of("ROLE_USER", "SCOPE_read"),
+                        "key-1", exp, "cid-1"));
+        assertThatThrownBy(() -> new IdentityEnvelopeVerifier("billing", Map.of("k1", SECRET)).verify(envelope()))
+                .hasMessageContaining("another audience");
+    }
+
+    @Test
+    void identity_envelope_outlives_the_hop_by_its_ttl_only() throws Exception {
+        upstream.stubFor(get(urlEqualTo("/api/orders")).willReturn(aResponse().withStatus(200)));
+        proxy.getIdentityEnvelope().setTtl(Duration.ofSeconds(20));
+        authenticate(Instant.now().plus(1, ChronoUnit.HOURS));
+
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        envelopeHandler().handleRequest(new MockHttpServletRequest("GET", "/api/orders"),
+                new MockHttpServletResponse());
+
+        assertThat(new IdentityEnvelopeVerifier("orders", Map.of("k1", SECRET)).verify(envelope()).expiresAt())
+                .isBetween(before.plusSeconds(20), Instant.now().plusSeconds(20));
+    }
+
+    @Test
+    void slow_upstream_is_answered_with_504_and_unreachable_one_with_502() throws Exception {
+        upstream.stubFor(get(urlEqualTo("/api/orders/slow")).willReturn(aResponse().withFixedDelay(1_000)));
+        AuthProperties.Route slow = route(false, false);
+        slow.setResponseTimeout(Duration.ofMillis(100));
+
+        MockHttpServletResponse timedOut = new MockHttpServletResponse();
+        handler(slow).handleRequest(new MockHttpServletRequest("GET", "/api/orders/slow"), timedOut);
+
+        AuthProperties.Route down = route(false, false);
+        down.setUri("http://127.0.0.1:1");
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        handler(down).handleRequest(new MockHttpServletRequest("GET", "/api/orders/1"), refused);
+
+        assertThat(timedOut.getStatus()).isEqualTo(504);
+        assertThat(timedOut.getContentAsString()).contains("upstream_timeout");
+        assertThat(refused.getStatus()).isEqualTo(502);
+        assertThat(timer("timeout")).isEqualTo(1);
+        assertThat(timer("error")).isEqualTo(1);
+    }
+
+    @Test
+    void client_that_aborts_its_body_is_not_counted_as_an_upstream_error() throws Exception {
+        upstream.stubFor(any(urlEqualTo("/api/orders")).willReturn(aResponse().withStatus(202)));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders") {
+            @Override
+            public long getContentLengthLong() {
+                return 100;
+            }
+
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new EOFException("client went away");
+                    }
+                });
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler(route(false, false)).handleRequest(request, response);
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains("incomplete_request");
+        assertThat(timer("client_abort")).isEqualTo(1);
+        assertThat(registry.find("auth.proxy.requests").tag("outcome", "error").timer()).isNull();
+    }
+
+    private ReverseProxyHandler handler(AuthProperties.Route route) {
+        return new ReverseProxyHandler(route, httpClient, proxy, null, registry);
+    }
+
+    private void authenticate(Instant exp) {
+        Jwt jwt = Jwt.withTokenValue("t").header("alg", "RS256").header("kid", "key-1")
+                .issuer("http://issuer.test").subject("john").expiresAt(exp).build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("SCOPE_read"))));
+    }
+
+    private ReverseProxyHandler envelopeHandler() {
+        return new ReverseProxyHandler(route(false, false), httpClient, proxy, new IdentityEnvelopeSigner("k1", SECRET),
+                registry);
+    }
+
+    private String envelope() {
+        return upstream.getAllServeEvents().get(0).getRequest().getHeader(IdentityEnvelope.HEADER);
+    }
+
+    private AuthProperties.Route route(boolean stripPrefix, boolean forwardAuthorization) {
+        AuthProperties.Route route = new AuthProperties.Route();
+        route.setId("orders");
+        route.setPathPrefix("/api");
+        route.setUri(upstream.baseUrl());
+        route.setStripPrefix(stripPrefix);
+        route.setForwardAuthorization(forwardAuthorization);
+        return route;
+    }
+
+    private long timer(String outcome) {
+        return registry.get("auth.proxy.requests").tag("route", "orders").tag("outcome", outcome).timer().count();
+    }
+}
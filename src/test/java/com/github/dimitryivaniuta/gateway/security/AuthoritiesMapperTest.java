@@ -0,0 +1,52 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Unit tests for claim tokenization and memoization in {@link AuthoritiesMapper}.
+ */
+class AuthoritiesMapperTest {
+
+    private final AuthoritiesMapper mapper = new AuthoritiesMapper();
+
+    @Test
+    void maps_strings_and_arrays_in_claim_order() {
+        Jwt jwt = jwt(" USER,ADMIN ", Arrays.asList("audit:read", null, " ", "jwks:refresh"), "read\twrite,,  openid",
+                List.of("extra"));
+
+        assertThat(mapper.convert(jwt)).extracting(GrantedAuthority::getAuthority).containsExactly(
+                "ROLE_USER", "ROLE_ADMIN", "PERM_audit:read", "PERM_jwks:refresh",
+                "SCOPE_read", "SCOPE_write", "SCOPE_openid", "SCOPE_extra");
+    }
+
+    @Test
+    void reuses_results_for_equal_claim_values() {
+        Collection<GrantedAuthority> first = mapper.convert(jwt("USER", new ArrayList<>(List.of("a")), "read", null));
+        Collection<GrantedAuthority> second = mapper.convert(jwt("USER", new ArrayList<>(List.of("a")), "read", null));
+        Collection<GrantedAuthority> other = mapper.convert(jwt("USER", List.of("b"), "read", null));
+
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(other.iterator().next()).isSameAs(first.iterator().next());
+    }
+
+    private static Jwt jwt(Object roles, Object permissions, Object scope, Object scp) {
+        Jwt.Builder builder = Jwt.withTokenValue("t").header("alg", "RS256").subject("john")
+                .issuedAt(Instant.now()).expiresAt(Instant.now().plusSeconds(60))
+                .claim("roles", roles).claim("permissions", permissions).claim("scope", scope);
+        if (scp != null) {
+            builder.claim("scp", scp);
+        }
+        return builder.build();
+    }
+}
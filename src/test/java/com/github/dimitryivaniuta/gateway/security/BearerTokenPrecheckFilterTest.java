@@ -0,0 +1,88 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import com.github.dimitryivaniuta.gateway.audit.AuthAuditService;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.security.BearerTokenPrecheckFilter.Reason;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the structural bearer token pre-check.
+ */
+class BearerTokenPrecheckFilterTest {
+
+    private static final long NOW = 1_700_000_000L;
+    private static final String HEADER = "{\"alg\":\"RS256\",\"kid\":\"key-1\"}";
+
+    private final AuthAuditService auditService = mock(AuthAuditService.class);
+    private final BearerTokenPrecheckFilter filter = new BearerTokenPrecheckFilter(new AuthProperties().getPrecheck(),
+            Clock.fixed(Instant.ofEpochSecond(NOW), ZoneOffset.UTC), new SimpleMeterRegistry(), auditService);
+
+    @Test
+    void classifies_tokens() {
+        assertThat(check(token(HEADER, "{\"exp\":" + (NOW + 60) + ",\"nbf\":" + (NOW - 5) + "}"))).isNull();
+        assertThat(check(token(HEADER, "{\"sub\":\"no-exp\"}"))).isNull();
+        assertThat(check(token(HEADER, "{\"exp\":" + (NOW - 30) + ".5}"))).isNull();
+
+        assertThat(check("a".repeat(9000))).isEqualTo(Reason.TOO_LONG);
+        assertThat(check("abc")).isEqualTo(Reason.MALFORMED);
+        assertThat(check(token(HEADER, "{}") + ".extra")).isEqualTo(Reason.MALFORMED);
+        assertThat(check(b64(HEADER) + "." + b64("{}") + ".")).isEqualTo(Reason.MALFORMED);
+        assertThat(check("%%%." + b64("{}") + ".sig")).isEqualTo(Reason.MALFORMED);
+        assertThat(check(token("{\"alg\":\"none\",\"kid\":\"k\"}", "{}"))).isEqualTo(Reason.UNSUPPORTED_ALG);
+        assertThat(check(token("{\"alg\":\"RS256\"}", "{}"))).isEqualTo(Reason.MISSING_KID);
+        assertThat(check(token(HEADER, "{\"exp\":" + (NOW - 61) + "}"))).isEqualTo(Reason.EXPIRED);
+        assertThat(check(token(HEADER, "{\"nbf\":" + (NOW + 120) + "}"))).isEqualTo(Reason.NOT_YET_VALID);
+    }
+
+    @Test
+    void answers_rejected_tokens_without_calling_the_chain() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/me");
+        request.addHeader("Authorization", "bearer not-a-jwt");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo("{\"error\":\"unauthorized\",\"message\":\"Malformed bearer token\"}");
+        verify(auditService).rejected(any(), any());
+
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", "/actuator/health");
+        MockFilterChain passed = new MockFilterChain();
+        filter.doFilter(anonymous, new MockHttpServletResponse(), passed);
+        assertThat(passed.getRequest()).isSameAs(anonymous);
+        verifyNoMoreInteractions(auditService);
+    }
+
+    private Reason check(String token) {
+        return filter.check("Bearer " + token, 7);
+    }
+
+    private static String token(String header, String payload) {
+        return b64(header) + "." + b64(payload) + ".c2ln";
+    }
+
+    private static String b64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
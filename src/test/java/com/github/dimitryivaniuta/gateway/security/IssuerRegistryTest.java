@@ -0,0 +1,88 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSourceFactory;
+import com.github.dimitryivaniuta.gateway.jwks.OidcDiscoveryClient;
+import com.github.dimitryivaniuta.gateway.jwks.RedisCachingJwkSource;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for the issuer allow-list and decoder lifecycle of {@link IssuerRegistry}.
+ */
+class IssuerRegistryTest {
+
+    private static final String ISSUER = "http://issuer.test";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final JwkSourceFactory sourceFactory = mock(JwkSourceFactory.class);
+
+    @Test
+    void untrusted_issuer_gets_no_decoder_and_is_counted() {
+        IssuerRegistry issuerRegistry = issuerRegistry();
+
+        assertThat(issuerRegistry.decoderFor("http://evil.test")).isNull();
+        assertThat(issuerRegistry.decoderFor(null)).isNull();
+        assertThat(issuerRegistry.tenant("http://evil.test")).isNull();
+        assertThat(issuerRegistry.isTrusted(ISSUER)).isTrue();
+        assertThat(registry.get("auth.issuers.untrusted").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuilds_a_decoder_released_after_idle_timeout() throws Exception {
+        props.setDecoderIdleTimeout(Duration.ofMillis(50));
+        RedisCachingJwkSource first = mock(RedisCachingJwkSource.class);
+        RedisCachingJwkSource second = mock(RedisCachingJwkSource.class);
+        when(sourceFactory.create(eq(IssuerRegistry.DEFAULT_TENANT), any(), anyString()))
+                .thenReturn(first)
+                .thenReturn(second);
+        IssuerRegistry issuerRegistry = issuerRegistry();
+
+        assertThat(issuerRegistry.decoderFor(ISSUER).jwkSource()).isSameAs(first);
+        assertThat(issuerRegistry.decoderFor(ISSUER).jwkSource()).isSameAs(first);
+        Thread.sleep(200);
+
+        assertThat(issuerRegistry.decoderIfBuilt(ISSUER)).isNull();
+        assertThat(issuerRegistry.decoderFor(ISSUER).jwkSource()).isSameAs(second);
+        verify(first, timeout(2_000)).shutdown();
+        verify(sourceFactory, times(2)).create(eq(IssuerRegistry.DEFAULT_TENANT), any(), anyString());
+    }
+
+    @Test
+    void issuer_configured_twice_fails_startup() {
+        AuthProperties.Issuer duplicate = new AuthProperties.Issuer();
+        duplicate.setId("again");
+        duplicate.setIssuer(ISSUER);
+        duplicate.setAudience("other");
+        props.getIssuers().add(duplicate);
+
+        assertThatThrownBy(this::issuerRegistry)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(ISSUER);
+    }
+
+    private IssuerRegistry issuerRegistry() {
+        props.setIssuer(ISSUER);
+        props.setAudience("api");
+        props.setJwksUri(ISSUER + "/jwks");
+        return new IssuerRegistry(props, sourceFactory, mock(OidcDiscoveryClient.class),
+                new VerifiedTokenCache(props, Clock.systemUTC(), registry), registry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the unverified {@code iss} lookup used to route tokens.
+ */
+class JwtPeekTest {
+
+    @Test
+    void reads_top_level_issuer_only() {
+        assertThat(JwtPeek.issuer(token("{\"sub\":\"a\",\"iss\":\"https://idp.test\"}"))).isEqualTo("https://idp.test");
+        assertThat(JwtPeek.issuer(token("{\"act\":{\"iss\":\"nested\"},\"aud\":[\"x\",{\"iss\":1}],\"n\":-1.5e3,"
+                + "\"ok\":true,\"iss\":\"https://a\\/b\\u0021\"}"))).isEqualTo("https://a/b!");
+        assertThat(JwtPeek.issuer(token("{\"act\":{\"iss\":\"nested\"}}"))).isNull();
+    }
+
+    @Test
+    void tolerates_malformed_tokens() {
+        assertThat(JwtPeek.issuer("not-a-jwt")).isNull();
+        assertThat(JwtPeek.issuer("a.%%%.c")).isNull();
+        assertThat(JwtPeek.issuer(token("[\"iss\"]"))).isNull();
+        assertThat(JwtPeek.issuer(token("{\"iss\":42}"))).isNull();
+        assertThat(JwtPeek.issuer(token("{\"iss\":\"unterminated"))).isNull();
+    }
+
+    private static String token(String payloadJson) {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        return b64.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + b64.encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8)) + ".sig";
+    }
+}
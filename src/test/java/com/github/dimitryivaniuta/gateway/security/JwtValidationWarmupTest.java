@@ -0,0 +1,198 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSourceFactory;
+import com.github.dimitryivaniuta.gateway.jwks.JwksCacheService;
+import com.github.dimitryivaniuta.gateway.jwks.JwksSnapshotStore;
+import com.github.dimitryivaniuta.gateway.jwks.OidcDiscoveryClient;
+import com.github.dimitryivaniuta.gateway.jwks.RedisCachingJwkSource;
+import com.github.dimitryivaniuta.gateway.jwks.RemoteJwksFetcher;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Readiness gating, time bound and outcome metric of {@link JwtValidationWarmup}.
+ */
+class JwtValidationWarmupTest {
+
+    private static final TrustedIssuer TENANT =
+            new TrustedIssuer("default", "http://issuer.test", "api", "http://issuer.test/jwks", "jwks");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final CountingConverter converter = new CountingConverter();
+
+    @Test
+    void readiness_refuses_traffic_until_warm_up_completed() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WarmupApp.class)
+                .web(WebApplicationType.NONE)
+                // command line: outranks application.yml, where the warm-up is off
+                .run("--auth.warmup.enabled=true")) {
+
+            assertThat(context.getBean(ReadinessProbe.class).seen).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+            assertThat(context.getBean(ApplicationAvailability.class).getReadinessState())
+                    .isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+            assertThat(context.getBean(CountingConverter.class).calls).hasValue(10);
+        }
+    }
+
+    @Test
+    void stops_decoding_at_max_duration() {
+        props.getWarmup().setTokens(Integer.MAX_VALUE);
+        props.getWarmup().setMaxDuration(Duration.ofSeconds(1));
+
+        long started = System.nanoTime();
+        warmup(registry()).run(null);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(10));
+        assertThat(converter.calls.get()).isPositive().isLessThan(Integer.MAX_VALUE);
+        assertThat(duration("success")).isEqualTo(1);
+    }
+
+    @Test
+    void failure_is_tagged_and_does_not_block_startup() {
+        props.getWarmup().setTokens(10);
+        converter.fail = true;
+
+        warmup(registry()).run(null);
+
+        assertThat(duration("failure")).isEqualTo(1);
+        assertThat(registry.find("auth.warmup.duration").tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    void decodes_through_scratch_keys_and_leaves_the_real_source_alone() throws Exception {
+        props.getWarmup().setTokens(40);
+        IssuerRegistry issuerRegistry = registry();
+
+        warmup(issuerRegistry).run(null);
+
+        assertThat(duration("success")).isEqualTo(1);
+        assertThat(converter.calls).hasValue(40);
+        RedisCachingJwkSource source = issuerRegistry.decoderFor(TENANT.issuer()).jwkSource();
+        verify(source, never()).verificationKeys(any(), any());
+    }
+
+    private JwtValidationWarmup warmup(IssuerRegistry issuerRegistry) {
+        return new JwtValidationWarmup(props, issuerRegistry, converter, event -> {}, registry);
+    }
+
+    /**
+     * A real registry over a real source factory; only the tenant's own JWKS source is a mock.
+     */
+    private static IssuerRegistry registry() {
+        AuthProperties props = new AuthProperties();
+        props.setIssuer(TENANT.issuer());
+        props.setAudience(TENANT.audience());
+        props.setJwksUri(TENANT.jwksUri());
+        JwksCacheService cacheService = mock(JwksCacheService.class);
+        when(cacheService.now()).thenAnswer(inv -> Instant.now());
+        JwkSourceFactory factory = spy(new JwkSourceFactory(props, cacheService, mock(RemoteJwksFetcher.class),
+                mock(JwksSnapshotStore.class), new SimpleMeterRegistry()));
+        doReturn(mock(RedisCachingJwkSource.class)).when(factory).create(anyString(), any(), anyString());
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        return new IssuerRegistry(props, factory, mock(OidcDiscoveryClient.class),
+                new VerifiedTokenCache(props, Clock.systemUTC(), meters), meters);
+    }
+
+    private long duration(String outcome) {
+        return registry.get("auth.warmup.duration").tag("outcome", outcome).timer().count();
+    }
+
+    /**
+     * Readiness as seen from inside the warm-up.
+     */
+    static class ReadinessProbe {
+        final List<AvailabilityState> seen = new ArrayList<>();
+    }
+
+    static class CountingConverter extends JwtAuthenticationConverter {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean fail;
+
+        CountingConverter() {
+            setJwtGrantedAuthoritiesConverter(jwt -> {
+                if (fail) {
+                    throw new IllegalStateException("mapper broken");
+                }
+                calls.incrementAndGet();
+                return List.of();
+            });
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @Import(JwtValidationWarmup.class)
+    static class WarmupApp {
+
+        @Bean
+        ApplicationAvailabilityBean applicationAvailability() {
+            return new ApplicationAvailabilityBean();
+        }
+
+        @Bean
+        AuthProperties authProperties() {
+            AuthProperties props = new AuthProperties();
+            props.getWarmup().setEnabled(true);
+            props.getWarmup().setTokens(10);
+            return props;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CountingConverter jwtAuthenticationConverter() {
+            return new CountingConverter();
+        }
+
+        @Bean
+        ReadinessProbe readinessProbe() {
+            return new ReadinessProbe();
+        }
+
+        @Bean
+        IssuerRegistry issuerRegistry(ApplicationAvailability availability, ReadinessProbe probe) {
+            IssuerRegistry issuerRegistry = registry();
+            RedisCachingJwkSource source = issuerRegistry.decoderFor(TENANT.issuer()).jwkSource();
+            when(source.prefetch()).thenAnswer(inv -> {
+                probe.seen.add(availability.getReadinessState());
+                return 1;
+            });
+            return issuerRegistry;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import com.github.dimitryivaniuta.gateway.TestJwtFactory;
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSourceFactory;
+import com.github.dimitryivaniuta.gateway.jwks.OidcDiscoveryClient;
+import com.github.dimitryivaniuta.gateway.jwks.RedisCachingJwkSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for issuer routing in {@link MultiIssuerJwtDecoder} over a real {@link IssuerRegistry}.
+ */
+class MultiIssuerJwtDecoderTest {
+
+    private static final String ISSUER_A = "http://issuer-a.test";
+    private static final String ISSUER_B = "http://issuer-b.test";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AuthProperties props = new AuthProperties();
+    private final JwkSourceFactory sourceFactory = mock(JwkSourceFactory.class);
+    private final RSAKey keyA = rsa("key-a");
+    private final RSAKey keyB = rsa("key-b");
+
+    @Test
+    void routes_each_token_to_its_tenant_keys_and_validators() throws Exception {
+        MultiIssuerJwtDecoder decoder = decoder(true);
+
+        Jwt a = decoder.decode(TestJwtFactory.mint(keyA, ISSUER_A, "api-a", "alice", Instant.now(), List.of()));
+        Jwt b = decoder.decode(TestJwtFactory.mint(keyB, ISSUER_B, "api-b", "bob", Instant.now(), List.of()));
+
+        assertThat(a.getSubject()).isEqualTo("alice");
+        assertThat(b.getSubject()).isEqualTo("bob");
+        // each tenant validates its own audience
+        assertThatThrownBy(() -> decoder.decode(
+                TestJwtFactory.mint(keyB, ISSUER_B, "api-a", "bob", Instant.now(), List.of())))
+                .isInstanceOf(JwtValidationException.class);
+        assertThat(registry.get("auth.jwt.decode").tag("tenant", "b").tag("outcome", "valid").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejects_an_untrusted_issuer_before_any_key_lookup() {
+        MultiIssuerJwtDecoder decoder = decoder(true);
+        String token = TestJwtFactory.mint(keyA, "http://evil.test", "api-a", "mallory", Instant.now(), List.of());
+
+        assertThatThrownBy(() -> decoder.decode(token))
+                .isInstanceOf(BadJwtException.class)
+                .hasMessageContaining("Untrusted");
+        verify(sourceFactory, never()).create(anyString(), any(), anyString());
+        assertThat(registry.get("auth.issuers.untrusted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejects_a_token_signed_by_one_tenant_claiming_another_issuer() throws Exception {
+        MultiIssuerJwtDecoder decoder = decoder(true);
+        // tenant A's key under its own kid, and under a kid tenant B publishes
+        RSAKey posingAsB = new RSAKey.Builder(keyA).keyID(keyB.getKeyID()).build();
+
+        assertThatThrownBy(() -> decoder.decode(
+                TestJwtFactory.mint(keyA, ISSUER_B, "api-b", "alice", Instant.now(), List.of())))
+                .isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode(
+                TestJwtFactory.mint(posingAsB, ISSUER_B, "api-b", "alice", Instant.now(), List.of())))
+                .isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void single_tenant_skips_the_issuer_peek() {
+        MultiIssuerJwtDecoder decoder = decoder(false);
+
+        assertThat(decoder.decode(TestJwtFactory.mint(keyA, ISSUER_A, "api-a", "alice", Instant.now(), List.of()))
+                .getSubject()).isEqualTo("alice");
+        // the only tenant's validators reject a foreign iss; the allow-list is not consulted
+        assertThatThrownBy(() -> decoder.decode(
+                TestJwtFactory.mint(keyA, "http://evil.test", "api-a", "mallory", Instant.now(), List.of())))
+                .isInstanceOf(JwtValidationException.class);
+        assertThat(registry.get("auth.issuers.untrusted").counter().count()).isZero();
+    }
+
+    private MultiIssuerJwtDecoder decoder(boolean withTenantB) {
+        props.setIssuer(ISSUER_A);
+        props.setAudience("api-a");
+        props.setJwksUri(ISSUER_A + "/jwks");
+        RedisCachingJwkSource sourceA = source(keyA);
+        when(sourceFactory.create(eq(IssuerRegistry.DEFAULT_TENANT), any(), anyString())).thenReturn(sourceA);
+        if (withTenantB) {
+            AuthProperties.Issuer b = new AuthProperties.Issuer();
+            b.setId("b");
+            b.setIssuer(ISSUER_B);
+            b.setAudience("api-b");
+            b.setJwksUri(ISSUER_B + "/jwks");
+            props.getIssuers().add(b);
+            RedisCachingJwkSource sourceB = source(keyB);
+            when(sourceFactory.create(eq("b"), any(), anyString())).thenReturn(sourceB);
+        }
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(props, Clock.systemUTC(), registry);
+        IssuerRegistry issuerRegistry = new IssuerRegistry(props, sourceFactory, mock(OidcDiscoveryClient.class),
+                tokenCache, registry);
+        return new MultiIssuerJwtDecoder(issuerRegistry, tokenCache);
+    }
+
+    /**
+     * JWKS source publishing only {@code key}.
+     */
+    private static RedisCachingJwkSource source(RSAKey key) {
+        RedisCachingJwkSource source = mock(RedisCachingJwkSource.class);
+        try {
+            when(source.verificationKeys(eq(key.getKeyID()), any())).thenReturn(List.of(key.toPublicKey()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        when(source.publishes(key.getKeyID())).thenReturn(true);
+        return source;
+    }
+
+    private static RSAKey rsa(String kid) {
+        try {
+            return new RSAKeyGenerator(2048).keyID(kid).generate();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
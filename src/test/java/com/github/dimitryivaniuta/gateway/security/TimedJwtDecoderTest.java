@@ -0,0 +1,51 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Outcomes and tags of {@link TimedJwtDecoder}.
+ */
+class TimedJwtDecoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void times_each_decode_by_tenant_and_outcome_only() {
+        JwtDecoder delegate = token -> switch (token) {
+            case "good" -> Jwt.withTokenValue(token).header("alg", "RS256").header("kid", "key-1")
+                    .subject("john").expiresAt(Instant.now().plusSeconds(60)).build();
+            case "bad" -> throw new BadJwtException("Invalid signature");
+            default -> throw new JwtException("Unable to obtain keys");
+        };
+        TimedJwtDecoder decoder = new TimedJwtDecoder(delegate, registry, Tags.of("tenant", "default"));
+
+        decoder.decode("good");
+        decoder.decode("good");
+        assertThatThrownBy(() -> decoder.decode("bad")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("down")).isInstanceOf(JwtException.class);
+
+        assertThat(count("valid")).isEqualTo(2);
+        assertThat(count("invalid")).isEqualTo(1);
+        assertThat(count("error")).isEqualTo(1);
+        assertThat(registry.get("auth.jwt.decode").meters()).hasSize(3)
+                .allSatisfy(meter -> assertThat(meter.getId().getTags()).extracting(Tag::getKey)
+                        .containsExactlyInAnyOrder("tenant", "outcome"));
+    }
+
+    private long count(String outcome) {
+        return registry.get("auth.jwt.decode").tag("tenant", "default").tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.dimitryivaniuta.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.dimitryivaniuta.gateway.config.AuthProperties;
+import com.github.dimitryivaniuta.gateway.jwks.JwkSnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for {@link VerifiedTokenCache}.
+ */
+class VerifiedTokenCacheTest {
+
+    private static final String ISSUER = "http://issuer.test";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(new AuthProperties(), Clock.systemUTC(), registry);
+
+    @Test
+    void caches_until_exp_and_converts_authorities_once() {
+        Jwt live = jwt("token-1", "key-1", Instant.now().plusSeconds(300));
+        Jwt expired = jwt("token-2", "key-1", Instant.now().minusSeconds(1));
+        cache.put(ISSUER, live);
+        cache.put(ISSUER, expired);
+
+        assertThat(cache.get("token-1")).isSameAs(live);
+        assertThat(cache.get("token-2")).isNull();
+        assertThat(registry.get("auth.token.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+
+        AtomicInteger conversions = new AtomicInteger();
+        Converter<Jwt, Collection<GrantedAuthority>> mapper = jwt -> {
+            conversions.incrementAndGet();
+            return List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        };
+        assertThat(cache.authorities(live, mapper)).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        assertThat(cache.authorities(live, mapper)).hasSize(1);
+        cache.authorities(expired, mapper);
+        assertThat(conversions).hasValue(2);
+        assertThat(registry.get("auth.jwt.authorities").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void drops_tokens_whose_kid_left_the_jwks() throws Exception {
+        cache.put(ISSUER, jwt("token-1", "key-1", Instant.now().plusSeconds(300)));
+        cache.put(ISSUER, jwt("token-2", "key-2", Instant.now().plusSeconds(300)));
+        cache.put("http://other.test", jwt("token-3", "key-1", Instant.now().plusSeconds(300)));
+
+        JWKSet remaining = new JWKSet(new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK());
+        cache.onKeysChanged(ISSUER, JwkSnapshot.of(remaining, null));
+
+        assertThat(cache.get("token-1")).isNull();
+        assertThat(cache.get("token-2")).isNotNull();
+        assertThat(cache.get("token-3")).isNotNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void token_verified_against_replaced_keys_is_not_kept() throws Exception {
+        JwkSnapshot current = JwkSnapshot.of(
+                new JWKSet(new RSAKeyGenerator(2048).keyID("key-2").generate().toPublicJWK()), null);
+        // key-1 was purged while this token was still being verified
+        cache.onKeysChanged(ISSUER, current);
+
+        cache.put(ISSUER, jwt("token-1", "key-1", Instant.now().plusSeconds(300)), current::contains);
+        cache.put(ISSUER, jwt("token-2", "key-2", Instant.now().plusSeconds(300)), current::contains);
+
+        assertThat(cache.get("token-1")).isNull();
+        assertThat(cache.get("token-2")).isNotNull();
+    }
+
+    private static Jwt jwt(String token, String kid, Instant exp) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .header("kid", kid)
+                .issuer(ISSUER)
+                .subject("john")
+                .issuedAt(exp.minusSeconds(600))
+                .expiresAt(exp)
+                .build();
+    }
+}